@@ -0,0 +1,55 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Task;
+import com.taskmanager.tasks.TaskStatus;
+
+import java.util.logging.LogManager;
+
+/**
+ * Compares the retained heap of {@link InMemoryTaskManager} and {@link ColumnarTaskManager}.
+ * <p>
+ * Loads tasks with time slots, 1000 distinct names and 100 distinct descriptions, and measures the retained heap.
+ * Then, twice, renames every task to a unique name and back and measures again: the columnar dictionary frees the
+ * codes of the unique names, so only its tables keep the capacity reached and the second round does not grow.
+ * Run one manager per JVM, e.g.
+ * {@code java -Xms3g -Xmx3g com.taskmanager.managers.ColumnarHeapBenchmark COLUMNAR 1000000}
+ * and the same with {@code IN_MEMORY}.
+ * </p>
+ */
+public class ColumnarHeapBenchmark {
+
+    private static final long FIRST_MINUTE = 28_000_000; // 2023
+
+    enum ManagerType { IN_MEMORY, COLUMNAR }
+
+    public static void main(String[] args) {
+        ManagerType type = ManagerType.valueOf(args[0]);
+        int tasks = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        LogManager.getLogManager().reset(); // every write logs at INFO otherwise
+
+        long before = HeapMeter.usedAfterGc();
+        TaskManager manager = type == ManagerType.IN_MEMORY ? new InMemoryTaskManager() : new ColumnarTaskManager();
+        for (int i = 0; i < tasks; i++) {
+            manager.createTask(newTask(i, "Task name " + i % 1_000));
+        }
+        System.out.println(type + ": " + tasks + " tasks retain "
+                + HeapMeter.megabytes(HeapMeter.usedAfterGc() - before));
+
+        for (int round = 1; round <= 2; round++) {
+            for (int i = 0; i < tasks; i++) {
+                manager.updateUsualTask(newTask(i, "Renamed task " + round + "." + i), i + 1);
+            }
+            for (int i = 0; i < tasks; i++) {
+                manager.updateUsualTask(newTask(i, "Task name " + i % 1_000), i + 1);
+            }
+            System.out.println(type + ": after renaming every task and back, round " + round + ": "
+                    + HeapMeter.megabytes(HeapMeter.usedAfterGc() - before));
+        }
+    }
+
+    private static Task newTask(int i, String name) {
+        Task task = new Task(name, "Description " + i % 100, TaskStatus.NEW);
+        task.setEpochMinutes(FIRST_MINUTE + i * 60L, 30);
+        return task;
+    }
+}
@@ -0,0 +1,83 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Epic;
+import com.taskmanager.tasks.Subtask;
+import com.taskmanager.tasks.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.LogManager;
+
+/**
+ * Throughput of subtask writes to different epics of one {@link InMemoryTaskManager} by thread count.
+ * <p>
+ * Every thread creates and deletes subtasks of its own epic, so writes only meet on the shared indexes:
+ * subtasks without a time slot never take the schedule index monitor, subtasks with one take it for the
+ * "validate slot, then store" step. Compare thread counts with JMH's {@code -t}, e.g.
+ * {@code org.openjdk.jmh.Main EpicStripingBenchmark -t 1} and {@code -t 4}, on a machine with as many cores.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EpicStripingBenchmark {
+
+    private static final int EPICS = 64;
+    private static final long FIRST_MINUTE = 28_000_000; // 2023
+
+    @Param({"false", "true"})
+    public boolean timed;
+
+    InMemoryTaskManager manager;
+    final AtomicInteger nextWorker = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LogManager.getLogManager().reset(); // every write logs at INFO otherwise
+        manager = new InMemoryTaskManager();
+        manager.setHistoryManager(new InMemoryHistoryManager(1));
+        for (int i = 0; i < EPICS; i++) {
+            manager.createEpic(new Epic("Epic" + i, "Descr"));
+        }
+    }
+
+    /** Epic and time slot of one thread. */
+    @State(Scope.Thread)
+    public static class Worker {
+        int epicId;
+        long startMinute;
+
+        @Setup(Level.Trial)
+        public void setUp(EpicStripingBenchmark benchmark) {
+            int worker = benchmark.nextWorker.getAndIncrement();
+            epicId = 1 + worker % EPICS; // epics got IDs 1..EPICS
+            startMinute = FIRST_MINUTE + worker * 10L;
+        }
+    }
+
+    @Benchmark
+    public int createAndDeleteSubtask(Worker worker) {
+        Subtask subtask = new Subtask("Subtask", "Descr", TaskStatus.NEW, worker.epicId);
+        if (timed) {
+            subtask.setEpochMinutes(worker.startMinute, 5);
+        }
+        manager.createSubtask(subtask);
+        manager.deleteSubtaskById(subtask.getId());
+        return subtask.getId();
+    }
+}
@@ -0,0 +1,70 @@
+package com.taskmanager.managers;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap and GC measurements shared by the memory benchmarks.
+ * <p>
+ * Retained heap is measured as used heap after repeated full collections, so run the benchmarks
+ * with a fixed heap ({@code -Xms} = {@code -Xmx}) and one measured structure per JVM where possible.
+ * </p>
+ */
+final class HeapMeter {
+
+    private final AtomicLong pauses = new AtomicLong();
+    private final AtomicLong totalPauseMillis = new AtomicLong();
+    private final AtomicLong maxPauseMillis = new AtomicLong();
+
+    private HeapMeter() {
+    }
+
+    /** Returns the used heap after full collections. */
+    static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    static String megabytes(long bytes) {
+        return String.format("%.1f MB", bytes / 1_000_000.0);
+    }
+
+    /** Starts recording the duration of every collection reported by the JVM from now on. */
+    static HeapMeter recordPauses() {
+        // a listener is never removed; meters are meant to be created a few times per run
+        HeapMeter meter = new HeapMeter();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    long duration = GarbageCollectionNotificationInfo
+                            .from((CompositeData) notification.getUserData()).getGcInfo().getDuration();
+                    meter.pauses.incrementAndGet();
+                    meter.totalPauseMillis.addAndGet(duration);
+                    meter.maxPauseMillis.accumulateAndGet(duration, Math::max);
+                }
+            }, null, null);
+        }
+        return meter;
+    }
+
+    @Override
+    public String toString() {
+        return pauses.get() + " collections, " + totalPauseMillis.get() + " ms total, "
+                + maxPauseMillis.get() + " ms max";
+    }
+}
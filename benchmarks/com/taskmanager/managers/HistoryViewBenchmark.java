@@ -0,0 +1,141 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Task;
+import com.taskmanager.tasks.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+
+/**
+ * Cost of one view recorded in a history of {@link #TASKS} tasks: the array-linked {@link InMemoryHistoryManager}
+ * against {@link NodeHistory}, the node-per-view linked list it replaced.
+ * <p>
+ * Views are random, so most of them move a task already in the history to the end; with {@code capacity} 100
+ * the other ones evict. Run with {@code -prof gc} to see the allocation per view,
+ * e.g. {@code org.openjdk.jmh.Main HistoryViewBenchmark -prof gc}.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryViewBenchmark {
+
+    private static final int TASKS = 1_000;
+    private static final int VIEWS = 1 << 16;
+
+    /** Maximum number of tasks kept, {@code 0} for an unbounded history. */
+    @Param({"0", "100"})
+    public int capacity;
+
+    InMemoryHistoryManager arrayHistory;
+    NodeHistory nodeHistory;
+    Task[] views;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LogManager.getLogManager().reset();
+        int maxTasks = capacity == 0 ? InMemoryHistoryManager.UNBOUNDED : capacity;
+        arrayHistory = new InMemoryHistoryManager(maxTasks);
+        nodeHistory = new NodeHistory(maxTasks);
+        Task[] tasks = new Task[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            tasks[i] = new Task("Task" + i, "Descr", TaskStatus.NEW);
+            tasks[i].setId(i + 1);
+            arrayHistory.add(tasks[i]);
+            nodeHistory.add(tasks[i]);
+        }
+        Random random = new Random(42);
+        views = new Task[VIEWS];
+        for (int i = 0; i < VIEWS; i++) {
+            views[i] = tasks[random.nextInt(TASKS)];
+        }
+    }
+
+    @Benchmark
+    public InMemoryHistoryManager arrayLinked() {
+        arrayHistory.add(views[next++ & (VIEWS - 1)]);
+        return arrayHistory;
+    }
+
+    @Benchmark
+    public NodeHistory nodeLinked() {
+        nodeHistory.add(views[next++ & (VIEWS - 1)]);
+        return nodeHistory;
+    }
+
+    /** Previous history: a node and a map entry per view, kept here without its logging as the baseline. */
+    static class NodeHistory {
+
+        private final IntObjectHashMap<Node> nodes = new IntObjectHashMap<>();
+        private final int capacity;
+        private Node first;
+        private Node last;
+        private int size;
+
+        NodeHistory(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void add(Task task) {
+            Node existingNode = nodes.get(task.getId());
+            if (existingNode != null) {
+                removeNode(existingNode);
+            }
+            Node node = new Node(last, task);
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            nodes.put(task.getId(), node);
+            size++;
+            if (size > capacity) {
+                removeNode(first);
+            }
+        }
+
+        private void removeNode(Node node) {
+            nodes.remove(node.task.getId());
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            size--;
+        }
+
+        private static class Node {
+            private final Task task;
+            private Node prev;
+            private Node next;
+
+            Node(Node prev, Task task) {
+                this.prev = prev;
+                this.task = task;
+            }
+        }
+    }
+}
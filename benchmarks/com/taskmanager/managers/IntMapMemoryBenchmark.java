@@ -0,0 +1,35 @@
+package com.taskmanager.managers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compares the retained heap of {@link IntObjectHashMap} with the boxed-key maps it replaced.
+ * <p>
+ * Fills one map with IDs 1..n mapped to one shared value, so only the map itself is measured:
+ * table arrays, plus entry nodes and {@code Integer} keys for the JDK maps. Run one map per JVM, e.g.
+ * {@code java -Xms1g -Xmx1g com.taskmanager.managers.IntMapMemoryBenchmark INT_OBJECT 1000000}
+ * and the same with {@code HASH_MAP} and {@code CONCURRENT_HASH_MAP}.
+ * </p>
+ */
+public class IntMapMemoryBenchmark {
+
+    enum MapType { HASH_MAP, CONCURRENT_HASH_MAP, INT_OBJECT }
+
+    public static void main(String[] args) {
+        MapType type = MapType.valueOf(args[0]);
+        int entries = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        Object value = new Object();
+        long before = HeapMeter.usedAfterGc();
+        Map<Integer, Object> map = type == MapType.HASH_MAP ? new HashMap<>()
+                : type == MapType.CONCURRENT_HASH_MAP ? new ConcurrentHashMap<>()
+                : new IntObjectHashMap<>();
+        for (int id = 1; id <= entries; id++) {
+            map.put(id, value);
+        }
+        long retained = HeapMeter.usedAfterGc() - before;
+        System.out.println(type + ": " + map.size() + " entries retain " + HeapMeter.megabytes(retained));
+    }
+}
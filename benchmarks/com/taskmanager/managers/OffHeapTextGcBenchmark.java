@@ -0,0 +1,55 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Task;
+import com.taskmanager.tasks.TaskStatus;
+
+import java.util.Random;
+
+/**
+ * Compares heap size and GC pauses of {@link ColumnarTaskManager} with text on the heap and off-heap.
+ * <p>
+ * Loads tasks with unique names and descriptions and measures the retained heap and the pauses of full
+ * collections, which trace the stored text when it is on the heap. Then runs rounds of random reads, some of
+ * whose results are kept in a window long enough to be promoted; off-heap reads decode new strings, so this part
+ * shows the allocation cost of the off-heap storage. Run one storage per JVM, e.g.
+ * {@code java -XX:+UseParallelGC -Xms3g -Xmx3g com.taskmanager.managers.OffHeapTextGcBenchmark OFF_HEAP 2000000 40}.
+ * </p>
+ */
+public class OffHeapTextGcBenchmark {
+
+    private static final int WINDOW = 200_000;
+    private static final int READS_PER_ROUND = 1_000_000;
+
+    public static void main(String[] args) {
+        ColumnarTaskManager.TextStorage storage = ColumnarTaskManager.TextStorage.valueOf(args[0]);
+        int tasks = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+
+        ColumnarTaskManager manager = new ColumnarTaskManager(storage);
+        // reads record views; a small history keeps them from retaining the tasks read
+        manager.setHistoryManager(new InMemoryHistoryManager(100));
+        for (int i = 0; i < tasks; i++) {
+            manager.createTask(new Task("Task name " + i, "Description of task number " + i + " with some text",
+                    TaskStatus.NEW));
+        }
+        HeapMeter fullCollections = HeapMeter.recordPauses();
+        long heap = HeapMeter.usedAfterGc();
+        System.out.println(storage + ": heap after load " + HeapMeter.megabytes(heap)
+                + ", full GC " + fullCollections);
+
+        HeapMeter pauses = HeapMeter.recordPauses();
+        Task[] window = new Task[WINDOW];
+        Random random = new Random(42);
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < READS_PER_ROUND; i++) {
+                Task task = manager.getUsualTaskById(1 + random.nextInt(tasks));
+                window[random.nextInt(WINDOW)] = task;
+                checksum += task.getName().length();
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println(storage + ": churn " + elapsedMillis + " ms, GC " + pauses + " (checksum " + checksum + ")");
+    }
+}
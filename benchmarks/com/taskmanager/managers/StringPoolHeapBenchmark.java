@@ -0,0 +1,50 @@
+package com.taskmanager.managers;
+
+import com.google.gson.Gson;
+import com.taskmanager.tasks.Task;
+import com.taskmanager.tasks.TaskStatus;
+
+import java.util.logging.LogManager;
+
+/**
+ * Measures the heap saved by the {@link StringPool} of {@link InMemoryTaskManager} on template-heavy data.
+ * <p>
+ * Creates tasks deserialized from a few JSON templates, as a client posting the same kinds of tasks would:
+ * every deserialized task carries its own copies of the name and description. With {@code UNPOOLED}, a manager
+ * that skips the pool keeps all copies. Run one mode per JVM, e.g.
+ * {@code java --add-opens java.base/java.time=ALL-UNNAMED -Xms1g -Xmx1g
+ * com.taskmanager.managers.StringPoolHeapBenchmark POOLED 200000 50}
+ * and the same with {@code UNPOOLED}.
+ * </p>
+ */
+public class StringPoolHeapBenchmark {
+
+    enum Mode { POOLED, UNPOOLED }
+
+    public static void main(String[] args) {
+        Mode mode = Mode.valueOf(args[0]);
+        int tasks = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int templates = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        LogManager.getLogManager().reset(); // every write logs at INFO otherwise
+
+        Gson gson = new Gson();
+        String[] jsonTemplates = new String[templates];
+        for (int i = 0; i < templates; i++) {
+            String description = "Collect the numbers of team " + i + ", update the dashboard and send the summary";
+            jsonTemplates[i] = gson.toJson(new Task("Weekly report for team " + i, description, TaskStatus.NEW));
+        }
+
+        long before = HeapMeter.usedAfterGc();
+        InMemoryTaskManager manager = mode == Mode.POOLED ? new InMemoryTaskManager() : new InMemoryTaskManager() {
+            @Override
+            protected void internStrings(Task task) {
+            }
+        };
+        for (int i = 0; i < tasks; i++) {
+            manager.createTask(gson.fromJson(jsonTemplates[i % templates], Task.class));
+        }
+        long retained = HeapMeter.usedAfterGc() - before;
+        System.out.println(mode + ": " + manager.getTasks().size() + " tasks from " + templates + " templates retain "
+                + HeapMeter.megabytes(retained));
+    }
+}
@@ -10,9 +10,16 @@ package com.taskmanager.api;
 public enum Endpoint {
     GET,
     GET_HISTORY,
+    GET_HISTORY_RECENT,
+    GET_RANGE,
+    GET_SLOT,
+    GET_CONFLICTS,
     GET_TASK,
     GET_EPIC,
     GET_SUBTASK,
+    GET_TASK_STATUS,
+    GET_EPIC_STATUS,
+    GET_SUBTASK_STATUS,
     GET_SUBTASK_EPIC_ID,
     GET_TASK_ID,
     GET_EPIC_ID,
@@ -20,6 +27,8 @@ public enum Endpoint {
     POST_TASK,
     POST_EPIC,
     POST_SUBTASK,
+    POST_BATCH,
+    POST_TRANSACTION,
     PUT_TASK_ID,
     PUT_EPIC_ID,
     PUT_SUBTASK_ID,
@@ -30,5 +39,7 @@ public enum Endpoint {
     DELETE_TASK_ID,
     DELETE_EPIC_ID,
     DELETE_SUBTASK_ID,
+    DELETE_TASK_FILTER,
+    DELETE_SUBTASK_FILTER,
     UNKNOWN
 }
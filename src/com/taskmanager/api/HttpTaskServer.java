@@ -1,12 +1,18 @@
 package com.taskmanager.api;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import com.taskmanager.main_manager.Managers;
+import com.taskmanager.managers.SessionHistoryManager;
 import com.taskmanager.managers.TaskManager;
+import com.taskmanager.managers.Transaction;
 import com.taskmanager.tasks.*;
 
 import java.io.IOException;
@@ -17,6 +23,16 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -32,17 +48,36 @@ public class HttpTaskServer {
 
     HttpServer httpServer;
     private static final int PORT = 8080;
+    /** Header naming the client session whose history records the views of a request. */
+    static final String SESSION_HEADER = "X-Session-Id";
+    private static final int MAX_SESSION_ID_LENGTH = 64;
+    private static final int SESSION_HISTORY_CAPACITY = 100;
+    private static final int MAX_SESSIONS = 10_000;
+    private static final Duration SESSION_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    /** Expected version for an If-Match ETag of an earlier server run; no stored task has it. */
+    private static final int STALE_VERSION = Integer.MIN_VALUE;
     private final Charset DEFAULT_CHARSET= StandardCharsets.UTF_8;
     private final Gson gson;
     private final TaskManager taskManager;
+    private final SessionHistoryManager sessionHistory;
+    private final ExecutorService executor;
+    // Versions are not persisted and restart at 0 after a reload, so ETags name the server run too
+    private final String eTagEpoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
 
     public HttpTaskServer() throws IOException {
         this.httpServer = HttpServer.create();
         httpServer.bind(new InetSocketAddress(PORT), 0);
         httpServer.createContext("/tasks", new TaskHandler());
+        // Requests are handled in parallel, the task manager is thread-safe
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        httpServer.setExecutor(executor);
 
         this.gson = new Gson();
         this.taskManager = Managers.getDefault();
+        // Requests without a session header keep using the history loaded with the tasks
+        this.sessionHistory = Managers.getSessionHistory(taskManager.getHistoryManager(),
+                SESSION_HISTORY_CAPACITY, MAX_SESSIONS, SESSION_IDLE_TIMEOUT);
+        taskManager.setHistoryManager(sessionHistory);
     }
 
     public void start() {
@@ -53,6 +88,7 @@ public class HttpTaskServer {
     public void stop() {
         LOGGER.warning("Stopped server on port: " + PORT);
         httpServer.stop(0);
+        executor.shutdown();
     }
 
     /**
@@ -71,6 +107,23 @@ public class HttpTaskServer {
 
             Endpoint endpoint = getEndpoint(method, path, query);
 
+            String sessionId = httpExchange.getRequestHeaders().getFirst(SESSION_HEADER);
+            if (sessionId == null || sessionId.isBlank()) {
+                dispatch(httpExchange, endpoint, path, query);
+            } else if (sessionId.length() > MAX_SESSION_ID_LENGTH) {
+                writeResponse(httpExchange, "Invalid " + SESSION_HEADER + " header", 400);
+            } else {
+                SessionHistoryManager.Scope scope = sessionHistory.open(sessionId);
+                try {
+                    dispatch(httpExchange, endpoint, path, query);
+                } finally {
+                    scope.close();
+                }
+            }
+        }
+
+        private void dispatch(HttpExchange httpExchange, Endpoint endpoint, String path, String query)
+                throws IOException {
             try {
                 switch (endpoint) {
                     case GET:
@@ -79,6 +132,18 @@ public class HttpTaskServer {
                     case GET_HISTORY:
                         handleGetHistoryManager(httpExchange);
                         break;
+                    case GET_HISTORY_RECENT:
+                        handleGetRecentHistory(httpExchange, query);
+                        break;
+                    case GET_RANGE:
+                        handleGetTasksInRange(httpExchange, query);
+                        break;
+                    case GET_SLOT:
+                        handleFindFreeSlot(httpExchange, query);
+                        break;
+                    case GET_CONFLICTS:
+                        handleGetConflicts(httpExchange);
+                        break;
                     case GET_TASK:
                         handleGetTasks(httpExchange);
                         break;
@@ -88,6 +153,15 @@ public class HttpTaskServer {
                     case GET_SUBTASK:
                         handleGetSubtasks(httpExchange);
                         break;
+                    case GET_TASK_STATUS:
+                        handleGetByStatus(httpExchange, query, "tasks", taskManager::getTasksByStatus);
+                        break;
+                    case GET_EPIC_STATUS:
+                        handleGetByStatus(httpExchange, query, "epics", taskManager::getEpicsByStatus);
+                        break;
+                    case GET_SUBTASK_STATUS:
+                        handleGetByStatus(httpExchange, query, "subtasks", taskManager::getSubtasksByStatus);
+                        break;
                     case GET_SUBTASK_EPIC_ID:
                         handleGetEpicSubtasks(httpExchange, query);
                         break;
@@ -110,6 +184,12 @@ public class HttpTaskServer {
                     case POST_SUBTASK:
                         handleCreateSubtask(httpExchange);
                         break;
+                    case POST_BATCH:
+                        handleCreateBatch(httpExchange);
+                        break;
+                    case POST_TRANSACTION:
+                        handleTransaction(httpExchange);
+                        break;
 
                     case PUT_TASK_ID:
                         handleUpdateUsualTask(httpExchange, query);
@@ -142,6 +222,12 @@ public class HttpTaskServer {
                     case DELETE_SUBTASK_ID:
                         handleDeleteSubtaskById(httpExchange, query);
                         break;
+                    case DELETE_TASK_FILTER:
+                        handleDeleteTasksByFilter(httpExchange, query);
+                        break;
+                    case DELETE_SUBTASK_FILTER:
+                        handleDeleteSubtasksByFilter(httpExchange, query);
+                        break;
 
                     default:
                         LOGGER.warning("Unknown endpoint requested: " + path);
@@ -160,7 +246,7 @@ public class HttpTaskServer {
 
     private void handleGetPrioritizedTasks(HttpExchange httpExchange) throws IOException {
         LOGGER.info("Fetching prioritized tasks");
-        String prioritizedTasks = gson.toJson(taskManager.getPrioritizedTasks());
+        String prioritizedTasks = gson.toJson(taskManager.getPrioritizedTasksView());
         writeResponse(httpExchange, prioritizedTasks, 200);
     }
 
@@ -170,6 +256,82 @@ public class HttpTaskServer {
         writeResponse(httpExchange, historyManager, 200);
     }
 
+    private void handleGetRecentHistory(HttpExchange httpExchange, String query) throws IOException {
+
+        Map<String, String> parameters = parseQuery(query);
+        if (!parameters.containsKey("limit")) {
+            writeResponse(httpExchange, "Parameter 'limit' is required", 400);
+            return;
+        }
+
+        try {
+            int limit = Integer.parseInt(parameters.get("limit"));
+            int offset = Integer.parseInt(parameters.getOrDefault("offset", "0"));
+            LOGGER.info("Fetching " + limit + " recent tasks of history from " + offset);
+            String recent = gson.toJson(taskManager.getHistoryManager().getRecent(limit, offset));
+            writeResponse(httpExchange, recent, 200);
+        } catch (IllegalArgumentException exception) { // also NumberFormatException
+            writeResponse(httpExchange, "Invalid limit or offset", 400);
+        }
+    }
+
+    private void handleGetTasksInRange(HttpExchange httpExchange, String query) throws IOException {
+
+        Map<String, String> parameters = parseQuery(query);
+        if (!parameters.containsKey("from") || !parameters.containsKey("to")) {
+            writeResponse(httpExchange, "Parameters 'from' and 'to' are required", 400);
+            return;
+        }
+
+        try {
+            LocalDateTime from = LocalDateTime.parse(parameters.get("from"), Task.dateTimeFormatter);
+            LocalDateTime to = LocalDateTime.parse(parameters.get("to"), Task.dateTimeFormatter);
+            LOGGER.info("Fetching tasks starting from " + from + " to " + to);
+            String tasks = gson.toJson(taskManager.getTasksInRange(from, to));
+            writeResponse(httpExchange, tasks, 200);
+        } catch (DateTimeParseException exception) {
+            writeResponse(httpExchange, "Invalid date, expected format dd.MM.yyyy, HH:mm", 400);
+        } catch (IllegalArgumentException exception) {
+            writeResponse(httpExchange, exception.getMessage(), 400);
+        }
+    }
+
+    private void handleFindFreeSlot(HttpExchange httpExchange, String query) throws IOException {
+
+        Map<String, String> parameters = parseQuery(query);
+        if (!parameters.containsKey("from") || !parameters.containsKey("duration")) {
+            writeResponse(httpExchange, "Parameters 'from' and 'duration' are required", 400);
+            return;
+        }
+
+        try {
+            LocalDateTime from = LocalDateTime.parse(parameters.get("from"), Task.dateTimeFormatter);
+            long minutes = Long.parseLong(parameters.get("duration"));
+            if (minutes < 0 || minutes > Task.MAX_EPOCH_MINUTE - Task.toEpochMinute(from)) {
+                writeResponse(httpExchange, "Invalid duration", 400);
+                return;
+            }
+            Duration duration = Duration.ofMinutes(minutes);
+            LOGGER.info("Searching free slot of " + duration.toMinutes() + " minutes from " + from);
+            LocalDateTime startTime = taskManager.findFreeSlot(from, duration);
+
+            JsonObject slot = new JsonObject();
+            slot.addProperty("startTime", startTime.format(Task.dateTimeFormatter));
+            slot.addProperty("endTime", startTime.plus(duration).format(Task.dateTimeFormatter));
+            writeResponse(httpExchange, gson.toJson(slot), 200);
+        } catch (DateTimeParseException exception) {
+            writeResponse(httpExchange, "Invalid date, expected format dd.MM.yyyy, HH:mm", 400);
+        } catch (IllegalArgumentException exception) { // also NumberFormatException
+            writeResponse(httpExchange, "Invalid duration", 400);
+        }
+    }
+
+    private void handleGetConflicts(HttpExchange httpExchange) throws IOException {
+        LOGGER.info("Searching conflicting tasks");
+        String conflicts = gson.toJson(taskManager.findConflicts());
+        writeResponse(httpExchange, conflicts, 200);
+    }
+
     private void handleGetTasks(HttpExchange httpExchange) throws IOException {
         LOGGER.info("Fetching all tasks");
         String tasks = gson.toJson(taskManager.getTasks());
@@ -188,6 +350,20 @@ public class HttpTaskServer {
         writeResponse(httpExchange, subtasks, 200);
     }
 
+    /** Returns the tasks of one type having the status given by the "status" parameter. */
+    private void handleGetByStatus(HttpExchange httpExchange, String query, String type,
+                                   Function<TaskStatus, List<? extends Task>> byStatus) throws IOException {
+
+        try {
+            TaskStatus status = TaskStatus.valueOf(parseQuery(query).get("status"));
+            LOGGER.info("Fetching " + type + " with status=" + status);
+            String tasks = gson.toJson(byStatus.apply(status));
+            writeResponse(httpExchange, tasks, 200);
+        } catch (IllegalArgumentException exception) {
+            writeResponse(httpExchange, "Invalid status", 400);
+        }
+    }
+
     private void handleGetEpicSubtasks(HttpExchange httpExchange, String query) throws IOException {
 
         try {
@@ -211,6 +387,7 @@ public class HttpTaskServer {
             LOGGER.info("Fetching task id=" + taskId);
             Task task = taskManager.getUsualTaskById(taskId);
             String taskJsonString = gson.toJson(task);
+            httpExchange.getResponseHeaders().set("ETag", eTagOf(task));
             writeResponse(httpExchange, taskJsonString, 200);
         } catch (NumberFormatException exception) {
             writeResponse(httpExchange, "Invalid ID", 400);
@@ -226,6 +403,7 @@ public class HttpTaskServer {
             LOGGER.info("Fetching epic id=" + epicId);
             Epic epic = taskManager.getEpicById(epicId);
             String epicJsonString = gson.toJson(epic);
+            httpExchange.getResponseHeaders().set("ETag", eTagOf(epic));
             writeResponse(httpExchange, epicJsonString, 200);
 
         } catch (NumberFormatException exception) {
@@ -242,6 +420,7 @@ public class HttpTaskServer {
             LOGGER.info("Fetching subtask id=" + subtaskId);
             Subtask subtask = taskManager.getSubtaskById(subtaskId);
             String subtaskJsonString = gson.toJson(subtask);
+            httpExchange.getResponseHeaders().set("ETag", eTagOf(subtask));
             writeResponse(httpExchange, subtaskJsonString, 200);
 
         } catch (NumberFormatException exception) {
@@ -399,6 +578,171 @@ public class HttpTaskServer {
         }
     }
 
+    /**
+     * Creates a JSON array of usual tasks and subtasks (told apart by their "type") with one batch call per type.
+     * Responds with the created tasks; tasks with conflicting time slots are skipped. All usual tasks are validated
+     * before the subtasks, each type in array order: of two overlapping tasks of the same type the earlier one is
+     * created, of a usual task and a subtask the usual task.
+     */
+    private void handleCreateBatch(HttpExchange httpExchange) throws IOException {
+
+        InputStream inputStream = httpExchange.getRequestBody();
+        String body = new String(inputStream.readAllBytes(), DEFAULT_CHARSET);
+
+        try {
+            JsonArray batch = JsonParser.parseString(body).getAsJsonArray();
+            LOGGER.info("Creating batch of " + batch.size() + " tasks");
+
+            List<Task> newTasks = new ArrayList<>();
+            List<Subtask> newSubtasks = new ArrayList<>();
+            for (JsonElement element : batch) {
+                JsonElement type = element.getAsJsonObject().get("type");
+                boolean isSubtask = type != null && type.getAsString().equals(TaskType.SUBTASK.name());
+                if (type != null && !isSubtask && !type.getAsString().equals(TaskType.TASK.name())) {
+                    writeResponse(httpExchange, "Only tasks and subtasks can be created in a batch", 400);
+                    return;
+                }
+
+                Task task = gson.fromJson(element, isSubtask ? Subtask.class : Task.class);
+                if (task.getName() == null || task.getName().isBlank()
+                        || task.getDescription() == null || task.getDescription().isBlank()) {
+                    writeResponse(httpExchange, "Task name and description cannot be empty", 400);
+                    return;
+                }
+                TaskStatus status = task.getStatus() == null ? TaskStatus.NEW : task.getStatus();
+
+                Task newTask;
+                if (isSubtask) {
+                    Subtask newSubtask = new Subtask(task.getName(), task.getDescription(), status,
+                            ((Subtask) task).getIdEpic());
+                    newSubtasks.add(newSubtask);
+                    newTask = newSubtask;
+                } else {
+                    newTask = new Task(task.getName(), task.getDescription(), status);
+                    newTasks.add(newTask);
+                }
+                if (task.getStartTime().isPresent() && task.getDuration().isPresent()) {
+                    newTask.setStartTime(task.getStartTime().get().format(Task.dateTimeFormatter));
+                    newTask.setDuration(task.getDuration().get().toMinutes());
+                }
+            }
+
+            List<Task> created = new ArrayList<>(taskManager.createTasks(newTasks));
+            created.addAll(taskManager.createSubtasks(newSubtasks));
+            writeResponse(httpExchange, gson.toJson(created), 201);
+
+        } catch (JsonSyntaxException | IllegalStateException exception) {
+            writeResponse(httpExchange, "Invalid JSON format", 400);
+        } catch (IllegalArgumentException exception) {
+            writeResponse(httpExchange, exception.getMessage(), 404);
+        }
+    }
+
+    /**
+     * Applies a JSON array of operations
+     * {"op": CREATE|UPDATE|DELETE, "type": TASK|EPIC|SUBTASK, "id": ..., "task": {...}} as one transaction:
+     * either all of them or none. A subtask may refer to the epic created by the n-th operation with epic ID -n.
+     * Responds with the created tasks.
+     */
+    private void handleTransaction(HttpExchange httpExchange) throws IOException {
+
+        InputStream inputStream = httpExchange.getRequestBody();
+        String body = new String(inputStream.readAllBytes(), DEFAULT_CHARSET);
+
+        Transaction transaction = taskManager.beginTransaction();
+        try {
+            JsonArray operations = JsonParser.parseString(body).getAsJsonArray();
+            LOGGER.info("Committing transaction of " + operations.size() + " operations");
+
+            for (JsonElement element : operations) {
+                JsonObject operation = element.getAsJsonObject();
+                if (!operation.has("op") || !operation.has("type")
+                        || (!operation.get("op").getAsString().equals("CREATE") && !operation.has("id"))) {
+                    writeResponse(httpExchange, "Operation must have op, type and (except CREATE) id", 400);
+                    return;
+                }
+                String op = operation.get("op").getAsString();
+                TaskType type = TaskType.valueOf(operation.get("type").getAsString());
+
+                if (op.equals("DELETE")) {
+                    int id = operation.get("id").getAsInt();
+                    if (type == TaskType.TASK) {
+                        transaction.deleteTaskById(id);
+                    } else if (type == TaskType.EPIC) {
+                        transaction.deleteEpicById(id);
+                    } else {
+                        transaction.deleteSubtaskById(id);
+                    }
+                    continue;
+                }
+
+                Task task = newTask(type, operation.get("task"));
+                if (task == null) {
+                    writeResponse(httpExchange, "Task name and description cannot be empty", 400);
+                    return;
+                }
+                if (op.equals("CREATE")) {
+                    if (type == TaskType.TASK) {
+                        transaction.createTask(task);
+                    } else if (type == TaskType.EPIC) {
+                        transaction.createEpic((Epic) task);
+                    } else {
+                        transaction.createSubtask((Subtask) task);
+                    }
+                } else if (op.equals("UPDATE")) {
+                    int id = operation.get("id").getAsInt();
+                    if (type == TaskType.TASK) {
+                        transaction.updateUsualTask(task, id);
+                    } else if (type == TaskType.EPIC) {
+                        transaction.updateEpic((Epic) task, id);
+                    } else {
+                        transaction.updateSubtask((Subtask) task, id);
+                    }
+                } else {
+                    writeResponse(httpExchange, "Unknown operation: " + op, 400);
+                    return;
+                }
+            }
+
+            List<Task> created = transaction.commit();
+            writeResponse(httpExchange, gson.toJson(created), 201);
+
+        } catch (JsonSyntaxException | IllegalStateException | UnsupportedOperationException exception) {
+            writeResponse(httpExchange, "Invalid JSON format", 400);
+        } catch (IllegalArgumentException exception) { // invalid type or operation, nothing applied
+            writeResponse(httpExchange, exception.getMessage(), 400);
+        }
+    }
+
+    /**
+     * Creates a task of the given type from its JSON, with status NEW if none is given.
+     * Returns null if the name or the description is empty.
+     */
+    private Task newTask(TaskType type, JsonElement json) {
+        Class<? extends Task> taskClass = type == TaskType.EPIC ? Epic.class
+                : type == TaskType.SUBTASK ? Subtask.class : Task.class;
+        Task task = gson.fromJson(json, taskClass);
+        if (task == null || task.getName() == null || task.getName().isBlank()
+                || task.getDescription() == null || task.getDescription().isBlank()) {
+            return null;
+        }
+        TaskStatus status = task.getStatus() == null ? TaskStatus.NEW : task.getStatus();
+
+        Task newTask;
+        if (type == TaskType.EPIC) {
+            return new Epic(task.getName(), task.getDescription(), status);
+        } else if (type == TaskType.SUBTASK) {
+            newTask = new Subtask(task.getName(), task.getDescription(), status, ((Subtask) task).getIdEpic());
+        } else {
+            newTask = new Task(task.getName(), task.getDescription(), status);
+        }
+        if (task.getStartTime().isPresent() && task.getDuration().isPresent()) {
+            newTask.setStartTime(task.getStartTime().get().format(Task.dateTimeFormatter));
+            newTask.setDuration(task.getDuration().get().toMinutes());
+        }
+        return newTask;
+    }
+
     //--------------
     // PUT handlers
     //--------------
@@ -408,6 +752,14 @@ public class HttpTaskServer {
         InputStream inputStream = httpExchange.getRequestBody();
         String body = new String(inputStream.readAllBytes(), DEFAULT_CHARSET);
 
+        Integer expectedVersion;
+        try {
+            expectedVersion = parseIfMatch(httpExchange);
+        } catch (NumberFormatException exception) {
+            writeResponse(httpExchange, "Invalid If-Match header", 400);
+            return;
+        }
+
         try {
             int taskId = Integer.parseInt(query.substring(3));
             Task task = gson.fromJson(body, Task.class);
@@ -417,7 +769,13 @@ public class HttpTaskServer {
                 return;
             }
 
-            taskManager.updateUsualTask(task, taskId);
+            if (expectedVersion == null) {
+                taskManager.updateUsualTask(task, taskId);
+            } else if (!taskManager.updateUsualTask(task, taskId, expectedVersion)) {
+                writeResponse(httpExchange, "Task was changed since it was read", 412);
+                return;
+            }
+            httpExchange.getResponseHeaders().set("ETag", eTagOf(task));
             writeResponse(httpExchange, "Task successfully updated", 201);
 
         } catch (NumberFormatException exception) {
@@ -434,6 +792,14 @@ public class HttpTaskServer {
         InputStream inputStream = httpExchange.getRequestBody();
         String body = new String(inputStream.readAllBytes(), DEFAULT_CHARSET);
 
+        Integer expectedVersion;
+        try {
+            expectedVersion = parseIfMatch(httpExchange);
+        } catch (NumberFormatException exception) {
+            writeResponse(httpExchange, "Invalid If-Match header", 400);
+            return;
+        }
+
         try {
             int epicId = Integer.parseInt(query.substring(3));
             Epic epic = gson.fromJson(body, Epic.class);
@@ -443,7 +809,13 @@ public class HttpTaskServer {
                 return;
             }
 
-            taskManager.updateEpic(epic, epicId);
+            if (expectedVersion == null) {
+                taskManager.updateEpic(epic, epicId);
+            } else if (!taskManager.updateEpic(epic, epicId, expectedVersion)) {
+                writeResponse(httpExchange, "Epic was changed since it was read", 412);
+                return;
+            }
+            httpExchange.getResponseHeaders().set("ETag", eTagOf(epic));
             writeResponse(httpExchange, "Epic successfully updated", 201);
 
         } catch (NumberFormatException exception) {
@@ -460,6 +832,14 @@ public class HttpTaskServer {
         InputStream inputStream = httpExchange.getRequestBody();
         String body = new String(inputStream.readAllBytes(), DEFAULT_CHARSET);
 
+        Integer expectedVersion;
+        try {
+            expectedVersion = parseIfMatch(httpExchange);
+        } catch (NumberFormatException exception) {
+            writeResponse(httpExchange, "Invalid If-Match header", 400);
+            return;
+        }
+
         try {
             int subtaskId = Integer.parseInt(query.substring(3));
             Subtask subtask = gson.fromJson(body, Subtask.class);
@@ -469,7 +849,13 @@ public class HttpTaskServer {
                 return;
             }
 
-            taskManager.updateSubtask(subtask, subtaskId);
+            if (expectedVersion == null) {
+                taskManager.updateSubtask(subtask, subtaskId);
+            } else if (!taskManager.updateSubtask(subtask, subtaskId, expectedVersion)) {
+                writeResponse(httpExchange, "Subtask was changed since it was read", 412);
+                return;
+            }
+            httpExchange.getResponseHeaders().set("ETag", eTagOf(subtask));
             writeResponse(httpExchange, "Subtask successfully updated", 201);
 
         } catch (NumberFormatException exception) {
@@ -539,6 +925,63 @@ public class HttpTaskServer {
         }
     }
 
+    private void handleDeleteTasksByFilter(HttpExchange httpExchange, String query) throws IOException {
+
+        try {
+            Predicate<Task> filter = parseDeleteFilter(query);
+            LOGGER.info("Deleting tasks matching " + query);
+            int deleted = taskManager.deleteTasksIf(filter);
+            writeResponse(httpExchange, deleted + " tasks deleted", 200);
+
+        } catch (DateTimeParseException exception) {
+            writeResponse(httpExchange, "Invalid date, expected format dd.MM.yyyy, HH:mm", 400);
+        } catch (IllegalArgumentException exception) {
+            writeResponse(httpExchange, exception.getMessage(), 400);
+        }
+    }
+
+    private void handleDeleteSubtasksByFilter(HttpExchange httpExchange, String query) throws IOException {
+
+        try {
+            Predicate<Task> filter = parseDeleteFilter(query);
+            LOGGER.info("Deleting subtasks matching " + query);
+            int deleted = taskManager.deleteSubtasksIf(filter);
+            writeResponse(httpExchange, deleted + " subtasks deleted", 200);
+
+        } catch (DateTimeParseException exception) {
+            writeResponse(httpExchange, "Invalid date, expected format dd.MM.yyyy, HH:mm", 400);
+        } catch (IllegalArgumentException exception) {
+            writeResponse(httpExchange, exception.getMessage(), 400);
+        }
+    }
+
+    /**
+     * Builds the filter of a bulk delete from the "status" and "before" parameters; both are optional,
+     * but at least one is required. "before" matches tasks ending before the given date-time.
+     */
+    private Predicate<Task> parseDeleteFilter(String query) {
+        Map<String, String> parameters = parseQuery(query);
+        if (!parameters.containsKey("status") && !parameters.containsKey("before")) {
+            throw new IllegalArgumentException("Parameter 'status' or 'before' is required");
+        }
+
+        Predicate<Task> filter = task -> true;
+        if (parameters.containsKey("status")) {
+            TaskStatus status;
+            try {
+                status = TaskStatus.valueOf(parameters.get("status"));
+            } catch (IllegalArgumentException exception) {
+                throw new IllegalArgumentException("Invalid status");
+            }
+            filter = filter.and(task -> task.getStatus() == status);
+        }
+        if (parameters.containsKey("before")) {
+            long before = Task.toEpochMinute(LocalDateTime.parse(parameters.get("before"), Task.dateTimeFormatter));
+            filter = filter.and(task -> task.getEndMinute() != Task.NO_TIME && task.getEndMinute() < before);
+        }
+        return filter;
+    }
+
     private void handleDeleteSubtaskById(HttpExchange httpExchange, String query) throws IOException {
 
         try {
@@ -565,15 +1008,29 @@ public class HttpTaskServer {
         switch (method) {
             case "GET":
                 if (pathParts.length == 2 && query == null) {
-                    return Endpoint.GET; // TreeSet<Task> getPrioritizedTasks();
+                    return Endpoint.GET; // Collection<Task> getPrioritizedTasksView();
                 } else if (pathParts.length == 3 && pathParts[2].equals("history") && query == null) {
                     return Endpoint.GET_HISTORY; // HistoryManager getHistoryManager();
+                } else if (pathParts.length == 3 && pathParts[2].equals("history") && query != null) {
+                    return Endpoint.GET_HISTORY_RECENT; // List<Task> getRecent(int limit, int offset);
+                } else if (pathParts.length == 3 && pathParts[2].equals("conflicts") && query == null) {
+                    return Endpoint.GET_CONFLICTS; // List<List<Task>> findConflicts();
+                } else if (pathParts.length == 3 && pathParts[2].equals("slot") && query != null) {
+                    return Endpoint.GET_SLOT; // LocalDateTime findFreeSlot(LocalDateTime earliestStart, Duration duration);
+                } else if (pathParts.length == 3 && pathParts[2].equals("range") && query != null) {
+                    return Endpoint.GET_RANGE; // List<Task> getTasksInRange(LocalDateTime from, LocalDateTime to);
                 } else if (pathParts.length == 3 && pathParts[2].equals("task") && query == null) {
                     return Endpoint.GET_TASK; // HashMap<Integer, Task> getTasks();
                 } else if (pathParts.length == 3 && pathParts[2].equals("epic") && query == null) {
                     return Endpoint.GET_EPIC; // HashMap<Integer, Epic> getEpics();
                 } else if (pathParts.length == 3 && pathParts[2].equals("subtask") && query == null) {
                     return Endpoint.GET_SUBTASK; // HashMap<Integer, Subtask> getSubtasks();
+                } else if (pathParts.length == 3 && pathParts[2].equals("task") && hasParameter(query, "status")) {
+                    return Endpoint.GET_TASK_STATUS; // List<Task> getTasksByStatus(TaskStatus status);
+                } else if (pathParts.length == 3 && pathParts[2].equals("epic") && hasParameter(query, "status")) {
+                    return Endpoint.GET_EPIC_STATUS; // List<Epic> getEpicsByStatus(TaskStatus status);
+                } else if (pathParts.length == 3 && pathParts[2].equals("subtask") && hasParameter(query, "status")) {
+                    return Endpoint.GET_SUBTASK_STATUS; // List<Subtask> getSubtasksByStatus(TaskStatus status);
                 } else if (pathParts.length == 4 && pathParts[2].equals("subtask") && pathParts[3].equals("epic")
                         && query.startsWith("id=")) {
                     return Endpoint.GET_SUBTASK_EPIC_ID; // ArrayList<Subtask> getEpicSubtasks(Epic epic)
@@ -594,6 +1051,10 @@ public class HttpTaskServer {
                     return Endpoint.POST_EPIC; // void createEpic(Epic epic);
                 } else if (pathParts.length == 3 && pathParts[2].equals("subtask") && query == null) {
                     return Endpoint.POST_SUBTASK; // void createSubtask(Subtask subtask);
+                } else if (pathParts.length == 3 && pathParts[2].equals("batch") && query == null) {
+                    return Endpoint.POST_BATCH; // List<Task> createTasks(...), List<Subtask> createSubtasks(...);
+                } else if (pathParts.length == 3 && pathParts[2].equals("transaction") && query == null) {
+                    return Endpoint.POST_TRANSACTION; // List<Task> commit(Transaction transaction);
                 } else {
                     return Endpoint.UNKNOWN;
                 }
@@ -624,6 +1085,10 @@ public class HttpTaskServer {
                     return Endpoint.DELETE_EPIC_ID; // void deleteEpicById(int id);
                 } else if (pathParts.length == 3 && pathParts[2].equals("subtask") && query.startsWith("id=")) {
                     return Endpoint.DELETE_SUBTASK_ID; // void deleteSubtaskById(int id);
+                } else if (pathParts.length == 3 && pathParts[2].equals("task")) {
+                    return Endpoint.DELETE_TASK_FILTER; // int deleteTasksIf(Predicate<? super Task> filter);
+                } else if (pathParts.length == 3 && pathParts[2].equals("subtask")) {
+                    return Endpoint.DELETE_SUBTASK_FILTER; // int deleteSubtasksIf(Predicate<? super Subtask> filter);
                 } else {
                     return Endpoint.UNKNOWN;
                 }
@@ -633,6 +1098,55 @@ public class HttpTaskServer {
         }
     }
 
+    /**
+     * ETag of a task as served by GET and PUT by ID: the epoch of this server run and the version, quoted.
+     */
+    private String eTagOf(Task task) {
+        return "\"" + eTagEpoch + "-" + task.getVersion() + "\"";
+    }
+
+    /**
+     * Returns the version required by the If-Match header of a PUT request,
+     * or null if the header is absent or "*" (update whatever version is stored).
+     * An ETag served before the last restart yields {@link #STALE_VERSION}, as its version may have been
+     * reached again since the reload.
+     *
+     * @throws NumberFormatException if the header is not an ETag served by {@link #eTagOf(Task)}
+     */
+    private Integer parseIfMatch(HttpExchange httpExchange) {
+        String ifMatch = httpExchange.getRequestHeaders().getFirst("If-Match");
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        int separator = eTag.lastIndexOf('-');
+        if (eTag.length() < 2 || !eTag.startsWith("\"") || !eTag.endsWith("\"") || separator < 1) {
+            throw new NumberFormatException("Not an ETag of this server: " + ifMatch);
+        }
+        int version = Integer.parseUnsignedInt(eTag.substring(separator + 1, eTag.length() - 1));
+        if (version < 0) {
+            throw new NumberFormatException("Version out of range: " + ifMatch);
+        }
+        return eTag.substring(1, separator).equals(eTagEpoch) ? version : STALE_VERSION;
+    }
+
+    /** Returns true if the query string has a parameter with the given name. */
+    private boolean hasParameter(String query, String name) {
+        return query != null && parseQuery(query).containsKey(name);
+    }
+
+    /** Splits an already decoded query string into parameter names and values. */
+    private Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(parameter.substring(0, separator), parameter.substring(separator + 1));
+            }
+        }
+        return parameters;
+    }
+
     private void writeResponse(HttpExchange httpExchange, String response, int responseCode) throws IOException {
 
         if (response.isBlank()) {
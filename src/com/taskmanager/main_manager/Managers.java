@@ -4,6 +4,7 @@ import com.taskmanager.api.KVServer;
 import com.taskmanager.managers.*;
 
 import java.nio.file.Paths;
+import java.time.Duration;
 
 import static com.taskmanager.managers.FileBackedTaskManager.loadFromFile;
 import static com.taskmanager.managers.HttpTaskManager.load;
@@ -14,6 +15,7 @@ import static com.taskmanager.managers.HttpTaskManager.load;
  * <p>It supports different types of TaskManager depending on storage strategy:</p>
  * <ul>
  *     <li>In-memory only</li>
+ *     <li>In-memory columnar storage for large numbers of tasks, optionally with text off-heap</li>
  *     <li>File-backed persistence</li>
  *     <li>HTTP KVServer-backed persistence</li>
  * </ul>
@@ -47,6 +49,24 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    /**
+     * Returns a memory-compact in-memory TaskManager without persistence.
+     * Suitable for very large numbers of tasks; returned tasks are copies of the stored data.
+     * @return Columnar TaskManager instance.
+     */
+    public static TaskManager getDefaultColumnar() {
+        return new ColumnarTaskManager();
+    }
+
+    /**
+     * Returns a columnar TaskManager keeping task names and descriptions off the Java heap.
+     * Suitable for millions of tasks, where text would otherwise dominate the heap and GC pauses.
+     * @return Columnar TaskManager instance with off-heap text storage.
+     */
+    public static TaskManager getDefaultColumnarOffHeap() {
+        return new ColumnarTaskManager(ColumnarTaskManager.TextStorage.OFF_HEAP);
+    }
+
     /**
      * Returns an in-memory HistoryManager.
      * @return HistoryManager instance.
@@ -54,4 +74,28 @@ public class Managers {
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    /**
+     * Returns an in-memory HistoryManager keeping at most the given number of recently viewed tasks.
+     * Bounds the memory of the history and the history written on every save.
+     * @param capacity maximum number of tasks in the history
+     * @return HistoryManager instance with LRU eviction.
+     */
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    /**
+     * Returns a HistoryManager keeping a separate history for every client session.
+     * Suitable for servers, where each client should only see its own views.
+     * @param defaultHistory history used outside of sessions
+     * @param capacity maximum number of tasks in the history of one session
+     * @param maxSessions maximum number of sessions; one more evicts the least recently used session
+     * @param idleTimeout time after which an unused session and its history are evicted
+     * @return SessionHistoryManager instance.
+     */
+    public static SessionHistoryManager getSessionHistory(HistoryManager defaultHistory, int capacity,
+                                                          int maxSessions, Duration idleTimeout) {
+        return new SessionHistoryManager(defaultHistory, capacity, maxSessions, idleTimeout);
+    }
 }
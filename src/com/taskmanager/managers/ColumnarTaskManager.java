@@ -0,0 +1,1138 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.main_manager.Managers;
+import com.taskmanager.tasks.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Memory-compact implementation of {@link TaskManager} for very large numbers of tasks.
+ * <p>
+ * Tasks are not kept as objects. Every field is stored in its own primitive column indexed by task ID
+ * (type, status ordinal, start minute, duration, epic ID, version), names and descriptions are dictionary-encoded
+ * into {@code int} codes, and the subtasks of an epic are chained through ID columns. Task, Epic and Subtask
+ * objects are materialized only at the API boundary, so every getter returns a new object: changing it
+ * does not change the stored task until it is passed to one of the update methods.
+ * </p>
+ * <p>
+ * Map views returned by {@link #getTasks()}, {@link #getEpics()} and {@link #getSubtasks()} are read-only
+ * and materialize entries on access. The store is guarded by one read-write lock.
+ * </p>
+ * <p>
+ * Names and descriptions are kept on the heap by default. With {@link TextStorage#OFF_HEAP} they are stored
+ * in direct memory (see {@link OffHeapTextStore}), so the heap only holds the primitive columns.
+ * </p>
+ */
+public class ColumnarTaskManager implements TaskManager {
+    private static final Logger LOGGER = Logger.getLogger(ColumnarTaskManager.class.getName());
+
+    private static final byte NONE = 0;
+    private static final byte TASK = 1;
+    private static final byte EPIC = 2;
+    private static final byte SUBTASK = 3;
+    private static final byte NO_STATUS = -1;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final int INITIAL_CAPACITY = 64;
+    /** Expected version accepting any stored version, used by unconditional updates. */
+    private static final int ANY_VERSION = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TextStore dictionary;
+    private final IntervalIndex scheduleIndex = new IntervalIndex();
+    private final StatusIndex statusIndex = new StatusIndex();
+    /** Usual tasks and subtasks ordered by (start minute, ID), as in {@link PrioritizedIndex}. */
+    private final NavigableSet<PrioritizedIndex.Key> startKeys = new TreeSet<>();
+    private volatile HistoryManager historyManager = Managers.getDefaultHistory();
+    private int nextId = 1;
+
+    // Columns indexed by task ID
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private long[] startMinutes = new long[INITIAL_CAPACITY];
+    private long[] durationMinutes = new long[INITIAL_CAPACITY];
+    private int[] names = new int[INITIAL_CAPACITY];
+    private int[] descriptions = new int[INITIAL_CAPACITY];
+    private int[] epicIds = new int[INITIAL_CAPACITY];
+    private int[] versions = new int[INITIAL_CAPACITY];
+    // Subtasks of an epic as a doubly linked list of IDs (0 = none)
+    private int[] firstSubtasks = new int[INITIAL_CAPACITY];
+    private int[] lastSubtasks = new int[INITIAL_CAPACITY];
+    private int[] nextSubtasks = new int[INITIAL_CAPACITY];
+    private int[] prevSubtasks = new int[INITIAL_CAPACITY];
+    // Number of subtasks of an epic per status
+    private int[][] statusCounts = new int[STATUSES.length][INITIAL_CAPACITY];
+
+    private int maxId;
+    private int tasksCount;
+    private int epicsCount;
+    private int subtasksCount;
+
+    /**
+     * Where the names and descriptions of the stored tasks are kept.
+     */
+    public enum TextStorage {
+        /** Dictionary of strings on the Java heap. */
+        HEAP,
+        /**
+         * UTF-8 bytes in direct memory, decoded on every read; keeps the heap small for millions of tasks.
+         * The memory of text no longer stored is reclaimed, and the memory is bounded, see {@link OffHeapTextStore}.
+         */
+        OFF_HEAP
+    }
+
+    public ColumnarTaskManager() {
+        this(TextStorage.HEAP);
+    }
+
+    public ColumnarTaskManager(TextStorage textStorage) {
+        this.dictionary = textStorage == TextStorage.OFF_HEAP ? new OffHeapTextStore() : new StringDictionary();
+    }
+
+    /**
+     * Creates a manager keeping names and descriptions off-heap in at most {@code maxTextBytes} bytes of direct
+     * memory. Creating or updating a task whose text no longer fits throws {@link IllegalStateException}.
+     */
+    public ColumnarTaskManager(long maxTextBytes) {
+        this.dictionary = new OffHeapTextStore(maxTextBytes);
+    }
+
+    @Override
+    public HistoryManager getHistoryManager() {
+        return historyManager;
+    }
+
+    @Override
+    public void createTask(Task task) {
+        lock.writeLock().lock();
+        try {
+            if (!isValidDateTime(task)) {
+                LOGGER.warning("DateTime conflict detected. Task not created: " + task);
+                return;
+            }
+            task.setId(nextId++);
+            store(task.getId(), TASK, task);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Created Task: " + task);
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        lock.writeLock().lock();
+        try {
+            epic.setId(nextId++);
+            store(epic.getId(), EPIC, epic);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Created Epic: " + epic);
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) throws IllegalArgumentException {
+        lock.writeLock().lock();
+        try {
+            if (!isValidDateTime(subtask)) {
+                LOGGER.warning("DateTime conflict detected. Subtask not created: " + subtask);
+                return;
+            }
+            if (!isOfType(subtask.getIdEpic(), EPIC)) {
+                LOGGER.warning("Epic with such ID not exist.");
+                throw new IllegalArgumentException("Epic with such ID not exist.");
+            }
+            subtask.setId(nextId++);
+            store(subtask.getId(), SUBTASK, subtask);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Created Subtask: " + subtask);
+    }
+
+    @Override
+    public List<Task> createTasks(List<Task> newTasks) {
+        List<Task> created;
+        lock.writeLock().lock();
+        try {
+            created = scheduleIndex.fitting(newTasks);
+            for (Task task : created) {
+                task.setId(nextId++);
+                store(task.getId(), TASK, task);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Created " + created.size() + " of " + newTasks.size() + " Tasks in a batch");
+        return created;
+    }
+
+    @Override
+    public List<Subtask> createSubtasks(List<Subtask> newSubtasks) throws IllegalArgumentException {
+        List<Subtask> created;
+        lock.writeLock().lock();
+        try {
+            for (Subtask subtask : newSubtasks) {
+                if (!isOfType(subtask.getIdEpic(), EPIC)) {
+                    LOGGER.warning("Epic with such ID not exist.");
+                    throw new IllegalArgumentException("Epic with such ID not exist.");
+                }
+            }
+            created = scheduleIndex.fitting(newSubtasks);
+            for (Subtask subtask : created) {
+                subtask.setId(nextId++);
+                store(subtask.getId(), SUBTASK, subtask);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Created " + created.size() + " of " + newSubtasks.size() + " Subtasks in a batch");
+        return created;
+    }
+
+    @Override
+    public int generateId() {
+        lock.writeLock().lock();
+        try {
+            return nextId++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ArrayList<Subtask> getEpicSubtasks(Epic epic) {
+        lock.readLock().lock();
+        try {
+            ArrayList<Subtask> epicSubtasks = new ArrayList<>();
+            if (isOfType(epic.getId(), EPIC)) {
+                for (int id = firstSubtasks[epic.getId()]; id != 0; id = nextSubtasks[id]) {
+                    epicSubtasks.add((Subtask) materialize(id));
+                }
+            }
+            return epicSubtasks;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void checkStatusEpic(Epic epic) {
+        lock.readLock().lock();
+        try {
+            if (isOfType(epic.getId(), EPIC) && statuses[epic.getId()] != NO_STATUS) {
+                epic.setStatus(STATUSES[statuses[epic.getId()]]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateUsualTask(Task task, int id) throws IllegalArgumentException {
+        replaceUsualTask(task, id, ANY_VERSION);
+    }
+
+    @Override
+    public void updateEpic(Epic epic, int id) throws IllegalArgumentException {
+        replaceEpic(epic, id, ANY_VERSION);
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask, int id) throws IllegalArgumentException {
+        replaceSubtask(subtask, id, ANY_VERSION);
+    }
+
+    @Override
+    public boolean updateUsualTask(Task task, int id, int expectedVersion) throws IllegalArgumentException {
+        return replaceUsualTask(task, id, expectedVersion);
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic, int id, int expectedVersion) throws IllegalArgumentException {
+        return replaceEpic(epic, id, expectedVersion);
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask, int id, int expectedVersion) throws IllegalArgumentException {
+        return replaceSubtask(subtask, id, expectedVersion);
+    }
+
+    @Override
+    public Task getUsualTaskById(int id) throws IllegalArgumentException {
+        Task task = materializeIfOfType(id, TASK);
+        if (task == null) {
+            throw new IllegalArgumentException("Usual Task with such ID not exist.");
+        }
+        historyManager.add(task);
+        return task;
+    }
+
+    @Override
+    public Epic getEpicById(int id) throws IllegalArgumentException {
+        Epic epic = (Epic) materializeIfOfType(id, EPIC);
+        if (epic == null) {
+            throw new IllegalArgumentException("Epic with such ID not exist.");
+        }
+        historyManager.add(epic);
+        return epic;
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) throws IllegalArgumentException {
+        Subtask subtask = (Subtask) materializeIfOfType(id, SUBTASK);
+        if (subtask == null) {
+            throw new IllegalArgumentException("Subtask with such ID not exist.");
+        }
+        historyManager.add(subtask);
+        return subtask;
+    }
+
+    @Override
+    public Map<Integer, Task> getTasks() {
+        return new TypeView<>(TASK);
+    }
+
+    @Override
+    public Map<Integer, Epic> getEpics() {
+        return new TypeView<>(EPIC);
+    }
+
+    @Override
+    public Map<Integer, Subtask> getSubtasks() {
+        return new TypeView<>(SUBTASK);
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        return findByStatus(TaskType.TASK, status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(TaskStatus status) {
+        return findByStatus(TaskType.EPIC, status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return findByStatus(TaskType.SUBTASK, status);
+    }
+
+    @Override
+    public TreeSet<Task> getPrioritizedTasks() {
+        TreeSet<Task> prioritizedTasks = new TreeSet<>(PrioritizedIndex.ORDER);
+        prioritizedTasks.addAll(getPrioritizedTasksView());
+        return prioritizedTasks;
+    }
+
+    /**
+     * Returns tasks and subtasks in priority order. The tasks are materialized on every call,
+     * so the result is a snapshot rather than a live view.
+     */
+    @Override
+    public Collection<Task> getPrioritizedTasksView() {
+        lock.readLock().lock();
+        try {
+            return Collections.unmodifiableList(materializeAll(startKeys));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getTasksInRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Range bounds must not be null.");
+        }
+        long fromMinute = Task.toEpochMinute(from);
+        long toMinute = Task.toEpochMinute(to);
+        if (fromMinute > toMinute) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            return materializeAll(startKeys.subSet(PrioritizedIndex.Key.first(fromMinute), true,
+                    PrioritizedIndex.Key.last(toMinute), true));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isValidDateTime(Task provedTask) {
+        long provedStartMinute = provedTask.getStartMinute();
+        long provedDurationMinutes = provedTask.getDurationMinutes();
+        long provedEndMinute = provedTask.getEndMinute();
+
+        if (provedStartMinute != Task.NO_TIME && provedDurationMinutes != Task.NO_TIME
+                && provedEndMinute != Task.NO_TIME) {
+
+            if (provedDurationMinutes >= 0) {
+                return !scheduleIndex.overlaps(provedStartMinute, provedEndMinute);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(LocalDateTime earliestStart, Duration duration) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Duration must not be negative.");
+        }
+        long earliestMinute = Task.toEpochMinute(earliestStart);
+        if (!earliestStart.equals(Task.fromEpochMinute(earliestMinute))) {
+            earliestMinute++; // tasks start at whole minutes
+        }
+        long durationMinutes = duration.toMinutes();
+        if (durationMinutes > Task.MAX_EPOCH_MINUTE - earliestMinute) {
+            throw new IllegalArgumentException("Duration too long: the slot would end after " + LocalDateTime.MAX);
+        }
+        long startMinute = scheduleIndex.findFreeSlot(earliestMinute, durationMinutes);
+        if (startMinute > Task.MAX_EPOCH_MINUTE - durationMinutes) {
+            throw new IllegalArgumentException("No free slot of this duration before " + LocalDateTime.MAX);
+        }
+        return Task.fromEpochMinute(startMinute);
+    }
+
+    @Override
+    public List<List<Task>> findConflicts() {
+        lock.readLock().lock();
+        try {
+            List<List<Task>> conflicts = new ArrayList<>();
+            for (int[] group : scheduleIndex.conflictGroups()) {
+                List<Task> conflict = new ArrayList<>(group.length);
+                for (int id : group) {
+                    conflict.add(materialize(id));
+                }
+                conflicts.add(conflict);
+            }
+            return conflicts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteTaskById(int id) throws IllegalArgumentException {
+        lock.writeLock().lock();
+        try {
+            if (!isOfType(id, TASK)) {
+                throw new IllegalArgumentException("Task with such ID not exist.");
+            }
+            erase(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        historyManager.remove(id);
+        LOGGER.info("Deleted Task with ID=" + id);
+    }
+
+    @Override
+    public void deleteEpicById(int id) throws IllegalArgumentException {
+        List<Integer> deletedSubtaskIds = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            if (!isOfType(id, EPIC)) {
+                throw new IllegalArgumentException("Epic with such ID not exist.");
+            }
+            while (firstSubtasks[id] != 0) {
+                deletedSubtaskIds.add(firstSubtasks[id]);
+                erase(firstSubtasks[id]);
+            }
+            erase(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Integer subtaskId : deletedSubtaskIds) {
+            historyManager.remove(subtaskId);
+        }
+        historyManager.remove(id);
+        LOGGER.info("Deleted Epic with ID=" + id);
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) throws IllegalArgumentException {
+        lock.writeLock().lock();
+        try {
+            if (!isOfType(id, SUBTASK)) {
+                throw new IllegalArgumentException("Subtask with such ID not exist.");
+            }
+            erase(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        historyManager.remove(id);
+        LOGGER.info("Deleted Subtask with ID=" + id);
+    }
+
+    @Override
+    public void deleteAllUsualTasks() {
+        deleteAllOfType(TASK);
+        LOGGER.info("All Tasks cleared.");
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        deleteAllOfType(SUBTASK);
+        deleteAllOfType(EPIC);
+        LOGGER.info("All Epics and Subtasks cleared.");
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        deleteAllOfType(SUBTASK);
+        LOGGER.info("All Subtasks cleared.");
+    }
+
+    @Override
+    public void deleteAllTasksAllTypes() {
+        deleteAllUsualTasks();
+        deleteAllEpics();
+        LOGGER.info("All tasks of all types cleared.");
+    }
+
+    @Override
+    public int deleteTasksIf(Predicate<? super Task> filter) {
+        int deleted = deleteOfTypeIf(TASK, filter);
+        LOGGER.info("Deleted " + deleted + " Tasks matching the filter");
+        return deleted;
+    }
+
+    @Override
+    public int deleteSubtasksIf(Predicate<? super Subtask> filter) {
+        int deleted = deleteOfTypeIf(SUBTASK, task -> filter.test((Subtask) task));
+        LOGGER.info("Deleted " + deleted + " Subtasks matching the filter");
+        return deleted;
+    }
+
+    /**
+     * Holds the write lock for the whole commit, so readers see either none or all of the operations.
+     */
+    @Override
+    public List<Task> commit(Transaction transaction) {
+        List<Task> created;
+        lock.writeLock().lock();
+        try {
+            transaction.validate(new TransactionStore());
+            created = transaction.apply(this);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Committed transaction of " + transaction.size() + " operations");
+        return created;
+    }
+
+    @Override
+    public void setNextId(int nextId) {
+        lock.writeLock().lock();
+        try {
+            this.nextId = nextId;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void setHistoryManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    @Override
+    public String toString() {
+        return "AllTasks{" + "\n" +
+                "tasks=" + getTasks() +
+                ", " + "\n" + "epics=" + getEpics() +
+                ", " + "\n" + "subtasks=" + getSubtasks() +
+                '}';
+    }
+
+    //--------------------------------
+    // Updates, optionally conditional
+    //--------------------------------
+
+    /**
+     * Replaces a usual task if its version is the expected one (or {@code expectedVersion} is
+     * {@link #ANY_VERSION}); the version column is incremented by {@link #store}.
+     */
+    private boolean replaceUsualTask(Task task, int id, int expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            if (!isOfType(id, TASK)) {
+                throw new IllegalArgumentException("Usual Task with such ID not exist.");
+            }
+            if (isOutdated(id, expectedVersion)) {
+                return false;
+            }
+            task.setId(id);
+            store(id, TASK, task);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Updated Task with ID=" + id);
+        return true;
+    }
+
+    private boolean replaceEpic(Epic epic, int id, int expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            if (!isOfType(id, EPIC)) {
+                throw new IllegalArgumentException("Epic with such ID not exist.");
+            }
+            if (isOutdated(id, expectedVersion)) {
+                return false;
+            }
+            epic.setId(id);
+            store(id, EPIC, epic);
+            updateEpicStatus(id);
+
+            for (int subtaskId = firstSubtasks[id]; subtaskId != 0; subtaskId = nextSubtasks[subtaskId]) {
+                epic.subtasks.add((Subtask) materialize(subtaskId));
+            }
+            epic.checkDataTimeDurationEpic();
+            epic.setStatus(STATUSES[statuses[id]]);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        historyManager.add(epic);
+        LOGGER.info("Updated Epic with ID=" + id);
+        return true;
+    }
+
+    private boolean replaceSubtask(Subtask subtask, int id, int expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            if (!isOfType(id, SUBTASK)) {
+                throw new IllegalArgumentException("Subtask with such ID not exist");
+            }
+            if (!isOfType(subtask.getIdEpic(), EPIC)) {
+                throw new IllegalArgumentException("Epic with such ID not exist.");
+            }
+            if (isOutdated(id, expectedVersion)) {
+                return false;
+            }
+            subtask.setId(id);
+            store(id, SUBTASK, subtask);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Updated Subtask with ID=" + id);
+        return true;
+    }
+
+    private boolean isOutdated(int id, int expectedVersion) {
+        if (expectedVersion == ANY_VERSION || versions[id] == expectedVersion) {
+            return false;
+        }
+        LOGGER.info("Task with ID=" + id + " not updated: version " + versions[id] + ", expected " + expectedVersion);
+        return true;
+    }
+
+    //-----------------------------
+    // Column access, under the lock
+    //-----------------------------
+
+    private boolean isOfType(int id, byte type) {
+        return id > 0 && id <= maxId && types[id] == type;
+    }
+
+    private Task materializeIfOfType(int id, byte type) {
+        lock.readLock().lock();
+        try {
+            return isOfType(id, type) ? materialize(id) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Writes all columns of a task, replacing the previous version stored under the same ID. */
+    private void store(int id, byte type, Task task) {
+        // encoded first: a full off-heap store throws before any column is changed
+        int name = dictionary.encode(task.getName());
+        int description;
+        try {
+            description = dictionary.encode(task.getDescription());
+        } catch (IllegalStateException exception) {
+            dictionary.release(name);
+            throw exception;
+        }
+        ensureCapacity(id);
+        if (types[id] == NONE) {
+            changeCount(type, 1);
+            maxId = Math.max(maxId, id);
+            versions[id] = 0;
+        } else {
+            // released after encoding, so text kept by the update keeps its code
+            dictionary.release(names[id]);
+            dictionary.release(descriptions[id]);
+            versions[id]++;
+            if (types[id] == SUBTASK) {
+                unlinkSubtask(id);
+            }
+        }
+        task.setVersion(versions[id]);
+        if (types[id] == TASK || types[id] == SUBTASK) {
+            startKeys.remove(new PrioritizedIndex.Key(startMinutes[id], id));
+        }
+
+        types[id] = type;
+        names[id] = name;
+        descriptions[id] = description;
+
+        if (type == EPIC) {
+            startMinutes[id] = Task.NO_TIME;
+            durationMinutes[id] = Task.NO_TIME;
+            if (firstSubtasks[id] == 0) {
+                setStatus(id, task.getStatus() == null ? NO_STATUS : (byte) task.getStatus().ordinal());
+            }
+            return;
+        }
+
+        setStatus(id, task.getStatus() == null ? NO_STATUS : (byte) task.getStatus().ordinal());
+        startMinutes[id] = task.getStartMinute();
+        durationMinutes[id] = task.getDurationMinutes();
+        startKeys.add(new PrioritizedIndex.Key(startMinutes[id], id));
+        if (task.getStartMinute() != Task.NO_TIME && task.getEndMinute() != Task.NO_TIME) {
+            scheduleIndex.put(id, task.getStartMinute(), task.getEndMinute());
+        } else {
+            scheduleIndex.remove(id);
+        }
+
+        if (type == SUBTASK) {
+            linkSubtask(id, ((Subtask) task).getIdEpic());
+        }
+    }
+
+    /** Clears all columns of a task. Subtasks of a deleted epic must be erased before the epic. */
+    private void erase(int id) {
+        if (types[id] == SUBTASK) {
+            unlinkSubtask(id);
+        }
+        if (types[id] == TASK || types[id] == SUBTASK) {
+            startKeys.remove(new PrioritizedIndex.Key(startMinutes[id], id));
+        }
+        scheduleIndex.remove(id);
+        statusIndex.remove(id);
+        changeCount(types[id], -1);
+        dictionary.release(names[id]);
+        dictionary.release(descriptions[id]);
+
+        types[id] = NONE;
+        statuses[id] = NO_STATUS;
+        startMinutes[id] = Task.NO_TIME;
+        durationMinutes[id] = Task.NO_TIME;
+        names[id] = TextStore.NULL_CODE;
+        descriptions[id] = TextStore.NULL_CODE;
+        epicIds[id] = 0;
+        versions[id] = 0;
+        firstSubtasks[id] = 0;
+        lastSubtasks[id] = 0;
+        for (int[] counts : statusCounts) {
+            counts[id] = 0;
+        }
+    }
+
+    private void deleteAllOfType(byte type) {
+        List<Integer> deletedIds = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (int id = 1; id <= maxId; id++) {
+                if (types[id] == type) {
+                    erase(id);
+                    deletedIds.add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        historyManager.removeAll(deletedIds);
+    }
+
+    /** Erases all tasks of the type matching the filter under one write lock, materializing each to test it. */
+    private int deleteOfTypeIf(byte type, Predicate<? super Task> filter) {
+        List<Integer> deletedIds = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (int id = 1; id <= maxId; id++) {
+                if (types[id] == type && filter.test(materialize(id))) {
+                    erase(id);
+                    deletedIds.add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        historyManager.removeAll(deletedIds);
+        return deletedIds.size();
+    }
+
+    private void linkSubtask(int id, int epicId) {
+        epicIds[id] = epicId;
+        prevSubtasks[id] = lastSubtasks[epicId];
+        nextSubtasks[id] = 0;
+        if (lastSubtasks[epicId] != 0) {
+            nextSubtasks[lastSubtasks[epicId]] = id;
+        } else {
+            firstSubtasks[epicId] = id;
+        }
+        lastSubtasks[epicId] = id;
+
+        if (statuses[id] != NO_STATUS) {
+            statusCounts[statuses[id]][epicId]++;
+        }
+        updateEpicStatus(epicId);
+    }
+
+    private void unlinkSubtask(int id) {
+        int epicId = epicIds[id];
+        if (prevSubtasks[id] != 0) {
+            nextSubtasks[prevSubtasks[id]] = nextSubtasks[id];
+        } else {
+            firstSubtasks[epicId] = nextSubtasks[id];
+        }
+        if (nextSubtasks[id] != 0) {
+            prevSubtasks[nextSubtasks[id]] = prevSubtasks[id];
+        } else {
+            lastSubtasks[epicId] = prevSubtasks[id];
+        }
+        prevSubtasks[id] = 0;
+        nextSubtasks[id] = 0;
+
+        if (statuses[id] != NO_STATUS) {
+            statusCounts[statuses[id]][epicId]--;
+        }
+        updateEpicStatus(epicId);
+    }
+
+    /** Same rules as {@link InMemoryTaskManager#checkStatusEpic(Epic)}, based on the status counters. */
+    private void updateEpicStatus(int epicId) {
+        int newCount = statusCounts[TaskStatus.NEW.ordinal()][epicId];
+        int inProgressCount = statusCounts[TaskStatus.IN_PROGRESS.ordinal()][epicId];
+        int doneCount = statusCounts[TaskStatus.DONE.ordinal()][epicId];
+
+        TaskStatus status;
+        if (newCount > 0 && inProgressCount == 0 && doneCount == 0) {
+            status = TaskStatus.NEW;
+        } else if (newCount == 0 && inProgressCount == 0 && doneCount > 0) {
+            status = TaskStatus.DONE;
+        } else {
+            status = TaskStatus.IN_PROGRESS;
+        }
+        setStatus(epicId, (byte) status.ordinal());
+    }
+
+    /** Writes the status column and re-indexes the task by its type and new status. */
+    private void setStatus(int id, byte status) {
+        statuses[id] = status;
+        statusIndex.put(id, taskTypeOf(types[id]), status == NO_STATUS ? null : STATUSES[status]);
+    }
+
+    private static TaskType taskTypeOf(byte type) {
+        switch (type) {
+            case TASK:
+                return TaskType.TASK;
+            case EPIC:
+                return TaskType.EPIC;
+            case SUBTASK:
+                return TaskType.SUBTASK;
+            default:
+                return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Task> List<T> findByStatus(TaskType type, TaskStatus status) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Integer> ids = statusIndex.ids(type, status);
+            List<T> found = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                found.add((T) materialize(id));
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void changeCount(byte type, int delta) {
+        switch (type) {
+            case TASK:
+                tasksCount += delta;
+                break;
+            case EPIC:
+                epicsCount += delta;
+                break;
+            case SUBTASK:
+                subtasksCount += delta;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private int countOf(byte type) {
+        lock.readLock().lock();
+        try {
+            switch (type) {
+                case TASK:
+                    return tasksCount;
+                case EPIC:
+                    return epicsCount;
+                default:
+                    return subtasksCount;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Task> materializeAll(Collection<PrioritizedIndex.Key> keys) {
+        List<Task> materialized = new ArrayList<>(keys.size());
+        for (PrioritizedIndex.Key key : keys) {
+            materialized.add(materialize(key.id));
+        }
+        return materialized;
+    }
+
+    /** Creates a Task, Epic or Subtask object from the columns of the given ID. */
+    private Task materialize(int id) {
+        String name = dictionary.decode(names[id]);
+        String description = dictionary.decode(descriptions[id]);
+        TaskStatus status = statuses[id] == NO_STATUS ? null : STATUSES[statuses[id]];
+
+        Task task;
+        switch (types[id]) {
+            case EPIC:
+                Epic epic = new Epic(name, description, status);
+                for (int subtaskId = firstSubtasks[id]; subtaskId != 0; subtaskId = nextSubtasks[subtaskId]) {
+                    epic.subtasks.add((Subtask) materialize(subtaskId));
+                }
+                epic.checkDataTimeDurationEpic();
+                task = epic;
+                break;
+            case SUBTASK:
+                task = new Subtask(name, description, status, epicIds[id]);
+                task.setEpochMinutes(startMinutes[id], durationMinutes[id]);
+                break;
+            default:
+                task = new Task(name, description, status);
+                task.setEpochMinutes(startMinutes[id], durationMinutes[id]);
+                break;
+        }
+        task.setId(id);
+        task.setVersion(versions[id]);
+        return task;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < types.length) {
+            return;
+        }
+        int capacity = Math.max(id + 1, types.length + (types.length >> 1));
+
+        types = Arrays.copyOf(types, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        startMinutes = Arrays.copyOf(startMinutes, capacity);
+        durationMinutes = Arrays.copyOf(durationMinutes, capacity);
+        names = Arrays.copyOf(names, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        epicIds = Arrays.copyOf(epicIds, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        firstSubtasks = Arrays.copyOf(firstSubtasks, capacity);
+        lastSubtasks = Arrays.copyOf(lastSubtasks, capacity);
+        nextSubtasks = Arrays.copyOf(nextSubtasks, capacity);
+        prevSubtasks = Arrays.copyOf(prevSubtasks, capacity);
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] = Arrays.copyOf(statusCounts[i], capacity);
+        }
+    }
+
+    //---------------
+    // Helper classes
+    //---------------
+
+    /**
+     * Read-only map of all tasks of one type, materializing values on access.
+     * Iteration works on the IDs present when the iterator was created.
+     */
+    private class TypeView<T extends Task> extends AbstractMap<Integer, T> {
+        private final byte type;
+
+        TypeView(byte type) {
+            this.type = type;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(Object key) {
+            return key instanceof Integer ? (T) materializeIfOfType((Integer) key, type) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return countOf(type);
+        }
+
+        @Override
+        public Set<Entry<Integer, T>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, T>> iterator() {
+                    return new TypeIterator();
+                }
+
+                @Override
+                public int size() {
+                    return countOf(type);
+                }
+            };
+        }
+
+        private class TypeIterator implements Iterator<Entry<Integer, T>> {
+            private final int[] ids;
+            private int index;
+            private Entry<Integer, T> next;
+
+            TypeIterator() {
+                lock.readLock().lock();
+                try {
+                    int[] found = new int[countOf(type)];
+                    int count = 0;
+                    for (int id = 1; id <= maxId && count < found.length; id++) {
+                        if (types[id] == type) {
+                            found[count++] = id;
+                        }
+                    }
+                    ids = Arrays.copyOf(found, count);
+                } finally {
+                    lock.readLock().unlock();
+                }
+                advance();
+            }
+
+            @SuppressWarnings("unchecked")
+            private void advance() {
+                next = null;
+                while (next == null && index < ids.length) {
+                    int id = ids[index++];
+                    T task = (T) materializeIfOfType(id, type);
+                    if (task != null) { // skips tasks deleted after the iterator was created
+                        next = new SimpleImmutableEntry<>(id, task);
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry<Integer, T> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Entry<Integer, T> current = next;
+                advance();
+                return current;
+            }
+        }
+    }
+
+    /**
+     * View of the stored tasks for validating a transaction, used under the write lock.
+     */
+    private class TransactionStore implements Transaction.Store {
+
+        @Override
+        public TaskType typeOf(int id) {
+            return id > 0 && id <= maxId ? taskTypeOf(types[id]) : null;
+        }
+
+        @Override
+        public Collection<Integer> subtaskIdsOf(int epicId) {
+            List<Integer> subtaskIds = new ArrayList<>();
+            if (isOfType(epicId, EPIC)) {
+                for (int id = firstSubtasks[epicId]; id != 0; id = nextSubtasks[id]) {
+                    subtaskIds.add(id);
+                }
+            }
+            return subtaskIds;
+        }
+
+        @Override
+        public boolean overlaps(long start, long end, IntPredicate ignored) {
+            return scheduleIndex.overlaps(start, end, ignored);
+        }
+    }
+
+    /**
+     * Dictionary encoding of strings on the heap: every distinct string is stored once
+     * and referenced by its index in a list. Codes are reference-counted; the code of a string
+     * no longer referenced is freed and reused for the next new string.
+     */
+    static class StringDictionary implements TextStore {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private int[] references = new int[INITIAL_CAPACITY];
+        private int[] freeCodes = new int[INITIAL_CAPACITY]; // stack of freed codes
+        private int freeCount;
+
+        @Override
+        public int encode(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                if (freeCount == 0) {
+                    code = strings.size();
+                    strings.add(value);
+                    if (code == references.length) {
+                        references = Arrays.copyOf(references, code * 2);
+                    }
+                } else {
+                    code = freeCodes[--freeCount];
+                    strings.set(code, value);
+                }
+                codes.put(value, code);
+            }
+            references[code]++;
+            return code;
+        }
+
+        @Override
+        public String decode(int code) {
+            return code == NULL_CODE ? null : strings.get(code);
+        }
+
+        @Override
+        public void release(int code) {
+            if (code == NULL_CODE || --references[code] > 0) {
+                return;
+            }
+            codes.remove(strings.set(code, null));
+            if (freeCount == freeCodes.length) {
+                freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+            }
+            freeCodes[freeCount++] = code;
+        }
+
+        /** Returns the number of distinct strings stored. */
+        int size() {
+            return codes.size();
+        }
+    }
+}
@@ -2,117 +2,164 @@ package com.taskmanager.managers;
 
 import com.taskmanager.tasks.*;
 
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * FileBackedTaskManager extends InMemoryTaskManager and adds persistence to a CSV file if available.
  * <p>
  * All tasks, epics, subtasks, and their history are automatically saved to the file on each modification.
+ * The file is written to a temporary file first and then moved in place, so it is never left half-written.
+ * </p>
+ * <p>
+ * {@link #loadFromFile(Path, int)} loads descriptions lazily: tasks keep only the position of their
+ * description in the file, and descriptions are read on demand through a bounded cache.
  * </p>
  */
 public class FileBackedTaskManager extends InMemoryTaskManager {
 
     private static final Logger LOGGER = Logger.getLogger(FileBackedTaskManager.class.getName());
+    private static final String HEADER = String.join(",", "id", "type", "name", "status",
+            "description", "startTime", "duration", "endTime", "epic\n");
     private final Path path;
+    /** Lazily loaded descriptions, or null if descriptions are kept in memory. */
+    private final LazyDescriptions lazyDescriptions;
+    /** Set while a transaction is applied, so its operations do not save one by one; guarded by the monitor. */
+    protected boolean savingDeferred;
 
 
     /** Constructor with file path for persistence */
     public FileBackedTaskManager(Path path) {
-        this.path = path;
+        this(path, null);
     }
 
     /** Constructor without file persistence */
     public FileBackedTaskManager() {
-        this.path = null;
+        this(null, null);
+    }
+
+    private FileBackedTaskManager(Path path, LazyDescriptions lazyDescriptions) {
+        this.path = path;
+        this.lazyDescriptions = lazyDescriptions;
     }
 
     /**
      * Saves current state of tasks, epics, subtasks and history to the file.
      * Throws ManagerSaveException in case of failure.
      */
-    protected void save() {
+    protected synchronized void save() {
 
+        if (savingDeferred) {
+            return;
+        }
         if (path == null) {
             LOGGER.warning("No path available. Skipping save-to-file operation");
             return;
         }
 
-        try (FileWriter fileWriter = new FileWriter(String.valueOf(path))) {
+        Path tempFile = null;
+        try {
             LOGGER.info("Saving tasks to file: " + path);
+            tempFile = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+            IntObjectHashMap<Long> lazyOffsets = new IntObjectHashMap<>();
 
-            String firstLine = String.join(",", "id", "type", "name", "status",
-                    "description", "startTime", "duration", "endTime", "epic\n");
-            fileWriter.write(firstLine);
+            try (CountingOutput output = new CountingOutput(Files.newOutputStream(tempFile));
+                 FileChannel source = lazyDescriptions != null && Files.exists(path)
+                         ? FileChannel.open(path, StandardOpenOption.READ) : null) {
+                output.write(HEADER);
 
-            if (!tasks.isEmpty()) {
                 for (Task task : tasks.values()) {
-                    fileWriter.write(toString(task));
-                    fileWriter.write("\n");
+                    writeTask(output, task, source, lazyOffsets);
                 }
-            }
-
-            if (!subtasks.isEmpty()) {
                 for (Subtask subtask : subtasks.values()) {
-                    fileWriter.write(toString(subtask));
-                    fileWriter.write("\n");
+                    writeTask(output, subtask, source, lazyOffsets);
                 }
-            }
-
-            if (!epics.isEmpty()) {
                 for (Epic epic : epics.values()) {
-                    fileWriter.write(toString(epic));
-                    fileWriter.write("\n");
+                    writeTask(output, epic, source, lazyOffsets);
                 }
-            }
 
-            fileWriter.write("\n");
+                output.write("\n");
 
-            if (!historyManager.getHistory().isEmpty()) {
-                fileWriter.write(historyToString(historyManager));
-            } else {
-                fileWriter.write("\n");
+                HistoryManager savedHistory = persistentHistory();
+                if (!savedHistory.getHistory().isEmpty()) {
+                    output.write(historyToString(savedHistory));
+                } else {
+                    output.write("\n");
+                }
             }
 
+            if (lazyDescriptions != null) {
+                lazyDescriptions.replaceFile(tempFile, lazyOffsets);
+            } else {
+                replaceFile(tempFile, path);
+            }
             LOGGER.info("Tasks successfully saved to file.");
 
         } catch (IOException exception) {
             LOGGER.log(Level.SEVERE, "Failed to save tasks to file: " + path, exception);
+            deleteQuietly(tempFile);
             throw new ManagerSaveException("Error writing to file", exception);
         }
     }
 
+    /**
+     * Moves a newly written file over the target, atomically if the file system supports it.
+     */
+    static void replaceFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     /** Adds a task read from file to memory */
-    private static void addTaskFromFile(Task task) {
-        LOGGER.info("Adding task from file: " + task);
+    private void addTaskFromFile(Task task) {
+        // toString() of subtasks and epics reads the description, which must stay unread for lazy loading
+        LOGGER.fine(() -> "Adding task from file: " + task);
+        internStrings(task);
 
-        switch (task.getType()) {
-            case "TASK":
+        switch (task.getTaskType()) {
+            case TASK:
                 tasks.put(task.getId(), task);
+                addToIndexes(task);
                 break;
-            case "EPIC":
+            case EPIC:
+                subtaskIdsByEpic.computeIfAbsent(task.getId(), key -> new ConcurrentSkipListSet<>());
                 epics.put(task.getId(), (Epic) task);
+                statusIndex.put(task);
                 break;
-            case "SUBTASK":
+            case SUBTASK:
                 subtasks.put(task.getId(), (Subtask) task);
+                addToIndexes(task);
+                linkSubtask(((Subtask) task).getIdEpic(), task.getId());
+                break;
             default:
                 LOGGER.warning("Unknown task type while loading: " + task.getType());
         }
 
-        if (nextId <= task.getId()) {
-            nextId = task.getId() + 1;
-        }
+        nextId.accumulateAndGet(task.getId() + 1, Math::max);
     }
 
     /** Rebuilds history from CSV line of IDs */
-    private static void addHistoryFromFile(String historyLine) {
+    private void addHistoryFromFile(String historyLine) {
 
         if (!historyLine.isEmpty()) {
             String[] historyIds = historyLine.split(",");
@@ -145,9 +192,28 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
      * @return FileBackedTaskManager instance
      */
     public static FileBackedTaskManager loadFromFile(Path path) {
+        return loadFromFile(path, null);
+    }
+
+    /**
+     * Loads tasks and history from a CSV file without keeping descriptions in memory:
+     * each task remembers where its description is in the file, and descriptions are read on demand.
+     * Saves keep working as usual, copying lazy descriptions from the old file to the new one.
+     * @param path Path to CSV file
+     * @param descriptionCacheSize maximum number of recently read descriptions kept in memory
+     * @return FileBackedTaskManager instance
+     */
+    public static FileBackedTaskManager loadFromFile(Path path, int descriptionCacheSize) {
+        return loadFromFile(path, new LazyDescriptions(path, descriptionCacheSize));
+    }
+
+    private static FileBackedTaskManager loadFromFile(Path path, LazyDescriptions lazyDescriptions) {
         LOGGER.info("Loading tasks from file: " + path);
+        FileBackedTaskManager manager = new FileBackedTaskManager(path, lazyDescriptions);
         try {
-            if (Files.size(path) != 0) {
+            if (lazyDescriptions != null) {
+                manager.loadLazily();
+            } else if (Files.size(path) != 0) {
                 List<String> lines = Files.readAllLines(path);
 
                 int linesCount = 0;
@@ -157,22 +223,75 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                         if (line.isEmpty()) {
                             break;
                         }
-                        Task task = fromString(line);
+                        Task task = manager.fromString(line);
 
                         if (task != null) {
-                            addTaskFromFile(task);
+                            manager.addTaskFromFile(task);
                         }
                     }
                 }
                 String historyLine = lines.get(linesCount);
-                addHistoryFromFile(historyLine);
+                manager.addHistoryFromFile(historyLine);
             }
 
         } catch (IOException exception) {
             LOGGER.log(Level.SEVERE, "Failed to load tasks from file: " + path, exception);
             throw new ManagerSaveException("Failed to load tasks from file", exception);
         }
-        return new FileBackedTaskManager(path);
+        return manager;
+    }
+
+    /**
+     * Reads the file as bytes, line by line, keeping track of byte offsets. The description field
+     * (after the fourth comma) of every task line is left out of the parsed line and attached lazily.
+     */
+    private void loadLazily() throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            LineReader reader = new LineReader(input);
+            while (reader.next() && reader.length() > 0) { // an empty line ends the tasks
+                if (!startsWith(reader.bytes(), reader.length(), "id")) {
+                    addLazyLine(reader.bytes(), reader.length(), reader.start());
+                }
+            }
+            addHistoryFromFile(reader.next() ? new String(reader.bytes(), 0, reader.length(),
+                    StandardCharsets.UTF_8) : "");
+        }
+    }
+
+    /** Parses a task line without its description and attaches the description lazily. */
+    private void addLazyLine(byte[] bytes, int length, long lineStart) {
+        int descriptionStart = indexAfterComma(bytes, 0, length, 4);
+        int descriptionEnd = indexAfterComma(bytes, descriptionStart, length, 1) - 1;
+        String withoutDescription = new String(bytes, 0, descriptionStart, StandardCharsets.UTF_8)
+                + new String(bytes, descriptionEnd, length - descriptionEnd, StandardCharsets.UTF_8);
+
+        Task task = fromString(withoutDescription);
+        if (task != null) {
+            lazyDescriptions.attach(task, lineStart + descriptionStart, descriptionEnd - descriptionStart);
+            addTaskFromFile(task);
+        }
+    }
+
+    /** Returns the index right after the n-th comma from {@code from}, or {@code length} if there is none. */
+    private static int indexAfterComma(byte[] bytes, int from, int length, int n) {
+        for (int i = from; i < length; i++) {
+            if (bytes[i] == ',' && --n == 0) {
+                return i + 1;
+            }
+        }
+        return length + 1;
+    }
+
+    private static boolean startsWith(byte[] bytes, int length, String prefix) {
+        if (length < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (bytes[i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     //--------------------------
@@ -181,200 +300,117 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
 
     @Override
     public void createTask(Task task) {
-        if (!isValidDateTime(task)) {
-            LOGGER.warning("Task has invalid datetime: " + task);
-            return;
-        }
-        task.setId(generateId());
-        tasks.put(task.getId(), task);
-        LOGGER.info("Created task: " + task);
+        super.createTask(task);
         save();
     }
 
     @Override
     public void createEpic(Epic epic) {
-        if (!isValidDateTime(epic)) {
-            LOGGER.warning("Epic has invalid datetime: " + epic);
-            return;
-        }
-        epic.setId(generateId());
-        epics.put(epic.getId(), epic);
-        LOGGER.info("Created epic: " + epic);
+        super.createEpic(epic);
         save();
     }
 
     @Override
     public void createSubtask(Subtask subtask) throws IllegalArgumentException {
-        if (!isValidDateTime(subtask)) {
-            LOGGER.warning("Subtask has invalid datetime: " + subtask);
-            return;
-        }
-        if (!epics.containsKey(subtask.getIdEpic())) {
-            LOGGER.severe("Epic with ID=" + subtask.getIdEpic() + " not found. Cannot create subtask.");
-            throw new IllegalArgumentException("Epic with such ID not exist.");
-        }
-
-        subtask.setId(generateId());
-        Epic epic = epics.get(subtask.getIdEpic());
-        epic.subtasks.add(subtask);
-        subtasks.put(subtask.getId(), subtask);
-
-        checkStatusEpic(epic);
-        epic.checkDataTimeDurationEpic();
-        LOGGER.info("Created subtask: " + subtask);
+        super.createSubtask(subtask);
         save();
     }
 
     @Override
-    public void updateUsualTask(Task task, int id) throws IllegalArgumentException { // Новые данные в существующий ID
-        if (!tasks.containsKey(id)) {
-            LOGGER.warning("Task with ID=" + id + " not found for update.");
-            throw new IllegalArgumentException("Usual Task with such ID not exist.");
-        }
-
-        tasks.replace(id, task);
-        task.setId(id);
-        LOGGER.info("Updated task with ID=" + id + ": " + task);
+    public List<Task> createTasks(List<Task> newTasks) {
+        List<Task> created = super.createTasks(newTasks);
         save();
+        return created;
     }
 
     @Override
-    public void updateEpic(Epic epic, int id) throws IllegalArgumentException { // Новые данные в существующий ID
-        if (!epics.containsKey(id)) {
-            LOGGER.warning("Epic with ID=" + id + " not found for update.");
-            throw new IllegalArgumentException("Epic with such ID not exist.");
-        }
+    public List<Subtask> createSubtasks(List<Subtask> newSubtasks) throws IllegalArgumentException {
+        List<Subtask> created = super.createSubtasks(newSubtasks);
+        save();
+        return created;
+    }
 
-        ArrayList<Subtask> savedSubtasks = getEpicById(id).subtasks;
-        epics.replace(id, epic);
-        epic.setId(id);
+    @Override
+    public void updateUsualTask(Task task, int id) throws IllegalArgumentException {
+        super.updateUsualTask(task, id);
+        save();
+    }
 
-        for (Subtask subtask : savedSubtasks) {
-            getEpicById(id).subtasks.add(subtask);
-        }
+    @Override
+    public void updateEpic(Epic epic, int id) throws IllegalArgumentException {
+        super.updateEpic(epic, id);
+        save();
+    }
 
-        checkStatusEpic(epic);
-        epic.checkDataTimeDurationEpic();
-        LOGGER.info("Updated epic with ID=" + id + ": " + epic);
+    @Override
+    public void updateSubtask(Subtask subtask, int id) throws IllegalArgumentException {
+        super.updateSubtask(subtask, id);
         save();
     }
 
     @Override
-    public void updateSubtask(Subtask subtask, int id) throws IllegalArgumentException {//Новые данные в существующий ID
-        if (!subtasks.containsKey(id)) {
-            LOGGER.warning("Subtask with ID=" + id + " not found for update.");
-            throw new IllegalArgumentException("Subtask with such ID not exist.");
-        }
-        if (!epics.containsKey(subtask.getIdEpic())) {
-            LOGGER.warning("Epic with ID=" + id + " not found.");
-            throw new IllegalArgumentException("Epic with such ID not exist.");
+    public boolean updateUsualTask(Task task, int id, int expectedVersion) throws IllegalArgumentException {
+        boolean updated = super.updateUsualTask(task, id, expectedVersion);
+        if (updated) {
+            save();
         }
+        return updated;
+    }
 
-        Epic epic = epics.get(subtask.getIdEpic());
-        epic.subtasks.remove(subtasks.get(id));
-        epic.subtasks.add(subtask);
-        subtasks.replace(id, subtask);
-        subtask.setId(id);
-
-        checkStatusEpic(epic);
-        epic.checkDataTimeDurationEpic();
-        LOGGER.info("Updated subtask with ID=" + id + ": " + subtask);
-        save();
+    @Override
+    public boolean updateEpic(Epic epic, int id, int expectedVersion) throws IllegalArgumentException {
+        boolean updated = super.updateEpic(epic, id, expectedVersion);
+        if (updated) {
+            save();
+        }
+        return updated;
     }
 
     @Override
-    public Task getUsualTaskById(int id) throws IllegalArgumentException {
-        if (!tasks.containsKey(id)) {
-            LOGGER.warning("Usual task with ID=" + id + " not found.");
-            throw new IllegalArgumentException("Usual Task with such ID not exist.");
+    public boolean updateSubtask(Subtask subtask, int id, int expectedVersion) throws IllegalArgumentException {
+        boolean updated = super.updateSubtask(subtask, id, expectedVersion);
+        if (updated) {
+            save();
         }
+        return updated;
+    }
 
-        historyManager.add(tasks.get(id));
+    @Override
+    public Task getUsualTaskById(int id) throws IllegalArgumentException {
+        Task task = super.getUsualTaskById(id);
         save();
-        LOGGER.info("Received task with ID=" + id + ": " + tasks.get(id));
-        return tasks.get(id);
+        return task;
     }
 
     @Override
     public Epic getEpicById(int id) throws IllegalArgumentException {
-        if (!epics.containsKey(id)) {
-            LOGGER.warning("Epic with ID=" + id + " not found.");
-            throw new IllegalArgumentException("Epic with such ID not exist.");
-        }
-
-        historyManager.add(epics.get(id));
+        Epic epic = super.getEpicById(id);
         save();
-        LOGGER.info("Received epic with ID=" + id + ": " + epics.get(id));
-        return epics.get(id);
+        return epic;
     }
 
     @Override
     public Subtask getSubtaskById(int id) throws IllegalArgumentException {
-        if (!subtasks.containsKey(id)) {
-            LOGGER.warning("Subtask with ID=" + id + " not found.");
-            throw new IllegalArgumentException("Subtask with such ID not exist.");
-        }
-
-        historyManager.add(subtasks.get(id));
+        Subtask subtask = super.getSubtaskById(id);
         save();
-        LOGGER.info("Received subtask with ID=" + id + ": " + subtasks.get(id));
-        return subtasks.get(id);
+        return subtask;
     }
 
     @Override
     public void deleteTaskById(int id) throws IllegalArgumentException {
-        if (!tasks.containsKey(id)) {
-            LOGGER.warning("Usual task with ID=" + id + " not found.");
-            throw new IllegalArgumentException("Task with such ID not exist.");
-        }
-
-        tasks.remove(id);
-        historyManager.remove(id);
-        LOGGER.info("Usual task with ID=" + id + " deleted.");
+        super.deleteTaskById(id);
         save();
     }
 
     @Override
     public void deleteEpicById(int id) throws IllegalArgumentException {
-        if (!epics.containsKey(id)) {
-            LOGGER.warning("Epic with ID=" + id + " not found.");
-            throw new IllegalArgumentException("Epic with such ID not exist.");
-        }
-
-        List<Integer> subtasksIdsToDelete = new ArrayList<>();
-        for (Subtask subtask : subtasks.values()) {
-            if (subtask.getIdEpic() == id) {
-                subtasksIdsToDelete.add(subtask.getId());
-            }
-        }
-
-        for (Integer subtaskIdToDelete : subtasksIdsToDelete) {
-            subtasks.remove(subtaskIdToDelete);
-            historyManager.remove(subtaskIdToDelete);
-        }
-
-        epics.get(id).subtasks.clear();
-        epics.remove(id);
-        historyManager.remove(id);
-        LOGGER.info("Epic with ID=" + id + " deleted.");
+        super.deleteEpicById(id);
         save();
     }
 
     @Override
     public void deleteSubtaskById(int id) throws IllegalArgumentException {
-        if (!subtasks.containsKey(id)) {
-            LOGGER.warning("Subtask with ID=" + id + " not found.");
-            throw new IllegalArgumentException("Subtask with such ID not exist.");
-        }
-
-        Epic epic = epics.get(subtasks.get(id).getIdEpic());
-        epic.subtasks.remove(subtasks.get(id));
-        subtasks.remove(id);
-        historyManager.remove(id);
-
-        checkStatusEpic(epic);
-        epic.checkDataTimeDurationEpic();
-        LOGGER.info("Subtask with ID=" + id + " deleted.");
+        super.deleteSubtaskById(id);
         save();
     }
 
@@ -384,45 +420,19 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             LOGGER.warning("List of usual tasks is already empty.");
             return;
         }
-        for (Task task : tasks.values()) {
-            historyManager.remove(task.getId());
-        }
-        tasks.clear();
-        LOGGER.info("All usual tasks deleted.");
+        super.deleteAllUsualTasks();
         save();
     }
 
     @Override
     public void deleteAllEpics() {
-        if (epics.isEmpty()) {
-            LOGGER.warning("List of epics is already empty.");
-        }
-        for (Epic epic : epics.values()) {
-            historyManager.remove(epic.getId());
-        }
-        epics.clear();
-        LOGGER.info("All epics deleted.");
-        deleteAllSubtasks();
-        LOGGER.info("All subtasks deleted.");
+        super.deleteAllEpics();
         save();
     }
 
     @Override
     public void deleteAllSubtasks() {
-        if (subtasks.isEmpty()) {
-            LOGGER.warning("List of subtasks is already empty.");
-        }
-        for (Subtask subtask : subtasks.values()) {
-            historyManager.remove(subtask.getId());
-        }
-        subtasks.clear();
-        LOGGER.info("All subtasks deleted.");
-
-        for (Epic epic : epics.values()) {
-            epic.subtasks.clear();
-            checkStatusEpic(epic);
-            epic.checkDataTimeDurationEpic();
-        }
+        super.deleteAllSubtasks();
         save();
     }
 
@@ -433,10 +443,89 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         save();
     }
 
+    @Override
+    public int deleteTasksIf(Predicate<? super Task> filter) {
+        int deleted = super.deleteTasksIf(filter);
+        if (deleted > 0) {
+            save();
+        }
+        return deleted;
+    }
+
+    @Override
+    public int deleteSubtasksIf(Predicate<? super Subtask> filter) {
+        int deleted = super.deleteSubtasksIf(filter);
+        if (deleted > 0) {
+            save();
+        }
+        return deleted;
+    }
+
+    /**
+     * Applies the transaction with saving deferred, then saves once. Holds the monitor for the whole commit,
+     * so saves of other threads wait until the transaction is applied.
+     */
+    @Override
+    public synchronized List<Task> commit(Transaction transaction) {
+        List<Task> created;
+        savingDeferred = true;
+        try {
+            created = super.commit(transaction);
+        } finally {
+            savingDeferred = false;
+        }
+        save();
+        return created;
+    }
+
     //------------------------
     // Private helpers methods
     //------------------------
 
+    /**
+     * Writes one CSV line of a task. A lazy description is copied as raw bytes from the current file
+     * and its offset in the new file is recorded.
+     */
+    private void writeTask(CountingOutput output, Task task, FileChannel source,
+                           IntObjectHashMap<Long> lazyOffsets) throws IOException {
+        LazyDescriptions.Location location = source == null ? null : lazyDescriptions.locationOf(task);
+        if (location == null) {
+            output.write(toString(task));
+        } else {
+            String line = toString(task, ""); // id,type,name,status,,startTime...
+            int descriptionStart = 0;
+            for (int i = 0; i < 4; i++) {
+                descriptionStart = line.indexOf(',', descriptionStart) + 1;
+            }
+            output.write(line.substring(0, descriptionStart));
+            lazyOffsets.put(task.getId(), Long.valueOf(output.position()));
+            output.write(LazyDescriptions.readBytes(source, location));
+            output.write(line.substring(descriptionStart));
+        }
+        output.write("\n");
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException exception) {
+            LOGGER.log(Level.WARNING, "Failed to delete temporary file: " + file, exception);
+        }
+    }
+
+    /**
+     * Returns the history to save: with per-session histories installed, their default history,
+     * not the history of the session whose request caused the save.
+     */
+    protected HistoryManager persistentHistory() {
+        HistoryManager manager = historyManager;
+        return manager instanceof SessionHistoryManager ? ((SessionHistoryManager) manager).getDefaultHistory()
+                : manager;
+    }
+
     /** Converts history into CSV string of task IDs */
     private String historyToString(HistoryManager manager) {
 
@@ -450,7 +539,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     /** Converts a CSV line to Task/Epic/Subtask object */
-    private static Task fromString(String value) { // id,type,name,status,description, startTime, duration, endTime, epic
+    private Task fromString(String value) { // id,type,name,status,description, startTime, duration, endTime, epic
 
         String[] taskValues = value.split(",");
         LOGGER.fine("Parsing task from line: " + value);
@@ -485,12 +574,9 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                 Epic epic = new Epic(taskValues[2], taskValues[4], TaskStatus.valueOf(taskValues[3]));
                 epic.setId(Integer.parseInt(taskValues[0]));
 
-                if (!subtasks.isEmpty()) {
-
-                    List<Subtask> subtasksEpic = subtasks.values().stream()
-                            .filter(st -> epic.getId() == st.getIdEpic())
-                            .collect(Collectors.toList());
-
+                // subtasks are written before epics, so the index already knows them
+                List<Subtask> subtasksEpic = getEpicSubtasks(epic);
+                if (!subtasksEpic.isEmpty()) {
                     epic.subtasks.addAll(subtasksEpic);
                     epic.checkDataTimeDurationEpic();
                 }
@@ -503,6 +589,11 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
 
     /** Converts a Task object to CSV string */
     private String toString(Task task) {
+        return toString(task, task.getDescription());
+    }
+
+    /** Converts a Task object with the given description to CSV string */
+    private String toString(Task task, String description) {
 
         String startTimeString;
         String durationString;
@@ -526,15 +617,103 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             endTimeString = " ";
         }
 
-        if (task.getType().equals("SUBTASK")) {
+        if (task.getTaskType() == TaskType.SUBTASK) {
             Subtask subtask = (Subtask) task;
             return String.join(",", String.valueOf(task.getId()), String.valueOf(task.getType()),
-                    task.getName(), String.valueOf(task.getStatus()), task.getDescription(), startTimeString,
+                    task.getName(), String.valueOf(task.getStatus()), description, startTimeString,
                     durationString, endTimeString, String.valueOf(subtask.getIdEpic()));
         }
 
         return String.join(",", String.valueOf(task.getId()), String.valueOf(task.getType()), task.getName(),
-                String.valueOf(task.getStatus()), task.getDescription(), startTimeString, durationString,
+                String.valueOf(task.getStatus()), description, startTimeString, durationString,
                 endTimeString);
     }
+
+    /**
+     * Splits a stream into lines of bytes (without the line break), remembering where each line starts.
+     */
+    private static class LineReader {
+        private final InputStream input;
+        private final byte[] buffer = new byte[1 << 16];
+        private int bufferLength;
+        private int bufferPosition;
+        private long bufferStart; // file offset of buffer[0]
+
+        private byte[] line = new byte[256];
+        private int lineLength;
+        private long lineStart;
+
+        LineReader(InputStream input) {
+            this.input = input;
+        }
+
+        /** Reads the next line; returns false at the end of the stream. */
+        boolean next() throws IOException {
+            lineLength = 0;
+            lineStart = bufferStart + bufferPosition;
+            while (true) {
+                if (bufferPosition == bufferLength) {
+                    bufferStart += bufferLength;
+                    bufferPosition = 0;
+                    bufferLength = Math.max(input.read(buffer), 0);
+                    if (bufferLength == 0) {
+                        return lineLength > 0;
+                    }
+                }
+                byte next = buffer[bufferPosition++];
+                if (next == '\n') {
+                    if (lineLength > 0 && line[lineLength - 1] == '\r') {
+                        lineLength--;
+                    }
+                    return true;
+                }
+                if (lineLength == line.length) {
+                    line = Arrays.copyOf(line, lineLength * 2);
+                }
+                line[lineLength++] = next;
+            }
+        }
+
+        byte[] bytes() {
+            return line;
+        }
+
+        int length() {
+            return lineLength;
+        }
+
+        long start() {
+            return lineStart;
+        }
+    }
+
+    /**
+     * Output stream writing UTF-8 text and bytes, counting the bytes written so far.
+     */
+    private static class CountingOutput implements Closeable {
+        private final OutputStream output;
+        private long position;
+
+        CountingOutput(OutputStream output) {
+            this.output = new BufferedOutputStream(output);
+        }
+
+        void write(String text) throws IOException {
+            write(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void write(byte[] bytes) throws IOException {
+            output.write(bytes);
+            position += bytes.length;
+        }
+
+        long position() {
+            return position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.close();
+        }
+    }
 }
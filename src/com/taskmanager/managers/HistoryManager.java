@@ -2,6 +2,9 @@ package com.taskmanager.managers;
 
 import com.taskmanager.tasks.*;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -10,8 +13,8 @@ import java.util.List;
  * It is responsible for:
  * <ul>
  *     <li>Adding tasks to the history of views</li>
- *     <li>Returning a list of viewed tasks</li>
- *     <li>Removing tasks from the history by ID</li>
+ *     <li>Returning a list of viewed tasks, whole or the most recent part</li>
+ *     <li>Removing tasks from the history by ID, one by one or in bulk</li>
  * </ul>
  * <p>
  */
@@ -21,6 +24,41 @@ public interface HistoryManager {
 
     List<Task> getHistory();
 
+    /**
+     * Returns up to {@code limit} tasks, most recently viewed first, after skipping the {@code offset}
+     * most recent ones. Implementations should only copy the returned part of the history.
+     *
+     * @throws IllegalArgumentException if {@code limit} or {@code offset} is negative
+     */
+    default List<Task> getRecent(int limit, int offset) {
+        if (limit < 0 || offset < 0) {
+            throw new IllegalArgumentException("Limit and offset must not be negative: " + limit + ", " + offset);
+        }
+        List<Task> history = getHistory();
+        List<Task> recent = new ArrayList<>(Math.min(limit, history.size()));
+        for (int i = history.size() - 1 - offset; i >= 0 && recent.size() < limit; i--) {
+            recent.add(history.get(i));
+        }
+        return recent;
+    }
+
+    /**
+     * Returns an iterator over the history, most recently viewed first.
+     * Implementations should read tasks as the iterator advances, without copying the history.
+     */
+    default Iterator<Task> recentIterator() {
+        return getRecent(Integer.MAX_VALUE, 0).iterator();
+    }
+
     void remove(int id);
 
+    /**
+     * Removes all given IDs from the history; IDs not in the history are ignored.
+     */
+    default void removeAll(Collection<Integer> ids) {
+        for (Integer id : ids) {
+            remove(id);
+        }
+    }
+
 }
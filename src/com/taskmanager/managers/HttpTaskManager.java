@@ -7,6 +7,7 @@ import com.taskmanager.tasks.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.logging.Logger;
 
 /**
@@ -24,7 +25,10 @@ public class HttpTaskManager extends FileBackedTaskManager {
 
 
     @Override
-    protected void save() {
+    protected synchronized void save() {
+        if (savingDeferred) {
+            return;
+        }
         if (kvTaskClient == null) {
             LOGGER.warning("KVTaskClient not initialized. Skipping save.");
             return;
@@ -56,15 +60,16 @@ public class HttpTaskManager extends FileBackedTaskManager {
             }
         }
 
-        if (!historyManager.getHistory().isEmpty()) {
-            String jsonHistory = gson.toJson(historyManager.getHistory());
+        List<Task> history = persistentHistory().getHistory();
+        if (!history.isEmpty()) {
+            String jsonHistory = gson.toJson(history);
             kvTaskClient.put("History", jsonHistory);
 
             LOGGER.info("Saved: " + jsonHistory);
 
         }
 
-        String jsonId = gson.toJson(nextId);
+        String jsonId = gson.toJson(nextId.get());
         kvTaskClient.put("NextId", jsonId);
         LOGGER.info("Last saved ID: " + jsonId);
     }
@@ -81,13 +86,15 @@ public class HttpTaskManager extends FileBackedTaskManager {
             LOGGER.info("KVTaskClient initialized on port " + kvServerPort);
         }
 
+        HttpTaskManager manager = new HttpTaskManager();
         String jsonNextId = kvTaskClient.load("NextId");
 
         if (!jsonNextId.isBlank() && !jsonNextId.equals("1")) {
             JsonElement jsonElementNextId = JsonParser.parseString(jsonNextId);
-            nextId = jsonElementNextId.getAsInt();
+            int loadedNextId = jsonElementNextId.getAsInt();
+            manager.setNextId(loadedNextId);
 
-            for (int i = 1; i < nextId; i++) {
+            for (int i = 1; i < loadedNextId; i++) {
                 String jsonElementString = kvTaskClient.load("ID_" + i);
 
                 if (!jsonElementString.isBlank()) {
@@ -108,15 +115,30 @@ public class HttpTaskManager extends FileBackedTaskManager {
                     switch (taskType) {
                         case "TASK":
                             Task task = gson.fromJson(jsonObjectSomeTask, Task.class);
-                            tasks.put(task.getId(), task);
+                            manager.internStrings(task);
+                            manager.tasks.put(task.getId(), task);
+                            manager.addToIndexes(task);
                             break;
                         case "EPIC":
                             Epic epic = gson.fromJson(jsonObjectSomeTask, Epic.class);
-                            epics.put(epic.getId(), epic);
+                            manager.internStrings(epic);
+                            manager.subtaskIdsByEpic.computeIfAbsent(epic.getId(),
+                                    key -> new ConcurrentSkipListSet<>());
+                            manager.epics.put(epic.getId(), epic);
+                            manager.statusIndex.put(epic);
                             break;
                         case "SUBTASK":
                             Subtask subtask = gson.fromJson(jsonObjectSomeTask, Subtask.class);
-                            subtasks.put(subtask.getId(), subtask);
+                            manager.internStrings(subtask);
+                            manager.subtasks.put(subtask.getId(), subtask);
+                            manager.addToIndexes(subtask);
+                            manager.linkSubtask(subtask.getIdEpic(), subtask.getId());
+
+                            // the epic holds its own deserialized copy, replace it with the stored instance
+                            Epic parentEpic = manager.epics.get(subtask.getIdEpic());
+                            if (parentEpic != null) {
+                                parentEpic.replaceSubtask(subtask.getId(), subtask);
+                            }
                             break;
                         default:
                             LOGGER.warning("Error! Received incorrect task type.");
@@ -133,10 +155,10 @@ public class HttpTaskManager extends FileBackedTaskManager {
                 }.getType());
 
                 for (Task task : history) {
-                    historyManager.add(task);
+                    manager.historyManager.add(task);
                 }
             }
         }
-        return new HttpTaskManager();
+        return manager;
     }
 }
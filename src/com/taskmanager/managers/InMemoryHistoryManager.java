@@ -3,148 +3,381 @@ package com.taskmanager.managers;
 import com.taskmanager.tasks.*;
 
 import java.util.*;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * InMemoryHistoryManager provides a custom linked-list-based implementation
+ * InMemoryHistoryManager provides an array-based linked-list implementation
  * of the {@link HistoryManager} interface.
  * <p>
  * It efficiently supports:
  * - Adding tasks to the end of history (with duplicates removed).
  * - Removing tasks by ID in O(1) time.
- * - Retrieving task history in insertion order.
+ * - Retrieving task history in insertion order, or only its most recent part, newest first.
+ * - Keeping at most a given number of tasks, evicting the least recently viewed one in O(1).
+ * </p>
+ * <p>
+ * The list is intrusive and kept in preallocated {@code int} arrays (see {@link ArrayLinkedList}),
+ * so viewing a task already in the history allocates nothing. A bounded history allocates the arrays
+ * for its capacity up front and never grows them; an unbounded one grows them while the history grows.
+ * </p>
+ * <p>
+ * Public operations are synchronized, so one history can be shared by concurrent requests.
  * </p>
  */
 public class InMemoryHistoryManager implements HistoryManager {
 
     private static final Logger LOGGER = Logger.getLogger(InMemoryHistoryManager.class.getName());
-    private final CustomLinkedList history = new CustomLinkedList();
+    /** Capacity of a history that is never trimmed. */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final ArrayLinkedList history;
+    private final int capacity;
+
+    /** Creates an unbounded history. */
+    public InMemoryHistoryManager() {
+        this(UNBOUNDED);
+    }
+
+    /**
+     * Creates a history keeping at most {@code capacity} tasks; viewing one more task
+     * evicts the task viewed least recently. Memory for {@code capacity} tasks is allocated at once.
+     */
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.history = new ArrayLinkedList(capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
 
     @Override
-    public void add(Task task) {
+    public synchronized void add(Task task) {
         if (task == null) {
             LOGGER.warning("Attempted to add null task to history.");
             return;
         }
+        if (history.size() == capacity && !history.contains(task.getId())) {
+            int evictedId = history.removeFirst();
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("History is full, evicted task with ID=" + evictedId);
+            }
+        }
         history.linkLast(task);
-        LOGGER.info("Task added to history: " + task);
+        if (LOGGER.isLoggable(Level.FINE)) { // called on every view, so nothing is built unless logged
+            LOGGER.fine("Task added to history: ID=" + task.getId());
+        }
     }
 
     @Override
-    public List<Task> getHistory() {
+    public synchronized List<Task> getHistory() {
         List<Task> tasks = history.getTasks();
-        LOGGER.info("Retrieved history with size=" + tasks.size());
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Retrieved history with size=" + tasks.size());
+        }
         return tasks;
     }
 
     @Override
-    public void remove(int id) {
-        if (history.nodes.get(id) == null) {
-            LOGGER.info("No node with ID=" + id + "found.");
+    public synchronized List<Task> getRecent(int limit, int offset) {
+        if (limit < 0 || offset < 0) {
+            throw new IllegalArgumentException("Limit and offset must not be negative: " + limit + ", " + offset);
+        }
+        return history.getRecent(limit, offset);
+    }
 
-            return;
+    /**
+     * Returns an iterator over the history, most recently viewed first, reading one task per step.
+     * The iterator is fail-fast: once the history changes, it throws {@link ConcurrentModificationException}.
+     */
+    @Override
+    public Iterator<Task> recentIterator() {
+        synchronized (this) {
+            return new RecentIterator(history.last, history.modCount);
+        }
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        if (!history.remove(id) && LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("No task with ID=" + id + " in history.");
+        }
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<Integer> ids) {
+        for (Integer id : ids) {
+            history.remove(id);
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Removed up to " + ids.size() + " tasks from history");
+        }
+    }
+
+    private class RecentIterator implements Iterator<Task> {
+
+        private final int expectedModCount;
+        private int slot;
+
+        RecentIterator(int slot, int expectedModCount) {
+            this.slot = slot;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return slot != ArrayLinkedList.NONE;
+        }
+
+        @Override
+        public Task next() {
+            synchronized (InMemoryHistoryManager.this) {
+                if (history.modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (slot == ArrayLinkedList.NONE) {
+                    throw new NoSuchElementException();
+                }
+                Task task = history.tasks[slot];
+                slot = history.prev[slot];
+                return task;
+            }
         }
-        history.removeNode(history.nodes.get(id));
     }
 
-    //-------------------
-    // Custom Linked List
-    //-------------------
-    private static class CustomLinkedList extends LinkedList<Task> {
+    //------------------
+    // Array Linked List
+    //------------------
+
+    /**
+     * Doubly linked list of tasks with unique IDs, stored in slots of parallel arrays:
+     * {@code prev}/{@code next} hold slot numbers instead of node references, and freed slots are reused
+     * through a free list. Slots are found by task ID through an open-addressing hash table of {@code int}s
+     * (linear probing, deletion by backward shift, so no tombstones). Moving an existing task to the end
+     * only rewrites a few array cells.
+     */
+    private static class ArrayLinkedList {
+
+        private static final int NONE = -1;
+        private static final int INITIAL_SLOTS = 16;
+
+        private final int maxSlots;
+        // Per slot
+        private Task[] tasks;
+        private int[] prev;
+        private int[] next; // also links the free list
+        // Hash table from task ID to slot + 1 (0 = empty bucket)
+        private int[] bucketIds;
+        private int[] bucketSlots;
+
+        private int first = NONE;
+        private int last = NONE;
+        private int freeSlot = NONE;
+        private int usedSlots; // slots handed out at least once
+        private int size;
+        private int modCount; // changes of the order, for fail-fast iterators
+
+        /** Allocates all {@code maxSlots} slots, or {@link #INITIAL_SLOTS} for an unbounded list. */
+        ArrayLinkedList(int maxSlots) {
+            this.maxSlots = maxSlots;
+            allocate(maxSlots == UNBOUNDED ? INITIAL_SLOTS : maxSlots);
+        }
+
+        int size() {
+            return size;
+        }
 
-        private final Map<Integer, Node<Task>> nodes = new HashMap<>();
-        private int size = 0;
-        private Node<Task> first;
-        private Node<Task> last;
+        boolean contains(int id) {
+            return slotOf(id) != NONE;
+        }
 
         /**
          * Adds a task to the end of the list.
-         * If the task already exists, it is moved to the end.
+         * If a task with the same ID already exists, it is replaced and moved to the end.
          */
-        public void linkLast(Task task) {
-            if (nodes.containsKey(task.getId())) {
-                removeNode(nodes.get(task.getId()));
+        void linkLast(Task task) {
+            modCount++;
+            int slot = slotOf(task.getId());
+            if (slot == NONE) {
+                slot = takeSlot();
+                insertBucket(task.getId(), slot);
+                size++;
+            } else if (slot != last) {
+                unlink(slot);
+            } else {
+                tasks[slot] = task;
+                return;
             }
-            if (size == 0) {
-                first = null;
-                last = null;
+            tasks[slot] = task;
+            prev[slot] = last;
+            next[slot] = NONE;
+            if (last != NONE) {
+                next[last] = slot;
+            } else {
+                first = slot;
             }
+            last = slot;
+        }
 
-            Node<Task> node = new Node<>(last, task, null);
-
-            if (first == null && last == null) {
-                first = node;
-            }
-            if (last != null) {
-                last.next = node;
+        /**
+         * Removes the task with the given ID; returns false if there is none.
+         */
+        boolean remove(int id) {
+            int slot = slotOf(id);
+            if (slot == NONE) {
+                return false;
             }
+            modCount++;
+            unlink(slot);
+            deleteBucket(id);
+            tasks[slot] = null;
+            next[slot] = freeSlot;
+            freeSlot = slot;
+            size--;
+            return true;
+        }
 
-            last = node;
-            nodes.put(task.getId(), node);
-            size++;
+        /**
+         * Removes the first (least recently added) task and returns its ID.
+         */
+        int removeFirst() {
+            int id = tasks[first].getId();
+            remove(id);
+            return id;
         }
 
         /**
          * Returns all tasks in order as a list.
          */
-        public List<Task> getTasks() {
-            List<Task> viewedTasks = new ArrayList<>();
-
-            if (first == null) {
-                return viewedTasks;
-            }
-
-            for (Node<Task> node = first; node != null; node = node.next) {
-                viewedTasks.add(node.task);
+        List<Task> getTasks() {
+            List<Task> viewedTasks = new ArrayList<>(size);
+            for (int slot = first; slot != NONE; slot = next[slot]) {
+                viewedTasks.add(tasks[slot]);
             }
             return viewedTasks;
         }
 
         /**
-         * Removes a node from the linked list.
+         * Returns up to {@code limit} tasks from the end backwards, skipping the last {@code offset}.
          */
-        private void removeNode(Node<Task> node) {
+        List<Task> getRecent(int limit, int offset) {
+            List<Task> recentTasks = new ArrayList<>(Math.max(0, Math.min(limit, size - offset)));
+            int slot = last;
+            for (int skipped = 0; skipped < offset && slot != NONE; skipped++) {
+                slot = prev[slot];
+            }
+            for (; slot != NONE && recentTasks.size() < limit; slot = prev[slot]) {
+                recentTasks.add(tasks[slot]);
+            }
+            return recentTasks;
+        }
 
-            if (node == null) {
-                return;
+        private void unlink(int slot) {
+            if (prev[slot] != NONE) {
+                next[prev[slot]] = next[slot];
+            } else {
+                first = next[slot];
+            }
+            if (next[slot] != NONE) {
+                prev[next[slot]] = prev[slot];
+            } else {
+                last = prev[slot];
             }
+        }
 
-            if (node == first && node.next != null) {
-                Node<Task> nextNode = node.next;
-                nextNode.prev = null;
-                first = nextNode;
+        private int takeSlot() {
+            if (freeSlot != NONE) {
+                int slot = freeSlot;
+                freeSlot = next[slot];
+                return slot;
+            }
+            if (usedSlots == tasks.length) {
+                grow();
+            }
+            return usedSlots++;
+        }
 
-            } else if (node == first && node.next == null) {
-                first = null;
-                last = null;
+        //-----------
+        // Hash table
+        //-----------
 
-            } else if (node == last && node.prev != null) {
-                Node<Task> prevNode = node.prev;
-                prevNode.next = null;
-                last = prevNode;
+        private int bucketOf(int id) {
+            int hash = id * 0x9E3779B9; // spreads sequential IDs
+            return (hash ^ (hash >>> 16)) & (bucketIds.length - 1);
+        }
 
-            } else {
-                Node<Task> nextNode = node.next;
-                nextNode.prev = node.prev;
-                Node<Task> prevNode = node.prev;
-                prevNode.next = node.next;
+        private int slotOf(int id) {
+            int mask = bucketIds.length - 1;
+            for (int bucket = bucketOf(id); bucketSlots[bucket] != 0; bucket = (bucket + 1) & mask) {
+                if (bucketIds[bucket] == id) {
+                    return bucketSlots[bucket] - 1;
+                }
             }
-            size--;
+            return NONE;
         }
 
-        /**
-         * Node class for doubly linked list.
-         */
-        private static class Node<E> {
-            E task;
-            Node<E> next;
-            Node<E> prev;
+        private void insertBucket(int id, int slot) {
+            int mask = bucketIds.length - 1;
+            int bucket = bucketOf(id);
+            while (bucketSlots[bucket] != 0) {
+                bucket = (bucket + 1) & mask;
+            }
+            bucketIds[bucket] = id;
+            bucketSlots[bucket] = slot + 1;
+        }
 
-            Node(Node<E> prev, E task, Node<E> next) {
-                this.task = task;
-                this.next = next;
-                this.prev = prev;
+        /** Empties the bucket of the ID and shifts back the following entries of its probe run. */
+        private void deleteBucket(int id) {
+            int mask = bucketIds.length - 1;
+            int bucket = bucketOf(id);
+            while (bucketIds[bucket] != id || bucketSlots[bucket] == 0) {
+                bucket = (bucket + 1) & mask;
+            }
+            int hole = bucket;
+            for (int current = (hole + 1) & mask; bucketSlots[current] != 0; current = (current + 1) & mask) {
+                int home = bucketOf(bucketIds[current]);
+                // move the entry into the hole unless its home lies cyclically in (hole, current]
+                boolean homeInRange = hole <= current ? hole < home && home <= current
+                        : hole < home || home <= current;
+                if (!homeInRange) {
+                    bucketIds[hole] = bucketIds[current];
+                    bucketSlots[hole] = bucketSlots[current];
+                    hole = current;
+                }
             }
+            bucketSlots[hole] = 0;
+        }
+
+        //-------
+        // Growth
+        //-------
+
+        private void grow() {
+            int slots = (int) Math.min(maxSlots, Math.max(INITIAL_SLOTS, tasks.length * 2L));
+            Task[] oldTasks = tasks;
+            int[] oldPrev = prev;
+            int[] oldNext = next;
+            allocate(slots);
+            System.arraycopy(oldTasks, 0, tasks, 0, oldTasks.length);
+            System.arraycopy(oldPrev, 0, prev, 0, oldPrev.length);
+            System.arraycopy(oldNext, 0, next, 0, oldNext.length);
+            for (int slot = first; slot != NONE; slot = next[slot]) {
+                insertBucket(tasks[slot].getId(), slot);
+            }
+        }
+
+        /** Allocates empty slot arrays and a hash table at most half full when all slots are used. */
+        private void allocate(int slots) {
+            tasks = new Task[slots];
+            prev = new int[slots];
+            next = new int[slots];
+            int buckets = Integer.highestOneBit(Math.max(slots, 2) * 2 - 1) << 1;
+            bucketIds = new int[buckets];
+            bucketSlots = new int[buckets];
         }
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,11 @@ package com.taskmanager.managers;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 
 import com.taskmanager.main_manager.Managers;
 import com.taskmanager.tasks.*;
@@ -12,15 +17,46 @@ import java.util.logging.Logger;
  * In-memory implementation of {@link TaskManager}.
  * Stores Tasks, Epics and Subtasks in collections
  * and provides methods for creation, updating, deletion and validation.
+ * <p>
+ * All state is owned by the instance, so several independent managers can live in one JVM.
+ * The stores are persistent (copy-on-write) tries published atomically, so {@link #getTasks()},
+ * {@link #getEpics()} and {@link #getSubtasks()} return consistent snapshots in O(1) without locking.
+ * IDs come from an atomic counter; compound operations
+ * (time slot validation + insertion, changes of an epic and its subtasks) are guarded by locks,
+ * so one manager can be used from several threads at once.
+ * </p>
+ * <p>
+ * Epics are guarded by striped locks keyed by epic ID: changes of subtasks of different epics
+ * proceed in parallel, while each epic's subtask list, status and time aggregates stay consistent.
+ * Only subtasks with a time slot also take the global schedule index monitor, for the short "validate slot,
+ * then store" step; the priority and status indexes are synchronized on their own.
+ * Lock order is epic stripes (ascending) first, then the schedule index.
+ * </p>
+ * <p>
+ * Names and descriptions of stored tasks are deduplicated through a bounded {@link StringPool},
+ * so tasks created from the same template share their strings whatever path they came from.
+ * </p>
  */
 public class InMemoryTaskManager implements TaskManager {
     private static final Logger LOGGER = Logger.getLogger(InMemoryTaskManager.class.getName());
-
-    protected static final HashMap<Integer, Task> tasks = new HashMap<>();
-    protected static final HashMap<Integer, Epic> epics = new HashMap<>();
-    protected static final HashMap<Integer, Subtask> subtasks = new HashMap<>();
-    protected static int nextId = 1;
-    protected static HistoryManager historyManager = Managers.getDefaultHistory();
+    /** Expected version accepting any stored version, used by unconditional updates. */
+    private static final int ANY_VERSION = -1;
+
+    protected final SnapshotIntMap<Task> tasks = new SnapshotIntMap<>();
+    protected final SnapshotIntMap<Epic> epics = new SnapshotIntMap<>();
+    protected final SnapshotIntMap<Subtask> subtasks = new SnapshotIntMap<>();
+    protected final AtomicInteger nextId = new AtomicInteger(1);
+    /** Subtask IDs of every epic in ascending order, changed under the epic's lock. */
+    protected final IntObjectHashMap<NavigableSet<Integer>> subtaskIdsByEpic = new IntObjectHashMap<>();
+    protected volatile HistoryManager historyManager = Managers.getDefaultHistory();
+
+    /** Schedule index; its monitor also guards "validate time slot, then store" sequences. */
+    protected final IntervalIndex scheduleIndex = new IntervalIndex();
+    protected final PrioritizedIndex prioritizedIndex = new PrioritizedIndex();
+    protected final StatusIndex statusIndex = new StatusIndex();
+    protected final StringPool stringPool = new StringPool(StringPool.DEFAULT_CAPACITY);
+    /** Guard epics' subtask lists and the aggregates calculated from them, striped by epic ID. */
+    private final ReentrantLock[] epicLocks = createEpicLocks();
 
     @Override
     public HistoryManager getHistoryManager() {
@@ -29,12 +65,16 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void createTask(Task task) {
-        if (!isValidDateTime(task)) {
-            LOGGER.warning("DateTime conflict detected. Task not created: " + task);
-            return;
+        synchronized (scheduleIndex) {
+            if (!isValidDateTime(task)) {
+                LOGGER.warning("DateTime conflict detected. Task not created: " + task);
+                return;
+            }
+            task.setId(generateId());
+            internStrings(task);
+            tasks.put(task.getId(), task);
+            addToIndexes(task);
         }
-        task.setId(generateId());
-        tasks.put(task.getId(), task);
         LOGGER.info("Created Task: " + task);
     }
 
@@ -45,285 +85,382 @@ public class InMemoryTaskManager implements TaskManager {
             return;
         }
         epic.setId(generateId());
+        internStrings(epic);
+        subtaskIdsByEpic.put(epic.getId(), new ConcurrentSkipListSet<>());
         epics.put(epic.getId(), epic);
+        statusIndex.put(epic);
         LOGGER.info("Created Epic: " + epic);
     }
 
     @Override
     public void createSubtask(Subtask subtask) throws IllegalArgumentException {
-        if (!isValidDateTime(subtask)) {
-            LOGGER.warning("DateTime conflict detected. Subtask not created: " + subtask);
-            return;
-        }
-        if (!epics.containsKey(subtask.getIdEpic())) {
-            LOGGER.warning("Epic with such ID not exist.");
-            throw new IllegalArgumentException("Epic with such ID not exist.");
+        ReentrantLock lock = epicLock(subtask.getIdEpic());
+        lock.lock();
+        try {
+            internStrings(subtask);
+            Epic epic;
+            if (hasTimeSlot(subtask)) {
+                // only a time slot needs the global monitor: validating and taking it must be atomic
+                synchronized (scheduleIndex) {
+                    if (!isValidDateTime(subtask)) {
+                        LOGGER.warning("DateTime conflict detected. Subtask not created: " + subtask);
+                        return;
+                    }
+                    epic = storeNewSubtask(subtask);
+                }
+            } else if (!isValidDateTime(subtask)) { // negative duration
+                LOGGER.warning("DateTime conflict detected. Subtask not created: " + subtask);
+                return;
+            } else {
+                epic = storeNewSubtask(subtask); // the epic's stripe is enough
+            }
+            linkSubtask(subtask.getIdEpic(), subtask.getId());
+            epic.addSubtask(subtask);
+            checkStatusEpic(epic);
+        } finally {
+            lock.unlock();
         }
-        subtask.setId(generateId());
-        Epic epic = epics.get(subtask.getIdEpic());
-        epic.subtasks.add(subtask);
-        subtasks.put(subtask.getId(), subtask);
-        checkStatusEpic(epic);
-        epic.checkDataTimeDurationEpic();
         LOGGER.info("Created Subtask: " + subtask);
     }
 
     @Override
-    public int generateId() {
-        return nextId++;
+    public List<Task> createTasks(List<Task> newTasks) {
+        List<Task> created;
+        synchronized (scheduleIndex) {
+            created = scheduleIndex.fitting(newTasks);
+            int id = nextId.getAndAdd(created.size());
+            for (Task task : created) {
+                task.setId(id++);
+                internStrings(task);
+                tasks.put(task.getId(), task);
+                addToIndexes(task);
+            }
+        }
+        LOGGER.info("Created " + created.size() + " of " + newTasks.size() + " Tasks in a batch");
+        return created;
     }
 
     @Override
-    public ArrayList<Subtask> getEpicSubtasks(Epic epic) {
-        return epic.subtasks;
-    }
+    public List<Subtask> createSubtasks(List<Subtask> newSubtasks) throws IllegalArgumentException {
+        List<Subtask> created;
+        lockAllEpics();
+        try {
+            for (Subtask subtask : newSubtasks) {
+                if (!epics.containsKey(subtask.getIdEpic())) {
+                    LOGGER.warning("Epic with such ID not exist.");
+                    throw new IllegalArgumentException("Epic with such ID not exist.");
+                }
+            }
 
-    @Override
-    public void checkStatusEpic(Epic epic) {
-        if (epic.subtasks.isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
-        }
+            synchronized (scheduleIndex) {
+                created = scheduleIndex.fitting(newSubtasks);
+                int id = nextId.getAndAdd(created.size());
+                for (Subtask subtask : created) {
+                    subtask.setId(id++);
+                    internStrings(subtask);
+                    subtasks.put(subtask.getId(), subtask);
+                    addToIndexes(subtask);
+                }
+            }
 
-        List<TaskStatus> statuses = new ArrayList<>();
-        for (Subtask subtask : epic.subtasks) {
+            Set<Integer> changedEpicIds = new HashSet<>();
+            for (Subtask subtask : created) {
+                linkSubtask(subtask.getIdEpic(), subtask.getId());
+                epics.get(subtask.getIdEpic()).addSubtask(subtask);
+                changedEpicIds.add(subtask.getIdEpic());
+            }
+            for (Integer epicId : changedEpicIds) {
+                checkStatusEpic(epics.get(epicId));
+            }
+        } finally {
+            unlockAllEpics();
+        }
+        LOGGER.info("Created " + created.size() + " of " + newSubtasks.size() + " Subtasks in a batch");
+        return created;
+    }
 
-            if (subtask.getStatus().equals(TaskStatus.NEW)) {
-                statuses.add(TaskStatus.NEW);
+    @Override
+    public int generateId() {
+        return nextId.getAndIncrement();
+    }
 
-            } else if (subtask.getStatus().equals(TaskStatus.IN_PROGRESS)) {
+    @Override
+    public ArrayList<Subtask> getEpicSubtasks(Epic epic) {
+        NavigableSet<Integer> subtaskIds = subtaskIdsByEpic.get(epic.getId());
+        if (subtaskIds == null) {
+            return new ArrayList<>(epic.subtasks);
+        }
 
-                statuses.add(TaskStatus.IN_PROGRESS);
-            } else if (subtask.getStatus().equals(TaskStatus.DONE)) {
-                statuses.add(TaskStatus.DONE);
+        ArrayList<Subtask> epicSubtasks = new ArrayList<>(subtaskIds.size());
+        for (Integer subtaskId : subtaskIds) {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                epicSubtasks.add(subtask);
             }
         }
+        return epicSubtasks;
+    }
+
+    @Override
+    public void checkStatusEpic(Epic epic) {
+        int newCount = epic.getSubtasksCount(TaskStatus.NEW);
+        int inProgressCount = epic.getSubtasksCount(TaskStatus.IN_PROGRESS);
+        int doneCount = epic.getSubtasksCount(TaskStatus.DONE);
 
-        if (statuses.contains(TaskStatus.NEW) && !(statuses.contains(TaskStatus.IN_PROGRESS))
-                && !(statuses.contains(TaskStatus.DONE))) {
+        if (newCount > 0 && inProgressCount == 0 && doneCount == 0) {
             epic.setStatus(TaskStatus.NEW);
 
-        } else if (!(statuses.contains(TaskStatus.NEW)) && !(statuses.contains(TaskStatus.IN_PROGRESS))
-                && statuses.contains(TaskStatus.DONE)) {
+        } else if (newCount == 0 && inProgressCount == 0 && doneCount > 0) {
             epic.setStatus(TaskStatus.DONE);
 
         } else {
             epic.setStatus(TaskStatus.IN_PROGRESS);
         }
+
+        if (epics.get(epic.getId()) == epic) {
+            statusIndex.put(epic);
+        }
     }
 
     @Override
     public void updateUsualTask(Task task, int id) throws IllegalArgumentException { // Новые данные в существующий ID
-        if (!tasks.containsKey(id)) {
-            throw new IllegalArgumentException("Usual Task with such ID not exist.");
-        }
-        tasks.replace(id, task);
-        task.setId(id);
-        LOGGER.info("Updated Task with ID=" + id);
+        replaceUsualTask(task, id, ANY_VERSION);
     }
 
     @Override
     public void updateEpic(Epic epic, int id) throws IllegalArgumentException { // Новые данные в существующий ID
-        if (!epics.containsKey(id)) {
-            throw new IllegalArgumentException("Epic with such ID not exist.");
-        }
+        replaceEpic(epic, id, ANY_VERSION);
+    }
 
-        ArrayList<Subtask> savedSubtasks = getEpicById(id).subtasks;
-        epics.replace(id, epic);
-        epic.setId(id);
+    @Override
+    public void updateSubtask(Subtask subtask, int id) throws IllegalArgumentException {
+        replaceSubtask(subtask, id, ANY_VERSION);
+    }
 
-        for (Subtask subtask : savedSubtasks) {
-            getEpicById(id).subtasks.add(subtask);
-        }
-        checkStatusEpic(epic);
-        epic.checkDataTimeDurationEpic();
-        LOGGER.info("Updated Subtask with ID=" + id);
+    @Override
+    public boolean updateUsualTask(Task task, int id, int expectedVersion) throws IllegalArgumentException {
+        return replaceUsualTask(task, id, expectedVersion);
     }
 
     @Override
-    public void updateSubtask(Subtask subtask, int id) throws IllegalArgumentException {
-        if (!subtasks.containsKey(id)) {
-            throw new IllegalArgumentException("Subtask with such ID not exist");
-        }
+    public boolean updateEpic(Epic epic, int id, int expectedVersion) throws IllegalArgumentException {
+        return replaceEpic(epic, id, expectedVersion);
+    }
 
-        if (!epics.containsKey(subtask.getIdEpic())) {
-            throw new IllegalArgumentException("Epic with such ID not exist.");
-        }
-        Epic epic = epics.get(subtask.getIdEpic());
-        epic.subtasks.remove(subtasks.get(id));
-        epic.subtasks.add(subtask);
-        subtasks.replace(id, subtask);
-        subtask.setId(id);
-        checkStatusEpic(epic);
-        epic.checkDataTimeDurationEpic();
-        LOGGER.info("Updated Subtask with ID=" + id);
+    @Override
+    public boolean updateSubtask(Subtask subtask, int id, int expectedVersion) throws IllegalArgumentException {
+        return replaceSubtask(subtask, id, expectedVersion);
     }
 
     @Override
     public Task getUsualTaskById(int id) throws IllegalArgumentException {
-        if (!tasks.containsKey(id)) {
+        Task task = tasks.get(id);
+        if (task == null) {
             throw new IllegalArgumentException("Usual Task with such ID not exist.");
         }
-        historyManager.add(tasks.get(id));
-        return tasks.get(id);
+        historyManager.add(task);
+        return task;
     }
 
     @Override
     public Epic getEpicById(int id) throws IllegalArgumentException {
-        if (!epics.containsKey(id)) {
+        Epic epic = epics.get(id);
+        if (epic == null) {
             throw new IllegalArgumentException("Epic with such ID not exist.");
         }
-        historyManager.add(epics.get(id));
-        return epics.get(id);
+        historyManager.add(epic);
+        return epic;
     }
 
     @Override
     public Subtask getSubtaskById(int id) throws IllegalArgumentException {
-        if (!subtasks.containsKey(id)) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask == null) {
             throw new IllegalArgumentException("Subtask with such ID not exist.");
         }
-        historyManager.add(subtasks.get(id));
-        return subtasks.get(id);
+        historyManager.add(subtask);
+        return subtask;
     }
 
     @Override
-    public HashMap<Integer, Task> getTasks() {
-        return tasks;
+    public Map<Integer, Task> getTasks() {
+        return tasks.snapshot();
     }
 
     @Override
-    public HashMap<Integer, Epic> getEpics() {
-        return epics;
+    public Map<Integer, Epic> getEpics() {
+        return epics.snapshot();
     }
 
     @Override
-    public HashMap<Integer, Subtask> getSubtasks() {
-        return subtasks;
+    public Map<Integer, Subtask> getSubtasks() {
+        return subtasks.snapshot();
     }
 
     @Override
-    public TreeSet<Task> getPrioritizedTasks() {
-
-        TreeSet<Task> prioritizedTasks = new TreeSet<>((t1, t2) -> {
-
-            if (t1.getStartTime().isPresent() && t2.getStartTime().isPresent()) {
-
-                if (t1.getStartTime().get().getYear() == t2.getStartTime().get().getYear()) {
-
-                    if (t1.getStartTime().get().getMonthValue() == t2.getStartTime().get().getMonthValue()) {
-
-                        if (t1.getStartTime().get().getDayOfMonth() == t2.getStartTime().get().getDayOfMonth()) {
-
-                            if (t1.getStartTime().get().getHour() == t2.getStartTime().get().getHour()) {
-
-                                if (t1.getStartTime().get().getMinute() == t2.getStartTime().get().getMinute()) {
-
-                                    return -1;
-
-                                }
-                                return t1.getStartTime().get().getMinute() - t2.getStartTime().get().getMinute();
-                            }
-                            return t1.getStartTime().get().getHour() - t2.getStartTime().get().getHour();
-                        }
-                        return t1.getStartTime().get().getDayOfMonth() - t2.getStartTime().get().getDayOfMonth();
-                    }
-                    return t1.getStartTime().get().getMonthValue() - t2.getStartTime().get().getMonthValue();
-                }
-                return t1.getStartTime().get().getYear() - t2.getStartTime().get().getYear();
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        return findByStatus(tasks, TaskType.TASK, status);
+    }
 
-            } else {
-                return -1;
-            }
-        });
+    @Override
+    public List<Epic> getEpicsByStatus(TaskStatus status) {
+        return findByStatus(epics, TaskType.EPIC, status);
+    }
 
-        prioritizedTasks.addAll(tasks.values());
-        prioritizedTasks.addAll(subtasks.values());
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return findByStatus(subtasks, TaskType.SUBTASK, status);
+    }
 
+    @Override
+    public TreeSet<Task> getPrioritizedTasks() {
+        TreeSet<Task> prioritizedTasks = new TreeSet<>(PrioritizedIndex.ORDER);
+        prioritizedTasks.addAll(prioritizedIndex.view());
         return prioritizedTasks;
     }
 
     @Override
-    public boolean isValidDateTime(Task provedTask) {
-
-        if (provedTask.getStartTime().isPresent() && provedTask.getDuration().isPresent()
-                && provedTask.getEndTime().isPresent()) {
+    public Collection<Task> getPrioritizedTasksView() {
+        return prioritizedIndex.view();
+    }
 
-            LocalDateTime provedStartTime = provedTask.getStartTime().get();
-            LocalDateTime provedEndTime = provedTask.getEndTime().get();
-            Duration provedDuration = provedTask.getDuration().get();
+    @Override
+    public List<Task> getTasksInRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Range bounds must not be null.");
+        }
+        long fromMinute = Task.toEpochMinute(from);
+        long toMinute = Task.toEpochMinute(to);
+        if (fromMinute > toMinute) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(prioritizedIndex.range(fromMinute, toMinute));
+    }
 
-            if (!((provedStartTime.isBefore(LocalDateTime.MIN)
-                    && provedStartTime.isAfter(LocalDateTime.MAX) && provedEndTime.isBefore(LocalDateTime.MIN)
-                    && provedEndTime.isAfter(LocalDateTime.MAX)) || provedDuration.isNegative())) {
+    @Override
+    public boolean isValidDateTime(Task provedTask) {
+        long provedStartMinute = provedTask.getStartMinute();
+        long provedDurationMinutes = provedTask.getDurationMinutes();
+        long provedEndMinute = provedTask.getEndMinute();
 
-                TreeSet<Task> prioritizedTasks = getPrioritizedTasks();
-                for (Task task : prioritizedTasks) {
+        if (provedStartMinute != Task.NO_TIME && provedDurationMinutes != Task.NO_TIME
+                && provedEndMinute != Task.NO_TIME) {
 
-                    if (task.getStartTime().isPresent() && task.getDuration().isPresent()
-                            && task.getEndTime().isPresent()) {
+            if (provedDurationMinutes >= 0) {
+                return !scheduleIndex.overlaps(provedStartMinute, provedEndMinute);
+            }
+            return false;
+        }
+        return true;
+    }
 
-                        LocalDateTime taskStartTime = task.getStartTime().get();
-                        LocalDateTime taskEndTime = task.getEndTime().get();
+    @Override
+    public LocalDateTime findFreeSlot(LocalDateTime earliestStart, Duration duration) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Duration must not be negative.");
+        }
+        long earliestMinute = Task.toEpochMinute(earliestStart);
+        if (!earliestStart.equals(Task.fromEpochMinute(earliestMinute))) {
+            earliestMinute++; // tasks start at whole minutes
+        }
+        long durationMinutes = duration.toMinutes();
+        if (durationMinutes > Task.MAX_EPOCH_MINUTE - earliestMinute) {
+            throw new IllegalArgumentException("Duration too long: the slot would end after " + LocalDateTime.MAX);
+        }
+        long startMinute = scheduleIndex.findFreeSlot(earliestMinute, durationMinutes);
+        if (startMinute > Task.MAX_EPOCH_MINUTE - durationMinutes) {
+            throw new IllegalArgumentException("No free slot of this duration before " + LocalDateTime.MAX);
+        }
+        return Task.fromEpochMinute(startMinute);
+    }
 
-                        if (!((provedStartTime.isBefore(taskStartTime) && provedEndTime.isBefore(taskStartTime))
-                                || (provedStartTime.isAfter(taskEndTime) && provedEndTime.isAfter(taskEndTime)))) {
-                            return false;
-                        }
-                    }
+    @Override
+    public List<List<Task>> findConflicts() {
+        List<List<Task>> conflicts = new ArrayList<>();
+        synchronized (scheduleIndex) { // keeps the stores in line with the index while resolving IDs
+            for (int[] group : scheduleIndex.conflictGroups()) {
+                List<Task> conflict = new ArrayList<>(group.length);
+                for (int id : group) {
+                    Task task = tasks.get(id);
+                    conflict.add(task != null ? task : subtasks.get(id));
                 }
-                return true;
+                conflicts.add(conflict);
             }
-            return false;
         }
-        return true;
+        return conflicts;
     }
 
     @Override
     public void deleteTaskById(int id) throws IllegalArgumentException {
-        if (!tasks.containsKey(id)) {
-            throw new IllegalArgumentException("Task with such ID not exist.");
+        synchronized (scheduleIndex) {
+            if (tasks.remove(id) == null) {
+                throw new IllegalArgumentException("Task with such ID not exist.");
+            }
+            removeFromIndexes(id);
         }
-        tasks.remove(id);
         historyManager.remove(id);
         LOGGER.info("Deleted Task with ID=" + id);
     }
 
     @Override
     public void deleteEpicById(int id) throws IllegalArgumentException {
-        if (!epics.containsKey(id)) {
-            throw new IllegalArgumentException("Epic with such ID not exist.");
-        }
+        ReentrantLock lock = epicLock(id);
+        lock.lock();
+        try {
+            Epic epic = epics.remove(id);
+            if (epic == null) {
+                throw new IllegalArgumentException("Epic with such ID not exist.");
+            }
+            statusIndex.remove(id);
 
-        List<Integer> subtasksIdsToDelete = new ArrayList<>();
-        for (Subtask subtask : subtasks.values()) {
-            if (subtask.getIdEpic() == id) {
-                subtasksIdsToDelete.add(subtask.getId());
+            Set<Integer> subtasksIdsToDelete = subtaskIdsByEpic.remove(id);
+            if (subtasksIdsToDelete == null) {
+                subtasksIdsToDelete = Collections.emptySet();
             }
-        }
 
-        for (Integer subtaskIdToDelete : subtasksIdsToDelete) {
-            subtasks.remove(subtaskIdToDelete);
-            historyManager.remove(subtaskIdToDelete);
-        }
+            synchronized (scheduleIndex) {
+                for (Integer subtaskIdToDelete : subtasksIdsToDelete) {
+                    subtasks.remove(subtaskIdToDelete);
+                    removeFromIndexes(subtaskIdToDelete);
+                    historyManager.remove(subtaskIdToDelete);
+                }
+            }
 
-        epics.get(id).subtasks.clear();
-        epics.remove(id);
+            epic.subtasks.clear();
+        } finally {
+            lock.unlock();
+        }
         historyManager.remove(id);
         LOGGER.info("Deleted Epic with ID=" + id);
     }
 
     @Override
     public void deleteSubtaskById(int id) throws IllegalArgumentException {
-        if (!subtasks.containsKey(id)) {
-            throw new IllegalArgumentException("Subtask with such ID not exist.");
-        }
+        while (true) {
+            Subtask subtask = subtasks.get(id);
+            if (subtask == null) {
+                throw new IllegalArgumentException("Subtask with such ID not exist.");
+            }
 
-        Epic epic = epics.get(subtasks.get(id).getIdEpic());
-        epic.subtasks.remove(subtasks.get(id));
-        subtasks.remove(id);
-        historyManager.remove(id);
+            ReentrantLock lock = epicLock(subtask.getIdEpic());
+            lock.lock();
+            try {
+                if (!removeStoredSubtask(id, subtask)) {
+                    continue; // changed concurrently, retry with the actual subtask
+                }
+                historyManager.remove(id);
+                unlinkSubtask(subtask.getIdEpic(), id);
 
-        checkStatusEpic(epic);
-        epic.checkDataTimeDurationEpic();
+                Epic epic = epics.get(subtask.getIdEpic());
+                if (epic != null) {
+                    epic.removeSubtask(id);
+                    checkStatusEpic(epic);
+                }
+            } finally {
+                lock.unlock();
+            }
+            break;
+        }
         LOGGER.info("Deleted Subtask with ID=" + id);
     }
 
@@ -333,10 +470,13 @@ public class InMemoryTaskManager implements TaskManager {
             LOGGER.info("List of Tasks is already empty.");
         }
 
-        for (Task task : tasks.values()) {
-            historyManager.remove(task.getId());
+        synchronized (scheduleIndex) {
+            for (Integer taskId : tasks.keySet()) {
+                removeFromIndexes(taskId);
+                historyManager.remove(taskId);
+            }
+            tasks.clear();
         }
-        tasks.clear();
         LOGGER.info("All Tasks cleared.");
     }
 
@@ -347,11 +487,18 @@ public class InMemoryTaskManager implements TaskManager {
 
         }
 
-        for (Epic epic : epics.values()) {
-            historyManager.remove(epic.getId());
+        lockAllEpics();
+        try {
+            for (Integer epicId : epics.keySet()) {
+                statusIndex.remove(epicId);
+                historyManager.remove(epicId);
+            }
+            epics.clear();
+            deleteAllSubtasks();
+            subtaskIdsByEpic.clear();
+        } finally {
+            unlockAllEpics();
         }
-        epics.clear();
-        deleteAllSubtasks();
         LOGGER.info("All Epics and Subtasks cleared.");
     }
 
@@ -361,15 +508,25 @@ public class InMemoryTaskManager implements TaskManager {
             LOGGER.info("List of Subtasks is already empty.");
         }
 
-        for (Subtask subtask : subtasks.values()) {
-            historyManager.remove(subtask.getId());
-        }
-        subtasks.clear();
+        lockAllEpics();
+        try {
+            synchronized (scheduleIndex) {
+                for (Integer subtaskId : subtasks.keySet()) {
+                    removeFromIndexes(subtaskId);
+                    historyManager.remove(subtaskId);
+                }
+                subtasks.clear();
+            }
 
-        for (Epic epic : epics.values()) {
-            epic.subtasks.clear();
-            checkStatusEpic(epic);
-            epic.checkDataTimeDurationEpic();
+            for (NavigableSet<Integer> subtaskIds : subtaskIdsByEpic.values()) {
+                subtaskIds.clear();
+            }
+            for (Epic epic : epics.values()) {
+                epic.clearSubtasks();
+                checkStatusEpic(epic);
+            }
+        } finally {
+            unlockAllEpics();
         }
         LOGGER.info("All Subtasks cleared.");
     }
@@ -381,6 +538,391 @@ public class InMemoryTaskManager implements TaskManager {
         LOGGER.info("All tasks of all types cleared.");
     }
 
+    @Override
+    public int deleteTasksIf(Predicate<? super Task> filter) {
+        List<Integer> deletedIds = new ArrayList<>();
+        synchronized (scheduleIndex) {
+            for (Task task : tasks.snapshot().values()) {
+                if (filter.test(task) && tasks.remove(task.getId(), task)) {
+                    removeFromIndexes(task.getId());
+                    deletedIds.add(task.getId());
+                }
+            }
+        }
+        historyManager.removeAll(deletedIds);
+        LOGGER.info("Deleted " + deletedIds.size() + " Tasks matching the filter");
+        return deletedIds.size();
+    }
+
+    @Override
+    public int deleteSubtasksIf(Predicate<? super Subtask> filter) {
+        List<Integer> deletedIds = new ArrayList<>();
+        Map<Integer, List<Integer>> deletedIdsByEpic = new HashMap<>();
+        lockAllEpics();
+        try {
+            synchronized (scheduleIndex) {
+                for (Subtask subtask : subtasks.snapshot().values()) {
+                    if (filter.test(subtask) && subtasks.remove(subtask.getId(), subtask)) {
+                        removeFromIndexes(subtask.getId());
+                        deletedIds.add(subtask.getId());
+                        deletedIdsByEpic.computeIfAbsent(subtask.getIdEpic(), key -> new ArrayList<>())
+                                .add(subtask.getId());
+                    }
+                }
+            }
+
+            for (Map.Entry<Integer, List<Integer>> entry : deletedIdsByEpic.entrySet()) {
+                for (Integer subtaskId : entry.getValue()) {
+                    unlinkSubtask(entry.getKey(), subtaskId);
+                }
+                Epic epic = epics.get(entry.getKey());
+                if (epic != null) {
+                    epic.removeSubtasks(entry.getValue());
+                    checkStatusEpic(epic);
+                }
+            }
+        } finally {
+            unlockAllEpics();
+        }
+        historyManager.removeAll(deletedIds);
+        LOGGER.info("Deleted " + deletedIds.size() + " Subtasks matching the filter");
+        return deletedIds.size();
+    }
+
+    /**
+     * Holds all epic stripes and the schedule index for the whole commit. The operations are applied
+     * through the usual methods, whose locks are reentrant. Lock-free readers of the stores
+     * may still observe the operations one by one.
+     */
+    @Override
+    public List<Task> commit(Transaction transaction) {
+        List<Task> created;
+        lockAllEpics();
+        try {
+            synchronized (scheduleIndex) {
+                transaction.validate(new TransactionStore());
+                created = transaction.apply(this);
+            }
+        } finally {
+            unlockAllEpics();
+        }
+        LOGGER.info("Committed transaction of " + transaction.size() + " operations");
+        return created;
+    }
+
+    //--------------------------------
+    // Updates, optionally conditional
+    //--------------------------------
+
+    /**
+     * Replaces a usual task under the schedule index monitor, if its version is the expected one
+     * (or {@code expectedVersion} is {@link #ANY_VERSION}); the new task gets the next version.
+     */
+    private boolean replaceUsualTask(Task task, int id, int expectedVersion) {
+        synchronized (scheduleIndex) {
+            Task savedTask = tasks.get(id);
+            if (savedTask == null) {
+                throw new IllegalArgumentException("Usual Task with such ID not exist.");
+            }
+            if (isOutdated(savedTask, expectedVersion)) {
+                return false;
+            }
+            internStrings(task);
+            task.setVersion(savedTask.getVersion() + 1);
+            tasks.replace(id, task);
+            task.setId(id);
+            addToIndexes(task);
+        }
+        LOGGER.info("Updated Task with ID=" + id);
+        return true;
+    }
+
+    /** Same as {@link #replaceUsualTask} for epics, under the epic's lock. */
+    private boolean replaceEpic(Epic epic, int id, int expectedVersion) {
+        ReentrantLock lock = epicLock(id);
+        lock.lock();
+        try {
+            Epic savedEpic = epics.get(id);
+            if (savedEpic == null) {
+                throw new IllegalArgumentException("Epic with such ID not exist.");
+            }
+            if (isOutdated(savedEpic, expectedVersion)) {
+                return false;
+            }
+            ArrayList<Subtask> savedSubtasks = savedEpic.subtasks;
+            internStrings(epic);
+            epic.setVersion(savedEpic.getVersion() + 1);
+            epics.replace(id, epic);
+            epic.setId(id);
+            historyManager.add(epic);
+
+            epic.subtasks.addAll(savedSubtasks);
+            epic.checkDataTimeDurationEpic();
+            checkStatusEpic(epic);
+        } finally {
+            lock.unlock();
+        }
+        LOGGER.info("Updated Epic with ID=" + id);
+        return true;
+    }
+
+    /** Same as {@link #replaceUsualTask} for subtasks, under the locks of the old and the new epic. */
+    private boolean replaceSubtask(Subtask subtask, int id, int expectedVersion) {
+        while (true) {
+            Subtask savedSubtask = subtasks.get(id);
+            if (savedSubtask == null) {
+                throw new IllegalArgumentException("Subtask with such ID not exist");
+            }
+
+            lockEpics(savedSubtask.getIdEpic(), subtask.getIdEpic());
+            try {
+                if (subtasks.get(id) != savedSubtask) {
+                    continue; // changed concurrently, retry with the actual subtask
+                }
+                if (isOutdated(savedSubtask, expectedVersion)) {
+                    return false;
+                }
+
+                Epic epic = epics.get(subtask.getIdEpic());
+                if (epic == null) {
+                    throw new IllegalArgumentException("Epic with such ID not exist.");
+                }
+                Epic savedEpic = epics.get(savedSubtask.getIdEpic());
+                internStrings(subtask);
+                subtask.setVersion(savedSubtask.getVersion() + 1);
+                synchronized (scheduleIndex) {
+                    subtasks.replace(id, subtask);
+                    subtask.setId(id);
+                    addToIndexes(subtask);
+                }
+                if (savedEpic == epic) {
+                    epic.replaceSubtask(id, subtask);
+                } else {
+                    unlinkSubtask(savedSubtask.getIdEpic(), id);
+                    if (savedEpic != null) {
+                        savedEpic.removeSubtask(id);
+                        checkStatusEpic(savedEpic);
+                    }
+                    linkSubtask(subtask.getIdEpic(), id);
+                    epic.addSubtask(subtask);
+                }
+                checkStatusEpic(epic);
+            } finally {
+                unlockEpics(savedSubtask.getIdEpic(), subtask.getIdEpic());
+            }
+            break;
+        }
+        LOGGER.info("Updated Subtask with ID=" + id);
+        return true;
+    }
+
+    private static boolean isOutdated(Task savedTask, int expectedVersion) {
+        if (expectedVersion == ANY_VERSION || savedTask.getVersion() == expectedVersion) {
+            return false;
+        }
+        LOGGER.info("Task with ID=" + savedTask.getId() + " not updated: version " + savedTask.getVersion()
+                + ", expected " + expectedVersion);
+        return true;
+    }
+
+    //-------------------
+    // Epic lock striping
+    //-------------------
+
+    private static ReentrantLock[] createEpicLocks() {
+        int stripes = Integer.highestOneBit(Math.max(16, Runtime.getRuntime().availableProcessors() * 4) - 1) << 1;
+        ReentrantLock[] locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private int stripeOf(int epicId) {
+        int hash = epicId * 0x9E3779B9; // spreads sequential IDs over the stripes
+        return (hash ^ (hash >>> 16)) & (epicLocks.length - 1);
+    }
+
+    /** Returns the lock guarding the epic with the given ID. */
+    private ReentrantLock epicLock(int epicId) {
+        return epicLocks[stripeOf(epicId)];
+    }
+
+    /** Locks the stripes of two epics in ascending order to avoid deadlocks. */
+    private void lockEpics(int epicId1, int epicId2) {
+        int stripe1 = stripeOf(epicId1);
+        int stripe2 = stripeOf(epicId2);
+        epicLocks[Math.min(stripe1, stripe2)].lock();
+        if (stripe1 != stripe2) {
+            epicLocks[Math.max(stripe1, stripe2)].lock();
+        }
+    }
+
+    private void unlockEpics(int epicId1, int epicId2) {
+        int stripe1 = stripeOf(epicId1);
+        int stripe2 = stripeOf(epicId2);
+        if (stripe1 != stripe2) {
+            epicLocks[Math.max(stripe1, stripe2)].unlock();
+        }
+        epicLocks[Math.min(stripe1, stripe2)].unlock();
+    }
+
+    /** Locks every stripe, used by operations spanning all epics. */
+    private void lockAllEpics() {
+        for (ReentrantLock lock : epicLocks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAllEpics() {
+        for (int i = epicLocks.length - 1; i >= 0; i--) {
+            epicLocks[i].unlock();
+        }
+    }
+
+    /**
+     * Records the subtask in the epic-to-subtasks index.
+     */
+    protected void linkSubtask(int epicId, int subtaskId) {
+        subtaskIdsByEpic.computeIfAbsent(epicId, key -> new ConcurrentSkipListSet<>()).add(subtaskId);
+    }
+
+    /**
+     * Drops the subtask from the epic-to-subtasks index.
+     */
+    protected void unlinkSubtask(int epicId, int subtaskId) {
+        NavigableSet<Integer> subtaskIds = subtaskIdsByEpic.get(epicId);
+        if (subtaskIds != null) {
+            subtaskIds.remove(subtaskId);
+        }
+    }
+
+    /**
+     * Replaces the name and description of a task about to be stored with their pooled instances.
+     * Must be called on every path storing a task, including loading. Lazy descriptions are left lazy.
+     */
+    protected void internStrings(Task task) {
+        task.setName(stringPool.intern(task.getName()));
+        if (task.isDescriptionLoaded()) {
+            task.setDescription(stringPool.intern(task.getDescription()));
+        }
+    }
+
+    /**
+     * Registers a usual task or subtask in the priority, schedule and status indexes.
+     * Must be called whenever such a task is stored or replaced. Every index is synchronized on its own;
+     * callers storing a task with a time slot hold the schedule index monitor around validation and storing.
+     */
+    protected void addToIndexes(Task task) {
+        prioritizedIndex.put(task);
+        statusIndex.put(task);
+        if (hasTimeSlot(task)) {
+            scheduleIndex.put(task.getId(), task.getStartMinute(), task.getEndMinute());
+        } else if (scheduleIndex.contains(task.getId())) { // tasks without a slot do not touch the monitor
+            scheduleIndex.remove(task.getId());
+        }
+    }
+
+    /**
+     * Drops a usual task or subtask from the priority, schedule and status indexes.
+     */
+    protected void removeFromIndexes(int id) {
+        prioritizedIndex.remove(id);
+        statusIndex.remove(id);
+        if (scheduleIndex.contains(id)) {
+            scheduleIndex.remove(id);
+        }
+    }
+
+    /** Returns true if the task takes a slot in the schedule index once stored. */
+    private static boolean hasTimeSlot(Task task) {
+        return task.getStartMinute() != Task.NO_TIME && task.getDurationMinutes() != Task.NO_TIME
+                && task.getEndMinute() != Task.NO_TIME;
+    }
+
+    /**
+     * Stores a validated new subtask under its epic's lock and returns the epic.
+     * A subtask with a time slot must be stored under the schedule index monitor as well.
+     */
+    private Epic storeNewSubtask(Subtask subtask) {
+        Epic epic = epics.get(subtask.getIdEpic());
+        if (epic == null) {
+            LOGGER.warning("Epic with such ID not exist.");
+            throw new IllegalArgumentException("Epic with such ID not exist.");
+        }
+        subtask.setId(generateId());
+        subtasks.put(subtask.getId(), subtask);
+        addToIndexes(subtask);
+        return epic;
+    }
+
+    /**
+     * Removes a stored subtask under its epic's lock, if it is still the stored one. Only a subtask with
+     * a time slot takes the schedule index monitor, which keeps the stores in line with that index.
+     * The epic's lock keeps the subtask's slot from changing meanwhile.
+     */
+    private boolean removeStoredSubtask(int id, Subtask subtask) {
+        if (!scheduleIndex.contains(id)) {
+            if (!subtasks.remove(id, subtask)) {
+                return false;
+            }
+            removeFromIndexes(id);
+            return true;
+        }
+        synchronized (scheduleIndex) {
+            if (!subtasks.remove(id, subtask)) {
+                return false;
+            }
+            removeFromIndexes(id);
+            return true;
+        }
+    }
+
+    /**
+     * View of the stored tasks for validating a transaction, used under all locks.
+     */
+    private class TransactionStore implements Transaction.Store {
+
+        @Override
+        public TaskType typeOf(int id) {
+            if (tasks.containsKey(id)) {
+                return TaskType.TASK;
+            } else if (epics.containsKey(id)) {
+                return TaskType.EPIC;
+            } else if (subtasks.containsKey(id)) {
+                return TaskType.SUBTASK;
+            }
+            return null;
+        }
+
+        @Override
+        public Collection<Integer> subtaskIdsOf(int epicId) {
+            NavigableSet<Integer> subtaskIds = subtaskIdsByEpic.get(epicId);
+            return subtaskIds == null ? Collections.emptySet() : subtaskIds;
+        }
+
+        @Override
+        public boolean overlaps(long start, long end, IntPredicate ignored) {
+            return scheduleIndex.overlaps(start, end, ignored);
+        }
+    }
+
+    /**
+     * Collects stored tasks listed in the status index. The status is checked again,
+     * since a task may have been re-indexed after its ID was read.
+     */
+    private <T extends Task> List<T> findByStatus(SnapshotIntMap<T> store, TaskType type, TaskStatus status) {
+        NavigableSet<Integer> ids = statusIndex.ids(type, status);
+        List<T> found = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            T task = store.get((int) id);
+            if (task != null && task.getStatus() == status) {
+                found.add(task);
+            }
+        }
+        return found;
+    }
+
     @Override
     public String toString() {
         return "AllTasks{" + "\n" +
@@ -392,11 +934,11 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void setNextId(int nextId) {
-        InMemoryTaskManager.nextId = nextId;
+        this.nextId.set(nextId);
     }
 
     @Override
     public void setHistoryManager(HistoryManager historyManager) {
-        InMemoryTaskManager.historyManager = historyManager;
+        this.historyManager = historyManager;
     }
 }
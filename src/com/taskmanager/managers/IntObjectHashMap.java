@@ -0,0 +1,381 @@
+package com.taskmanager.managers;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Hash map with primitive {@code int} keys, based on open addressing with linear probing.
+ * <p>
+ * Keys are stored in an {@code int[]} and values in a parallel {@code Object[]}, so lookups by ID
+ * do not box the key and entries do not need node objects. Removed slots are marked with a tombstone
+ * and reclaimed when the table is rehashed. {@code null} values are not allowed.
+ * </p>
+ * <p>
+ * The map is thread-safe: writers take a write lock, readers use optimistic reads and fall back
+ * to a read lock only if a write happened concurrently. Iteration works on a snapshot taken
+ * when the iterator is created.
+ * </p>
+ * <p>
+ * The {@link java.util.Map} methods with boxed keys are supported, so the map can be exposed
+ * as {@code Map<Integer, V>}; hot paths should use the {@code int} overloads.
+ * </p>
+ *
+ * @param <V> type of values
+ */
+class IntObjectHashMap<V> extends AbstractMap<Integer, V> {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final Object REMOVED = new Object();
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private volatile int size;
+    /** Number of slots that are not empty, including tombstones. */
+    private int used;
+
+    //-----------------
+    // Primitive access
+    //-----------------
+
+    V get(int key) {
+        long stamp = lock.tryOptimisticRead();
+        V value = find(table, key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = find(table, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    V put(int key, V value) {
+        Objects.requireNonNull(value);
+        long stamp = lock.writeLock();
+        try {
+            return insert(key, value, true);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    V remove(int key) {
+        long stamp = lock.writeLock();
+        try {
+            return delete(key, null);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    V computeIfAbsent(int key, IntFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        long stamp = lock.writeLock();
+        try {
+            value = find(table, key);
+            if (value == null) {
+                value = Objects.requireNonNull(mappingFunction.apply(key));
+                insert(key, value, true);
+            }
+            return value;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    //-----------------------------
+    // Map methods with boxed keys
+    //-----------------------------
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ? get((int) (Integer) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put((int) key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer ? remove((int) (Integer) key) : null;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (!(key instanceof Integer) || value == null) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            return delete((Integer) key, value) != null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public V replace(Integer key, V value) {
+        Objects.requireNonNull(value);
+        long stamp = lock.writeLock();
+        try {
+            return insert(key, value, false);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(Integer key, Function<? super Integer, ? extends V> mappingFunction) {
+        return computeIfAbsent((int) key, mappingFunction::apply);
+    }
+
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            table = new Table(MIN_CAPACITY);
+            size = 0;
+            used = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                return new SnapshotIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                IntObjectHashMap.this.clear();
+            }
+        };
+    }
+
+    //-----------
+    // Internals
+    //-----------
+
+    static int slotOf(int key, int mask) { // package-private for tests of colliding keys
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V find(Table table, int key) {
+        Object[] values = table.values;
+        int[] keys = table.keys;
+        int mask = values.length - 1;
+        int slot = slotOf(key, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            Object value = values[slot];
+            if (value == null) {
+                return null;
+            }
+            if (value != REMOVED && keys[slot] == key) {
+                return (V) value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /** Must be called under the write lock. */
+    @SuppressWarnings("unchecked")
+    private V insert(int key, V value, boolean allowNew) {
+        Table current = table;
+        int mask = current.values.length - 1;
+        int slot = slotOf(key, mask);
+        int freeSlot = -1;
+        for (int probes = 0; probes <= mask; probes++) {
+            Object existing = current.values[slot];
+            if (existing == null) {
+                break;
+            }
+            if (existing == REMOVED) {
+                if (freeSlot < 0) {
+                    freeSlot = slot;
+                }
+            } else if (current.keys[slot] == key) {
+                current.values[slot] = value;
+                return (V) existing;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (!allowNew) {
+            return null;
+        }
+
+        if (freeSlot < 0) {
+            freeSlot = slot;
+            used++;
+        }
+        current.keys[freeSlot] = key;
+        current.values[freeSlot] = value;
+        size++;
+
+        if (used * 2 > current.values.length) {
+            rehash();
+        }
+        return null;
+    }
+
+    /** Must be called under the write lock. Removes only if the value matches, when given. */
+    @SuppressWarnings("unchecked")
+    private V delete(int key, Object expectedValue) {
+        Table current = table;
+        int mask = current.values.length - 1;
+        int slot = slotOf(key, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            Object existing = current.values[slot];
+            if (existing == null) {
+                return null;
+            }
+            if (existing != REMOVED && current.keys[slot] == key) {
+                if (expectedValue != null && !expectedValue.equals(existing)) {
+                    return null;
+                }
+                current.values[slot] = REMOVED;
+                size--;
+                return (V) existing;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /** Must be called under the write lock. Drops tombstones and keeps the load factor at most 1/2. */
+    private void rehash() {
+        Table old = table;
+        int capacity = MIN_CAPACITY;
+        while (capacity < size * 3) {
+            capacity <<= 1;
+        }
+
+        Table resized = new Table(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < old.values.length; i++) {
+            Object value = old.values[i];
+            if (value != null && value != REMOVED) {
+                int slot = slotOf(old.keys[i], mask);
+                while (resized.values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                resized.keys[slot] = old.keys[i];
+                resized.values[slot] = value;
+            }
+        }
+        used = size;
+        table = resized;
+    }
+
+    /**
+     * Keys and values of the map, replaced as a whole on rehash.
+     */
+    private static class Table {
+        final int[] keys;
+        final Object[] values;
+
+        Table(int capacity) {
+            this.keys = new int[capacity];
+            this.values = new Object[capacity];
+        }
+    }
+
+    /**
+     * Iterator over the entries present when it was created.
+     */
+    private class SnapshotIterator implements Iterator<Entry<Integer, V>> {
+        private final int[] keys;
+        private final Object[] values;
+        private int next;
+        private int count;
+        private boolean canRemove;
+
+        SnapshotIterator() {
+            long stamp = lock.readLock();
+            try {
+                Table current = table;
+                keys = new int[size];
+                values = new Object[size];
+                for (int i = 0; i < current.values.length; i++) {
+                    Object value = current.values[i];
+                    if (value != null && value != REMOVED) {
+                        keys[count] = current.keys[i];
+                        values[count] = value;
+                        count++;
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<Integer, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            canRemove = true;
+            int index = next++;
+            return new SimpleImmutableEntry<>(keys[index], (V) values[index]);
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            canRemove = false;
+            IntObjectHashMap.this.remove(keys[next - 1]);
+        }
+    }
+}
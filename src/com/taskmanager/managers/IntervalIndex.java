@@ -0,0 +1,356 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Task;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Interval index over the scheduled time slots of tasks and subtasks.
+ * <p>
+ * Implemented as an AVL tree ordered by (start time, task ID), where every node
+ * additionally stores the latest end time found in its subtree. Times are epoch minutes
+ * (see {@link Task#getStartMinute()}), so comparisons do not allocate. This allows answering
+ * "does the interval [start, end] overlap any stored interval?" in O(log n).
+ * </p>
+ * <p>
+ * Intervals are closed on both sides, matching the rules of
+ * {@link TaskManager#isValidDateTime(Task)}:
+ * two tasks touching at the same minute are considered overlapping.
+ * </p>
+ * <p>
+ * All operations except {@link #contains(int)} are synchronized on the index itself.
+ * </p>
+ */
+class IntervalIndex {
+
+    private final IntObjectHashMap<Node> nodesById = new IntObjectHashMap<>();
+    private Node root;
+
+    /**
+     * Adds (or replaces) the interval stored for the given task ID.
+     */
+    synchronized void put(int id, long start, long end) {
+        remove(id);
+        Node node = new Node(id, start, end);
+        root = insert(root, node);
+        nodesById.put(id, node);
+    }
+
+    /**
+     * Removes the interval stored for the given task ID, if any.
+     */
+    synchronized void remove(int id) {
+        Node node = nodesById.remove(id);
+        if (node != null) {
+            root = delete(root, node.start, node.id);
+        }
+    }
+
+    /**
+     * Returns true if an interval is stored for the given task ID. Does not take the index monitor,
+     * so the answer only stays valid while the caller keeps other threads from changing that ID.
+     */
+    boolean contains(int id) {
+        return nodesById.get(id) != null;
+    }
+
+    /**
+     * Checks whether the closed interval [start, end] overlaps any stored interval.
+     */
+    synchronized boolean overlaps(long start, long end) {
+        Node node = root;
+        while (node != null) {
+            if (node.start <= end && node.end >= start) {
+                return true;
+            }
+            if (node.left != null && node.left.maxEnd >= start) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same as {@link #overlaps(long, long)}, leaving out the intervals of IDs matching {@code ignored}.
+     * Every subtree that may hold an overlapping interval is searched, so the cost grows with the number
+     * of ignored intervals in the way.
+     */
+    synchronized boolean overlaps(long start, long end, IntPredicate ignored) {
+        Deque<Node> pending = new ArrayDeque<>();
+        if (root != null) {
+            pending.push(root);
+        }
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            if (node.maxEnd < start) {
+                continue;
+            }
+            if (node.start <= end && node.end >= start && !ignored.test(node.id)) {
+                return true;
+            }
+            if (node.left != null) {
+                pending.push(node.left);
+            }
+            if (node.right != null && node.start <= end) {
+                pending.push(node.right);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the earliest start s >= earliest such that [s, s + duration] overlaps no stored interval.
+     * <p>
+     * Intervals are visited in start order, skipping subtrees whose latest end is before the current
+     * candidate; every blocking interval moves the candidate past its end. The search stops at the first
+     * interval starting after the candidate slot, so it costs O(log n + k) for k intervals in the way.
+     * </p>
+     */
+    synchronized long findFreeSlot(long earliest, long duration) {
+        Deque<Node> path = new ArrayDeque<>();
+        long candidate = earliest;
+        Node node = root;
+        while (node != null || !path.isEmpty()) {
+            while (node != null && node.maxEnd >= candidate) {
+                path.push(node);
+                node = node.left;
+            }
+            if (path.isEmpty()) {
+                break;
+            }
+            node = path.pop();
+            if (node.start - candidate > duration) { // not candidate + duration, which may overflow
+                break;
+            }
+            if (node.end >= candidate) {
+                candidate = node.end + 1;
+            }
+            node = node.right;
+        }
+        return candidate;
+    }
+
+    /**
+     * Returns the IDs of all groups of two or more mutually connected overlapping intervals.
+     * <p>
+     * Sweep line over the intervals in start order (an in-order walk of the tree, so no sorting is needed):
+     * an interval starting no later than the latest end seen in the current group joins the group,
+     * otherwise it starts a new one. Every overlapping pair ends up in the same group. Costs O(n).
+     * </p>
+     */
+    synchronized List<int[]> conflictGroups() {
+        List<int[]> groups = new ArrayList<>();
+        int[] group = new int[4];
+        int groupSize = 0;
+        long groupEnd = Long.MIN_VALUE;
+
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        while (node != null || !path.isEmpty()) {
+            while (node != null) {
+                path.push(node);
+                node = node.left;
+            }
+            node = path.pop();
+
+            if (groupSize > 0 && node.start > groupEnd) {
+                if (groupSize > 1) {
+                    groups.add(Arrays.copyOf(group, groupSize));
+                }
+                groupSize = 0;
+            }
+            if (groupSize == group.length) {
+                group = Arrays.copyOf(group, groupSize * 2);
+            }
+            group[groupSize++] = node.id;
+            groupEnd = groupSize == 1 ? node.end : Math.max(groupEnd, node.end);
+
+            node = node.right;
+        }
+        if (groupSize > 1) {
+            groups.add(Arrays.copyOf(group, groupSize));
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the tasks of a batch that pass {@link TaskManager#isValidDateTime(Task)} against the stored
+     * intervals and against the tasks of the batch accepted before them, in the original batch order.
+     * Nothing is added to the index.
+     * <p>
+     * Tasks are checked in batch order, so the result is the same as creating them one by one: of two
+     * overlapping tasks, the one earlier in the batch is accepted. Accepted intervals never overlap each other,
+     * so they are kept in a map by start, and a task conflicts with the batch only if the accepted interval
+     * starting last at or before its end reaches its start. Costs O(k log k + k log n) for a batch of k tasks.
+     * </p>
+     */
+    synchronized <T extends Task> List<T> fitting(List<T> batch) {
+        NavigableMap<Long, Long> acceptedEnds = new TreeMap<>();
+        List<T> accepted = new ArrayList<>(batch.size());
+        for (T task : batch) {
+            long start = task.getStartMinute();
+            long end = task.getEndMinute();
+            if (start == Task.NO_TIME || task.getDurationMinutes() == Task.NO_TIME || end == Task.NO_TIME) {
+                accepted.add(task);
+                continue;
+            }
+            if (task.getDurationMinutes() < 0) {
+                continue;
+            }
+            Map.Entry<Long, Long> before = acceptedEnds.floorEntry(end);
+            if ((before == null || before.getValue() < start) && !overlaps(start, end)) {
+                acceptedEnds.put(start, end);
+                accepted.add(task);
+            }
+        }
+        return accepted;
+    }
+
+    synchronized int size() {
+        return nodesById.size();
+    }
+
+    synchronized void clear() {
+        nodesById.clear();
+        root = null;
+    }
+
+    //--------------
+    // AVL internals
+    //--------------
+
+    private static int compare(long start1, int id1, long start2, int id2) {
+        int byStart = Long.compare(start1, start2);
+        return byStart != 0 ? byStart : Integer.compare(id1, id2);
+    }
+
+    private static Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (compare(newNode.start, newNode.id, node.start, node.id) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return rebalance(node);
+    }
+
+    private static Node delete(Node node, long start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node.start, node.id);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return rebalance(node);
+    }
+
+    private static Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return rebalance(node);
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node newRoot = node.left;
+        node.left = newRoot.right;
+        newRoot.right = node;
+        update(node);
+        update(newRoot);
+        return newRoot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node newRoot = node.right;
+        node.right = newRoot.left;
+        newRoot.left = node;
+        update(node);
+        update(newRoot);
+        return newRoot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Tree node holding one task interval and the subtree augmentation.
+     */
+    private static class Node {
+        final int id;
+        final long start;
+        final long end;
+        long maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(int id, long start, long end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Descriptions of tasks loaded from a CSV file, read back from the file on demand.
+ * <p>
+ * Instead of its description, a task keeps a loader pointing to the description's bytes in the file
+ * (see {@link Task#setDescriptionLoader}). Recently read descriptions are kept in a bounded LRU cache.
+ * When the file is rewritten, {@link #replaceFile} moves the new file in place and updates the positions
+ * of the descriptions still stored in the manager; descriptions of tasks that were replaced or deleted
+ * meanwhile are read once more and kept by their (detached) task objects.
+ * </p>
+ * <p>
+ * All methods are synchronized, so a description is never read while the file is being replaced.
+ * </p>
+ */
+final class LazyDescriptions {
+
+    private final Path path;
+    private final IntObjectHashMap<Location> locationsById = new IntObjectHashMap<>();
+    private final Map<Location, String> cache;
+
+    LazyDescriptions(Path path, int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + cacheSize);
+        }
+        this.path = path;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Location, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Makes the task's description lazy, read from {@code length} bytes at {@code offset} of the file.
+     */
+    synchronized void attach(Task task, long offset, int length) {
+        Location location = new Location(task, offset, length);
+        locationsById.put(task.getId(), location);
+        task.setDescriptionLoader(() -> read(location));
+    }
+
+    /**
+     * Returns the position of the task's description in the current file, if it is still lazy.
+     * The result is {@code null} for tasks not attached or whose description was set meanwhile.
+     */
+    synchronized Location locationOf(Task task) {
+        Location location = locationsById.get(task.getId());
+        return location != null && location.task == task && !task.isDescriptionLoaded() ? location : null;
+    }
+
+    /**
+     * Copies the raw bytes of a lazy description from the file opened as {@code channel}.
+     */
+    static byte[] readBytes(FileChannel channel, Location location) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(location.length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, location.offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Replaces the file with a newly written one, in which the lazy descriptions listed in
+     * {@code newOffsets} (by task ID) start at the given offsets, lengths unchanged.
+     * Lazy descriptions missing from the new file are loaded first.
+     */
+    synchronized void replaceFile(Path newFile, IntObjectHashMap<Long> newOffsets) throws IOException {
+        IntObjectHashMap<Location> kept = new IntObjectHashMap<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (Map.Entry<Integer, Location> entry : locationsById.entrySet()) {
+                Location location = entry.getValue();
+                if (newOffsets.containsKey(entry.getKey())) {
+                    kept.put(entry.getKey(), location);
+                } else if (location.detached == null) {
+                    location.detached = decode(readBytes(channel, location));
+                }
+            }
+        }
+
+        FileBackedTaskManager.replaceFile(newFile, path);
+
+        locationsById.clear();
+        for (Map.Entry<Integer, Location> entry : kept.entrySet()) {
+            entry.getValue().offset = newOffsets.get((int) entry.getKey());
+            locationsById.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private synchronized String read(Location location) {
+        if (location.detached != null) {
+            return location.detached;
+        }
+        String description = cache.get(location);
+        if (description == null) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                description = decode(readBytes(channel, location));
+            } catch (IOException exception) {
+                throw new ManagerSaveException("Failed to read description from file: " + path, exception);
+            }
+            cache.put(location, description);
+        }
+        return description;
+    }
+
+    private static String decode(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Position of one lazy description in the file; compared by identity.
+     */
+    static final class Location {
+        final Task task;
+        final int length;
+        long offset;
+        String detached; // set once the description is no longer in the file
+
+        private Location(Task task, long offset, int length) {
+            this.task = task;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.taskmanager.managers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link TextStore} keeping the strings outside the Java heap, in an arena of direct buffers.
+ * <p>
+ * Every distinct string is written once as UTF-8 bytes behind a header of its code, hash and length. Codes are
+ * handles: indexes into a table of arena positions, so the heap only holds primitive arrays (about 24 bytes per
+ * distinct string), whatever the amount of text: the garbage collector has nothing to trace or copy.
+ * Equal strings are found through an open-addressing table of codes and hashes.
+ * Strings are decoded into new {@link String} objects on every read.
+ * </p>
+ * <p>
+ * Codes are reference-counted. A string no longer referenced is removed from the table, its bytes become dead
+ * and its code is reused. Before the arena grows by a chunk of {@value #CHUNK_SIZE} bytes, it is compacted once
+ * the dead bytes reach the live ones, or an eighth of the arena if it may not grow anymore: live strings slide
+ * towards the start of the arena, their positions are updated behind the unchanged codes, and chunks left empty
+ * are freed. So the arena grows with the text currently stored, to about twice its size, and compaction costs
+ * O(1) amortized per byte written. A string longer than a chunk gets a buffer of its own, freed with the string.
+ * </p>
+ * <p>
+ * The arena is bounded by {@code maxBytes} (at most {@value #MAX_CHUNKS} chunks, 2 GiB); once the text stored
+ * does not fit even after compaction, {@link #encode} throws {@link IllegalStateException}.
+ * </p>
+ */
+final class OffHeapTextStore implements TextStore {
+
+    static final int CHUNK_SIZE = 1 << 24;
+    static final int MAX_CHUNKS = 128;
+    static final long MAX_BYTES = (long) MAX_CHUNKS * CHUNK_SIZE;
+    // Entry header: code (DEAD once released), hash and length of the bytes
+    private static final int HEADER = 3 * Integer.BYTES;
+    private static final int HASH_OFFSET = Integer.BYTES;
+    private static final int LENGTH_OFFSET = 2 * Integer.BYTES;
+    private static final int DEAD = -1;
+    private static final int EMPTY = -1;
+    private static final long LARGE = -1; // position of a string kept in a buffer of its own
+
+    private final long maxBytes;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final int[] chunkEnds = new int[MAX_CHUNKS];
+    private final IntObjectHashMap<ByteBuffer> largeTexts = new IntObjectHashMap<>();
+    private long reservedBytes;
+    private long liveBytes; // entries of referenced strings in the chunks
+    private long deadBytes; // entries of released strings in the chunks, until compaction
+    private byte[] scratch = new byte[0]; // buffer of moved entries during compaction
+
+    // Per code: position in the arena (chunk in the high half, offset in the low half) and references
+    private long[] positions = new long[1024];
+    private int[] references = new int[1024];
+    private int[] freeCodes = new int[16]; // stack of released codes
+    private int freeCount;
+    private int codeCount; // codes handed out at least once
+
+    // Open-addressing table: codes of the stored strings and hashes of their bytes
+    private int[] codes = newTable(1024);
+    private int[] hashes = new int[1024];
+    private int size;
+
+    OffHeapTextStore() {
+        this(MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes maximum number of off-heap bytes the arena may reserve, at most {@link #MAX_BYTES}
+     */
+    OffHeapTextStore(long maxBytes) {
+        if (maxBytes <= 0 || maxBytes > MAX_BYTES) {
+            throw new IllegalArgumentException("Arena size must be in (0, " + MAX_BYTES + "]: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the code of an equal stored string, storing the string first if there is none.
+     *
+     * @throws IllegalStateException if the string does not fit into the arena anymore
+     */
+    @Override
+    public int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int hash = Arrays.hashCode(bytes);
+
+        int mask = codes.length - 1;
+        int slot = spread(hash) & mask;
+        while (codes[slot] != EMPTY) {
+            if (hashes[slot] == hash && equalsStored(codes[slot], bytes)) {
+                references[codes[slot]]++;
+                return codes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int code = takeCode();
+        try {
+            positions[code] = append(code, hash, bytes);
+        } catch (IllegalStateException exception) {
+            freeCodes[freeCount++] = code;
+            throw exception;
+        }
+        references[code] = 1;
+        codes[slot] = code; // compaction moves bytes only, the table is unchanged
+        hashes[slot] = hash;
+        if (++size * 4 > codes.length * 3) {
+            resize();
+        }
+        return code;
+    }
+
+    @Override
+    public String decode(int code) {
+        if (code == NULL_CODE) {
+            return null;
+        }
+        ByteBuffer buffer = bufferOf(code);
+        int offset = offsetOf(code);
+        byte[] bytes = new byte[buffer.getInt(offset + LENGTH_OFFSET)];
+        ByteBuffer view = buffer.duplicate(); // own position, so reads do not change the shared buffer
+        view.position(offset + HEADER);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Drops one reference; the last one removes the string, so its bytes are reclaimed and its code reused.
+     */
+    @Override
+    public void release(int code) {
+        if (code == NULL_CODE || --references[code] > 0) {
+            return;
+        }
+        ByteBuffer buffer = bufferOf(code);
+        int offset = offsetOf(code);
+        int entryLength = HEADER + buffer.getInt(offset + LENGTH_OFFSET);
+        deleteFromTable(code, buffer.getInt(offset + HASH_OFFSET));
+        if (positions[code] == LARGE) {
+            largeTexts.remove(code);
+            reservedBytes -= entryLength;
+        } else {
+            buffer.putInt(offset, DEAD);
+            liveBytes -= entryLength;
+            deadBytes += entryLength;
+        }
+        if (freeCount == freeCodes.length) {
+            freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+        }
+        freeCodes[freeCount++] = code;
+    }
+
+    /** Returns the number of distinct strings stored. */
+    int size() {
+        return size;
+    }
+
+    /** Returns the number of off-heap bytes reserved by the arena. */
+    long reservedBytes() {
+        return reservedBytes;
+    }
+
+    private int takeCode() {
+        if (freeCount > 0) {
+            return freeCodes[--freeCount];
+        }
+        if (codeCount == positions.length) {
+            positions = Arrays.copyOf(positions, codeCount * 2);
+            references = Arrays.copyOf(references, codeCount * 2);
+        }
+        return codeCount++;
+    }
+
+    /** Writes the entry of a new string and returns its position. */
+    private long append(int code, int hash, byte[] bytes) {
+        int entryLength = HEADER + bytes.length;
+        if (entryLength > CHUNK_SIZE) {
+            if (reservedBytes + entryLength > maxBytes) {
+                throw full();
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(entryLength);
+            write(buffer, 0, code, hash, bytes);
+            largeTexts.put(code, buffer);
+            reservedBytes += entryLength;
+            return LARGE;
+        }
+        if (!fitsLastChunk(entryLength)) {
+            boolean mayGrow = chunks.size() < MAX_CHUNKS && reservedBytes + CHUNK_SIZE <= maxBytes;
+            if (deadBytes > 0 && (deadBytes >= liveBytes || !mayGrow && deadBytes >= reservedBytes / 8)) {
+                compact();
+                mayGrow = chunks.size() < MAX_CHUNKS && reservedBytes + CHUNK_SIZE <= maxBytes;
+            }
+            if (!fitsLastChunk(entryLength)) {
+                if (!mayGrow) {
+                    throw full();
+                }
+                chunks.add(ByteBuffer.allocateDirect(CHUNK_SIZE));
+                chunkEnds[chunks.size() - 1] = 0;
+                reservedBytes += CHUNK_SIZE;
+            }
+        }
+        int chunk = chunks.size() - 1;
+        int offset = chunkEnds[chunk];
+        write(chunks.get(chunk), offset, code, hash, bytes);
+        chunkEnds[chunk] = offset + entryLength;
+        liveBytes += entryLength;
+        return (long) chunk << Integer.SIZE | offset;
+    }
+
+    private boolean fitsLastChunk(int entryLength) {
+        return !chunks.isEmpty() && chunkEnds[chunks.size() - 1] + entryLength <= CHUNK_SIZE;
+    }
+
+    private IllegalStateException full() {
+        return new IllegalStateException("Off-heap text store is full: " + reservedBytes + " bytes reserved, "
+                + liveBytes + " bytes of text in chunks");
+    }
+
+    private static void write(ByteBuffer buffer, int offset, int code, int hash, byte[] bytes) {
+        buffer.putInt(offset, code);
+        buffer.putInt(offset + HASH_OFFSET, hash);
+        buffer.putInt(offset + LENGTH_OFFSET, bytes.length);
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + HEADER);
+        view.put(bytes);
+    }
+
+    /**
+     * Slides the live entries towards the start of the arena, in arena order, and frees the chunks left empty.
+     * An entry is never written behind its old position, so entries are moved in place through {@link #scratch}.
+     */
+    private void compact() {
+        int targetChunk = 0;
+        int targetOffset = 0;
+        for (int chunk = 0; chunk < chunks.size(); chunk++) {
+            ByteBuffer source = chunks.get(chunk);
+            for (int offset = 0; offset < chunkEnds[chunk]; ) {
+                int code = source.getInt(offset);
+                int entryLength = HEADER + source.getInt(offset + LENGTH_OFFSET);
+                if (code != DEAD) {
+                    if (targetOffset + entryLength > CHUNK_SIZE) {
+                        chunkEnds[targetChunk++] = targetOffset;
+                        targetOffset = 0;
+                    }
+                    if (targetChunk != chunk || targetOffset != offset) {
+                        move(source, offset, chunks.get(targetChunk), targetOffset, entryLength);
+                        positions[code] = (long) targetChunk << Integer.SIZE | targetOffset;
+                    }
+                    targetOffset += entryLength;
+                }
+                offset += entryLength;
+            }
+        }
+        chunkEnds[targetChunk] = targetOffset;
+        while (chunks.size() > targetChunk + 1) {
+            chunks.remove(chunks.size() - 1);
+            reservedBytes -= CHUNK_SIZE;
+        }
+        deadBytes = 0;
+    }
+
+    private void move(ByteBuffer source, int sourceOffset, ByteBuffer target, int targetOffset, int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        ByteBuffer view = source.duplicate();
+        view.position(sourceOffset);
+        view.get(scratch, 0, length);
+        view = target.duplicate();
+        view.position(targetOffset);
+        view.put(scratch, 0, length);
+    }
+
+    private ByteBuffer bufferOf(int code) {
+        long position = positions[code];
+        return position == LARGE ? largeTexts.get(code) : chunks.get((int) (position >>> Integer.SIZE));
+    }
+
+    private int offsetOf(int code) {
+        long position = positions[code];
+        return position == LARGE ? 0 : (int) position;
+    }
+
+    private boolean equalsStored(int code, byte[] bytes) {
+        ByteBuffer buffer = bufferOf(code);
+        int offset = offsetOf(code);
+        if (buffer.getInt(offset + LENGTH_OFFSET) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(offset + HEADER + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Empties the slot of the code and shifts back the following entries of its probe run. */
+    private void deleteFromTable(int code, int hash) {
+        int mask = codes.length - 1;
+        int hole = spread(hash) & mask;
+        while (codes[hole] != code) {
+            hole = (hole + 1) & mask;
+        }
+        for (int current = (hole + 1) & mask; codes[current] != EMPTY; current = (current + 1) & mask) {
+            int home = spread(hashes[current]) & mask;
+            // move the entry into the hole unless its home lies cyclically in (hole, current]
+            boolean homeInRange = hole <= current ? hole < home && home <= current
+                    : hole < home || home <= current;
+            if (!homeInRange) {
+                codes[hole] = codes[current];
+                hashes[hole] = hashes[current];
+                hole = current;
+            }
+        }
+        codes[hole] = EMPTY;
+        size--;
+    }
+
+    private void resize() {
+        int[] oldCodes = codes;
+        int[] oldHashes = hashes;
+        codes = newTable(oldCodes.length * 2);
+        hashes = new int[oldCodes.length * 2];
+        int mask = codes.length - 1;
+        for (int i = 0; i < oldCodes.length; i++) {
+            if (oldCodes[i] != EMPTY) {
+                int slot = spread(oldHashes[i]) & mask;
+                while (codes[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                codes[slot] = oldCodes[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int spread(int hash) {
+        int spread = hash * 0x9E3779B9;
+        return spread ^ (spread >>> 16);
+    }
+}
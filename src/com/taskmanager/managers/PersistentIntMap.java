@@ -0,0 +1,278 @@
+package com.taskmanager.managers;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable map with primitive {@code int} keys, implemented as a hash array mapped trie (HAMT).
+ * <p>
+ * Every level of the trie consumes 5 bits of the key, so a lookup visits at most 7 nodes.
+ * {@link #plus(int, Object)} and {@link #minus(int)} return a new map that shares all untouched
+ * nodes with this one, copying only the O(log32 n) nodes on the path to the key.
+ * </p>
+ * <p>
+ * Instances never change, so they can be read and iterated from any thread without locking.
+ * The {@link java.util.Map} mutators inherited from {@link AbstractMap} throw
+ * {@link UnsupportedOperationException}.
+ * </p>
+ *
+ * @param <V> type of values
+ */
+final class PersistentIntMap<V> extends AbstractMap<Integer, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(new Node(0, new Object[0]), 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        Object current = root;
+        int shift = 0;
+        while (current instanceof Node) {
+            Node node = (Node) current;
+            int bit = bitOf(key, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            current = node.children[node.indexOf(bit)];
+            shift += BITS;
+        }
+        Leaf leaf = (Leaf) current;
+        return leaf.key == key ? (V) leaf.value : null;
+    }
+
+    boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map with the given key mapped to the value.
+     */
+    PersistentIntMap<V> plus(int key, V value) {
+        boolean isNew = get(key) == null;
+        Node newRoot = (Node) put(root, 0, new Leaf(key, value));
+        return new PersistentIntMap<>(newRoot, isNew ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without the given key, or this map if the key is absent.
+     */
+    PersistentIntMap<V> minus(int key) {
+        if (get(key) == null) {
+            return this;
+        }
+        Object newRoot = remove(root, 0, key);
+        if (newRoot == null) {
+            return empty();
+        }
+        if (newRoot instanceof Leaf) { // the root always stays a node
+            Leaf leaf = (Leaf) newRoot;
+            newRoot = new Node(bitOf(leaf.key, 0), new Object[]{leaf});
+        }
+        return new PersistentIntMap<>((Node) newRoot, size - 1);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ? get((int) (Integer) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                return new LeafIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    //-----------
+    // Internals
+    //-----------
+
+    private static int bitOf(int key, int shift) {
+        return 1 << ((key >>> shift) & MASK);
+    }
+
+    /** Returns the node with the leaf inserted (or replaced) below it. */
+    private static Object put(Node node, int shift, Leaf leaf) {
+        int bit = bitOf(leaf.key, shift);
+        int index = node.indexOf(bit);
+
+        if ((node.bitmap & bit) == 0) {
+            Object[] children = new Object[node.children.length + 1];
+            System.arraycopy(node.children, 0, children, 0, index);
+            children[index] = leaf;
+            System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+            return new Node(node.bitmap | bit, children);
+        }
+
+        Object child = node.children[index];
+        Object newChild;
+        if (child instanceof Node) {
+            newChild = put((Node) child, shift + BITS, leaf);
+        } else if (((Leaf) child).key == leaf.key) {
+            newChild = leaf;
+        } else {
+            newChild = merge((Leaf) child, leaf, shift + BITS);
+        }
+        Object[] children = node.children.clone();
+        children[index] = newChild;
+        return new Node(node.bitmap, children);
+    }
+
+    /** Creates the smallest subtree holding two leaves with different keys. */
+    private static Node merge(Leaf first, Leaf second, int shift) {
+        int firstBit = bitOf(first.key, shift);
+        int secondBit = bitOf(second.key, shift);
+        if (firstBit == secondBit) {
+            return new Node(firstBit, new Object[]{merge(first, second, shift + BITS)});
+        }
+        Object[] children = Integer.compareUnsigned(firstBit, secondBit) < 0
+                ? new Object[]{first, second} : new Object[]{second, first};
+        return new Node(firstBit | secondBit, children);
+    }
+
+    /**
+     * Returns the node without the key: {@code null} if it became empty,
+     * or its only remaining leaf, which the parent inlines.
+     */
+    private static Object remove(Node node, int shift, int key) {
+        int bit = bitOf(key, shift);
+        int index = node.indexOf(bit);
+        Object child = node.children[index];
+
+        Object newChild = child instanceof Node ? remove((Node) child, shift + BITS, key) : null;
+        if (newChild == null) {
+            if (node.children.length == 1) {
+                return null;
+            }
+            if (node.children.length == 2 && node.children[1 - index] instanceof Leaf) {
+                return node.children[1 - index];
+            }
+            Object[] children = new Object[node.children.length - 1];
+            System.arraycopy(node.children, 0, children, 0, index);
+            System.arraycopy(node.children, index + 1, children, index, children.length - index);
+            return new Node(node.bitmap & ~bit, children);
+        }
+        if (newChild instanceof Leaf && node.children.length == 1) {
+            return newChild;
+        }
+        Object[] children = node.children.clone();
+        children[index] = newChild;
+        return new Node(node.bitmap, children);
+    }
+
+    /**
+     * Trie node: the bitmap marks which of the 32 possible children exist,
+     * children are stored densely in bit order. A child is either a Node or a Leaf.
+     */
+    private static final class Node {
+        final int bitmap;
+        final Object[] children;
+
+        Node(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        int indexOf(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    private static final class Leaf {
+        final int key;
+        final Object value;
+
+        Leaf(int key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Depth-first iterator over the leaves of the trie.
+     */
+    private class LeafIterator implements Iterator<Entry<Integer, V>> {
+        private final Deque<Node> nodes = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Leaf next;
+
+        LeafIterator() {
+            nodes.push(root);
+            positions.push(0);
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && !nodes.isEmpty()) {
+                Node node = nodes.peek();
+                int position = positions.pop();
+                if (position == node.children.length) {
+                    nodes.pop();
+                    continue;
+                }
+                positions.push(position + 1);
+                Object child = node.children[position];
+                if (child instanceof Node) {
+                    nodes.push((Node) child);
+                    positions.push(0);
+                } else {
+                    next = (Leaf) child;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<Integer, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Leaf current = next;
+            advance();
+            return new SimpleImmutableEntry<>(current.key, (V) current.value);
+        }
+    }
+}
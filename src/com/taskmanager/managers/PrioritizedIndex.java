@@ -0,0 +1,116 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Task;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Persistent sorted index of usual tasks and subtasks by priority.
+ * <p>
+ * Entries are ordered by (start time, task ID); tasks without a start time go last, ordered by ID.
+ * The sort key is captured when a task is indexed, so later changes of a stored task object
+ * do not corrupt the order until the task is re-indexed by the manager.
+ * </p>
+ * <p>
+ * Writers are synchronized; the view can be iterated without locking and is weakly consistent.
+ * </p>
+ */
+class PrioritizedIndex {
+
+    /** Priority order of tasks based on their current start time and ID. */
+    static final Comparator<Task> ORDER = (task1, task2) ->
+            compare(task1.getStartMinute(), task1.getId(), task2.getStartMinute(), task2.getId());
+
+    private final NavigableMap<Key, Task> tasksByKey = new ConcurrentSkipListMap<>();
+    private final IntObjectHashMap<Key> keysById = new IntObjectHashMap<>();
+    private final Collection<Task> view = Collections.unmodifiableCollection(tasksByKey.values());
+
+    /**
+     * Adds (or re-positions) the given task.
+     */
+    synchronized void put(Task task) {
+        remove(task.getId());
+        Key key = new Key(task.getStartMinute(), task.getId());
+        tasksByKey.put(key, task);
+        keysById.put(task.getId(), key);
+    }
+
+    /**
+     * Removes the task with the given ID, if indexed.
+     */
+    synchronized void remove(int id) {
+        Key key = keysById.remove(id);
+        if (key != null) {
+            tasksByKey.remove(key);
+        }
+    }
+
+    /**
+     * Returns a read-only live view of all indexed tasks in priority order.
+     */
+    Collection<Task> view() {
+        return view;
+    }
+
+    /**
+     * Returns a read-only live view of the tasks starting within [fromMinute, toMinute], in priority order.
+     * Finding the first task costs O(log n), every further task O(1).
+     */
+    Collection<Task> range(long fromMinute, long toMinute) {
+        return Collections.unmodifiableCollection(
+                tasksByKey.subMap(Key.first(fromMinute), true, Key.last(toMinute), true).values());
+    }
+
+    synchronized void clear() {
+        tasksByKey.clear();
+        keysById.clear();
+    }
+
+    /**
+     * Compares (start minute, ID) pairs; tasks without a start time go last.
+     */
+    private static int compare(long start1, int id1, long start2, int id2) {
+        if (start1 != start2) {
+            if (start1 == Task.NO_TIME) {
+                return 1;
+            }
+            if (start2 == Task.NO_TIME) {
+                return -1;
+            }
+            return Long.compare(start1, start2);
+        }
+        return Integer.compare(id1, id2);
+    }
+
+    /**
+     * Sort key of a single task: start minute ({@link Task#NO_TIME} if absent, goes last) and ID.
+     */
+    static final class Key implements Comparable<Key> {
+        final long start;
+        final int id;
+
+        Key(long start, int id) {
+            this.start = start;
+            this.id = id;
+        }
+
+        /** Key ordered before every task starting at the given minute. */
+        static Key first(long start) {
+            return new Key(start, Integer.MIN_VALUE);
+        }
+
+        /** Key ordered after every task starting at the given minute. */
+        static Key last(long start) {
+            return new Key(start, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            return compare(start, id, other.start, other.id);
+        }
+    }
+}
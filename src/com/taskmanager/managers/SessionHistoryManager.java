@@ -0,0 +1,192 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Task;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * SessionHistoryManager keeps a separate history of views for every client session.
+ * <p>
+ * A task manager records views through its one {@link HistoryManager}. Installed as that history manager
+ * (see {@link TaskManager#setHistoryManager}), this class routes views to the history of the session bound
+ * to the current thread with {@link #open(String)}, e.g. for the duration of one HTTP request.
+ * Threads without a bound session use the default session, whose history is never evicted.
+ * </p>
+ * <p>
+ * Session histories are small {@link InMemoryHistoryManager}s kept in a map ordered by last access, so views
+ * of different sessions do not contend; only opening a session briefly locks the map. Opening a session evicts
+ * the sessions not opened for longer than the idle timeout, and a new session beyond the maximum session count
+ * evicts the least recently opened one; both cost O(1) per evicted session.
+ * Removing a task removes it from the histories of all sessions.
+ * </p>
+ * <p>
+ * Persistent managers save the {@link #getDefaultHistory() default history}, which outlives the sessions.
+ * </p>
+ */
+public class SessionHistoryManager implements HistoryManager {
+
+    private static final Logger LOGGER = Logger.getLogger(SessionHistoryManager.class.getName());
+
+    private final HistoryManager defaultHistory;
+    // Least recently opened first; guarded by its own monitor
+    private final Map<String, Session> sessions;
+    private final ThreadLocal<Session> currentSession = new ThreadLocal<>();
+    private final int capacity;
+    private final long idleTimeoutNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param defaultHistory history of threads without a session, e.g. the history loaded by the manager
+     * @param capacity maximum number of tasks in the history of one session
+     * @param maxSessions maximum number of sessions besides the default one
+     * @param idleTimeout time after which a session not opened again is evicted
+     */
+    public SessionHistoryManager(HistoryManager defaultHistory, int capacity, int maxSessions, Duration idleTimeout) {
+        this(defaultHistory, capacity, maxSessions, idleTimeout, System::nanoTime);
+    }
+
+    SessionHistoryManager(HistoryManager defaultHistory, int capacity, int maxSessions, Duration idleTimeout,
+                          LongSupplier nanoClock) {
+        if (capacity <= 0 || maxSessions <= 0) {
+            throw new IllegalArgumentException("Capacity and session count must be positive: "
+                    + capacity + ", " + maxSessions);
+        }
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Idle timeout must be positive: " + idleTimeout);
+        }
+        this.defaultHistory = defaultHistory;
+        this.capacity = capacity;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.nanoClock = nanoClock;
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                if (size() <= maxSessions) {
+                    return false;
+                }
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.fine("Too many sessions, evicted session " + eldest.getKey());
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Binds the session with the given ID to the current thread until the returned scope is closed,
+     * creating the session if needed.
+     */
+    public Scope open(String sessionId) {
+        long now = nanoClock.getAsLong();
+        Session session;
+        synchronized (sessions) {
+            evictIdleSessions(now);
+            session = sessions.computeIfAbsent(sessionId, id -> new Session(new InMemoryHistoryManager(capacity)));
+            session.lastAccess = now;
+        }
+        Session previous = currentSession.get();
+        currentSession.set(session);
+        return () -> {
+            if (previous == null) {
+                currentSession.remove();
+            } else {
+                currentSession.set(previous);
+            }
+        };
+    }
+
+    /** Returns the number of sessions besides the default one. */
+    public int getSessionCount() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    /** Returns the history of threads without a session, the one persistent managers save. */
+    public HistoryManager getDefaultHistory() {
+        return defaultHistory;
+    }
+
+    @Override
+    public void add(Task task) {
+        currentHistory().add(task);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return currentHistory().getHistory();
+    }
+
+    @Override
+    public List<Task> getRecent(int limit, int offset) {
+        return currentHistory().getRecent(limit, offset);
+    }
+
+    @Override
+    public Iterator<Task> recentIterator() {
+        return currentHistory().recentIterator();
+    }
+
+    @Override
+    public void remove(int id) {
+        defaultHistory.remove(id);
+        synchronized (sessions) {
+            for (Session session : sessions.values()) {
+                session.history.remove(id);
+            }
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Integer> ids) {
+        defaultHistory.removeAll(ids);
+        synchronized (sessions) {
+            for (Session session : sessions.values()) {
+                session.history.removeAll(ids);
+            }
+        }
+    }
+
+    private HistoryManager currentHistory() {
+        Session session = currentSession.get();
+        return session != null ? session.history : defaultHistory;
+    }
+
+    /** Removes idle sessions from the start of the map; the caller holds its monitor. */
+    private void evictIdleSessions(long now) {
+        int evicted = 0;
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext() && now - iterator.next().lastAccess > idleTimeoutNanos) {
+            iterator.remove();
+            evicted++;
+        }
+        if (evicted > 0 && LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Evicted " + evicted + " idle sessions");
+        }
+    }
+
+    /**
+     * Binding of a session to a thread; closing it restores the previous binding.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class Session {
+        final HistoryManager history;
+        long lastAccess; // guarded by the monitor of the session map
+
+        Session(HistoryManager history) {
+            this.history = history;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.taskmanager.managers;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Mutable map with primitive {@code int} keys that publishes its contents as immutable snapshots.
+ * <p>
+ * The current state is a {@link PersistentIntMap} held in an {@link AtomicReference}. Readers
+ * never lock: {@link #get(int)} reads the current root, and {@link #snapshot()} returns it in O(1)
+ * as a consistent, unmodifiable view that later writes do not affect. Writers build a new root
+ * by path copying and publish it with compare-and-set, retrying if another writer got there first.
+ * </p>
+ * <p>
+ * Only the set of entries is captured by a snapshot; the values themselves are shared.
+ * {@code null} values are not allowed.
+ * </p>
+ *
+ * @param <V> type of values
+ */
+class SnapshotIntMap<V> extends AbstractMap<Integer, V> {
+
+    private final AtomicReference<PersistentIntMap<V>> root = new AtomicReference<>(PersistentIntMap.empty());
+
+    /**
+     * Returns the entries present at the moment of the call. The returned map is immutable.
+     */
+    Map<Integer, V> snapshot() {
+        return root.get();
+    }
+
+    //-----------------
+    // Primitive access
+    //-----------------
+
+    V get(int key) {
+        return root.get().get(key);
+    }
+
+    boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    V put(int key, V value) {
+        Objects.requireNonNull(value);
+        while (true) {
+            PersistentIntMap<V> current = root.get();
+            if (root.compareAndSet(current, current.plus(key, value))) {
+                return current.get(key);
+            }
+        }
+    }
+
+    V remove(int key) {
+        while (true) {
+            PersistentIntMap<V> current = root.get();
+            V previous = current.get(key);
+            if (previous == null || root.compareAndSet(current, current.minus(key))) {
+                return previous;
+            }
+        }
+    }
+
+    V computeIfAbsent(int key, IntFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        V created = Objects.requireNonNull(mappingFunction.apply(key));
+        while (true) {
+            PersistentIntMap<V> current = root.get();
+            value = current.get(key);
+            if (value != null) {
+                return value;
+            }
+            if (root.compareAndSet(current, current.plus(key, created))) {
+                return created;
+            }
+        }
+    }
+
+    //-----------------------------
+    // Map methods with boxed keys
+    //-----------------------------
+
+    @Override
+    public int size() {
+        return root.get().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ? get((int) (Integer) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put((int) key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer ? remove((int) (Integer) key) : null;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (!(key instanceof Integer) || value == null) {
+            return false;
+        }
+        int id = (Integer) key;
+        while (true) {
+            PersistentIntMap<V> current = root.get();
+            if (!value.equals(current.get(id))) {
+                return false;
+            }
+            if (root.compareAndSet(current, current.minus(id))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public V replace(Integer key, V value) {
+        Objects.requireNonNull(value);
+        while (true) {
+            PersistentIntMap<V> current = root.get();
+            V previous = current.get((int) key);
+            if (previous == null || root.compareAndSet(current, current.plus(key, value))) {
+                return previous;
+            }
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(Integer key, Function<? super Integer, ? extends V> mappingFunction) {
+        return computeIfAbsent((int) key, mappingFunction::apply);
+    }
+
+    @Override
+    public void clear() {
+        root.set(PersistentIntMap.empty());
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                Iterator<Entry<Integer, V>> entries = root.get().entrySet().iterator();
+                return new Iterator<>() {
+                    private Entry<Integer, V> last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Entry<Integer, V> next() {
+                        last = entries.next();
+                        return last;
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        SnapshotIntMap.this.remove(last.getKey());
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return SnapshotIntMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                SnapshotIntMap.this.clear();
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Task;
+import com.taskmanager.tasks.TaskStatus;
+import com.taskmanager.tasks.TaskType;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Secondary index of task IDs by (type, status).
+ * <p>
+ * Every combination of {@link TaskType} and {@link TaskStatus} has its own sorted set of IDs,
+ * so all tasks of one type and status are found in time proportional to their number.
+ * The key is captured when a task is indexed: the manager re-indexes a task whenever it stores it
+ * or changes its status. Tasks without a status are not indexed.
+ * </p>
+ * <p>
+ * Writers are synchronized; the ID sets can be iterated without locking and are weakly consistent.
+ * </p>
+ */
+class StatusIndex {
+
+    /** Filled once on creation and never changed afterwards, so it is read without locking. */
+    private final Map<TaskType, Map<TaskStatus, NavigableSet<Integer>>> idsByKey = createSets();
+    /** The set each indexed ID is currently in. */
+    private final IntObjectHashMap<NavigableSet<Integer>> setsById = new IntObjectHashMap<>();
+
+    /**
+     * Adds (or moves) the given task according to its current type and status.
+     */
+    void put(Task task) {
+        put(task.getId(), task.getTaskType(), task.getStatus());
+    }
+
+    synchronized void put(int id, TaskType type, TaskStatus status) {
+        remove(id);
+        if (type == null || status == null) {
+            return;
+        }
+        NavigableSet<Integer> ids = idsByKey.get(type).get(status);
+        ids.add(id);
+        setsById.put(id, ids);
+    }
+
+    /**
+     * Removes the task with the given ID, if indexed.
+     */
+    synchronized void remove(int id) {
+        NavigableSet<Integer> ids = setsById.remove(id);
+        if (ids != null) {
+            ids.remove(id);
+        }
+    }
+
+    /**
+     * Returns a read-only live view of the IDs of all tasks of the given type and status, in ascending order.
+     */
+    NavigableSet<Integer> ids(TaskType type, TaskStatus status) {
+        return Collections.unmodifiableNavigableSet(idsByKey.get(type).get(status));
+    }
+
+    synchronized void clear() {
+        for (Map<TaskStatus, NavigableSet<Integer>> sets : idsByKey.values()) {
+            for (NavigableSet<Integer> ids : sets.values()) {
+                ids.clear();
+            }
+        }
+        setsById.clear();
+    }
+
+    private static Map<TaskType, Map<TaskStatus, NavigableSet<Integer>>> createSets() {
+        Map<TaskType, Map<TaskStatus, NavigableSet<Integer>>> sets = new EnumMap<>(TaskType.class);
+        for (TaskType type : TaskType.values()) {
+            Map<TaskStatus, NavigableSet<Integer>> setsOfType = new EnumMap<>(TaskStatus.class);
+            for (TaskStatus status : TaskStatus.values()) {
+                setsOfType.put(status, new ConcurrentSkipListSet<>());
+            }
+            sets.put(type, setsOfType);
+        }
+        return sets;
+    }
+}
@@ -0,0 +1,55 @@
+package com.taskmanager.managers;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free pool deduplicating equal strings, used for task names and descriptions.
+ * <p>
+ * The pool is a fixed-size table with one string per slot, chosen by hash. A string equal to the one
+ * in its slot is replaced by the pooled instance; otherwise it takes over the slot. So memory stays bounded
+ * by the capacity, and frequently repeated strings (e.g. created from templates) end up shared,
+ * while a slot collision only costs a missed deduplication. {@link #intern(String)} never blocks.
+ * </p>
+ * <p>
+ * Unlike {@link String#intern()}, pooled strings are ordinary heap objects that can be collected
+ * once they are evicted from the pool and no task refers to them.
+ * </p>
+ */
+final class StringPool {
+
+    /** Number of slots used by the managers, rounded up to a power of two. */
+    static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+
+    StringPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(Math.max(size, 1));
+        this.mask = slots.length() - 1;
+    }
+
+    /**
+     * Returns the pooled instance equal to the given string, pooling the string itself if there is none.
+     */
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String pooled = slots.get(slot);
+        if (value.equals(pooled)) {
+            return pooled;
+        }
+        slots.set(slot, value);
+        return value;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
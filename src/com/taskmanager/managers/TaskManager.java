@@ -1,12 +1,18 @@
 package com.taskmanager.managers;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.TreeSet;
+import java.util.function.Predicate;
 
 import com.taskmanager.tasks.Epic;
 import com.taskmanager.tasks.Subtask;
 import com.taskmanager.tasks.Task;
+import com.taskmanager.tasks.TaskStatus;
 
 /**
  * The main interface for managing tasks, epics, and subtasks.
@@ -23,6 +29,24 @@ public interface TaskManager {
 
     void createSubtask(Subtask subtask);
 
+    /**
+     * Creates a batch of usual tasks at once. The batch is validated in one pass, against the stored tasks
+     * and against itself; tasks failing {@link #isValidDateTime(Task)} are skipped, as in {@link #createTask(Task)}.
+     * Tasks are validated in batch order, with the same result as creating them one by one: of two overlapping
+     * tasks of the batch, the earlier one is created. The created tasks get consecutive IDs in batch order,
+     * and persistent managers save once per batch.
+     *
+     * @return the created tasks in batch order
+     */
+    List<Task> createTasks(List<Task> tasks);
+
+    /**
+     * Same as {@link #createTasks(List)} for subtasks, possibly of several epics.
+     *
+     * @throws IllegalArgumentException if an epic of the batch does not exist; nothing is created then
+     */
+    List<Subtask> createSubtasks(List<Subtask> subtasks);
+
     int generateId();
 
     ArrayList<Subtask> getEpicSubtasks(Epic epic);
@@ -35,22 +59,85 @@ public interface TaskManager {
 
     void updateSubtask(Subtask subtask, int id);
 
+    /**
+     * Same as {@link #updateUsualTask(Task, int)}, but only if the stored task still has the expected
+     * {@link Task#getVersion() version}, i.e. was not updated since it was read. The check and the update
+     * are atomic, without a lock held between reading and updating.
+     *
+     * @return false if the stored task has another version; nothing is changed then
+     * @throws IllegalArgumentException if there is no usual task with such ID
+     */
+    boolean updateUsualTask(Task task, int id, int expectedVersion);
+
+    /** Same as {@link #updateUsualTask(Task, int, int)} for epics. */
+    boolean updateEpic(Epic epic, int id, int expectedVersion);
+
+    /** Same as {@link #updateUsualTask(Task, int, int)} for subtasks. */
+    boolean updateSubtask(Subtask subtask, int id, int expectedVersion);
+
     Task getUsualTaskById(int id);
 
     Epic getEpicById(int id);
 
     Subtask getSubtaskById(int id);
 
-    HashMap<Integer, Task> getTasks();
+    Map<Integer, Task> getTasks();
+
+    Map<Integer, Epic> getEpics();
 
-    HashMap<Integer, Epic> getEpics();
+    Map<Integer, Subtask> getSubtasks();
 
-    HashMap<Integer, Subtask> getSubtasks();
+    /**
+     * Returns usual tasks with the given status in ascending ID order.
+     * Answered from a status index, so the cost is proportional to the number of matching tasks.
+     */
+    List<Task> getTasksByStatus(TaskStatus status);
+
+    /** Same as {@link #getTasksByStatus(TaskStatus)} for epics. */
+    List<Epic> getEpicsByStatus(TaskStatus status);
+
+    /** Same as {@link #getTasksByStatus(TaskStatus)} for subtasks. */
+    List<Subtask> getSubtasksByStatus(TaskStatus status);
 
     TreeSet<Task> getPrioritizedTasks();
 
+    /**
+     * Returns a read-only live view of usual tasks and subtasks in priority order
+     * (by start time, tasks without start time last). Unlike {@link #getPrioritizedTasks()}
+     * no copy is made, so iterating over the first k tasks costs O(k).
+     */
+    Collection<Task> getPrioritizedTasksView();
+
+    /**
+     * Returns usual tasks and subtasks whose start time lies within [from, to] (both inclusive),
+     * in the order of {@link #getPrioritizedTasks()}. Tasks without a start time are never included.
+     * Answered from the start-time index in O(log n + k) for k returned tasks.
+     *
+     * @throws IllegalArgumentException if {@code from} or {@code to} is null
+     */
+    List<Task> getTasksInRange(LocalDateTime from, LocalDateTime to);
+
     boolean isValidDateTime(Task task);
 
+    /**
+     * Returns the earliest start time, not before {@code earliestStart} (rounded up to a whole minute),
+     * at which a task of the given duration would pass {@link #isValidDateTime(Task)}.
+     * Computed from the schedule index in O(log n + k) for k scheduled tasks in the way.
+     * The slot is not reserved: a concurrent create may still take it.
+     *
+     * @throws IllegalArgumentException if the duration is negative, or the slot would end after
+     *                                  {@link LocalDateTime#MAX}
+     */
+    LocalDateTime findFreeSlot(LocalDateTime earliestStart, Duration duration);
+
+    /**
+     * Returns every group of usual tasks and subtasks whose time slots overlap, each group in start order.
+     * Two overlapping tasks are always in the same group; a group may also join tasks that overlap
+     * only through a third one. Such conflicts can only appear after loading from a file or a server,
+     * which does not validate time slots. Computed with a sweep line in O(n).
+     */
+    List<List<Task>> findConflicts();
+
     void deleteTaskById(int id);
 
     void deleteEpicById(int id);
@@ -65,6 +152,39 @@ public interface TaskManager {
 
     void deleteAllTasksAllTypes();
 
+    /**
+     * Deletes all usual tasks matching the filter in one pass over the store.
+     * They are removed from the history at once, and persistent managers save once.
+     *
+     * @return the number of deleted tasks
+     */
+    int deleteTasksIf(Predicate<? super Task> filter);
+
+    /**
+     * Same as {@link #deleteTasksIf(Predicate)} for subtasks; the aggregates of every affected epic
+     * are recalculated once, not once per deleted subtask.
+     *
+     * @return the number of deleted subtasks
+     */
+    int deleteSubtasksIf(Predicate<? super Subtask> filter);
+
+    /**
+     * Starts a transaction staging changes to be applied at once, see {@link Transaction}.
+     */
+    default Transaction beginTransaction() {
+        return new Transaction(this);
+    }
+
+    /**
+     * Validates all operations of the transaction and applies them while holding the manager's locks,
+     * so no other change interleaves; if any operation is invalid, nothing is applied.
+     * Persistent managers save once per commit. Usually called through {@link Transaction#commit()}.
+     *
+     * @return the created tasks in staging order, with their real IDs
+     * @throws IllegalArgumentException if an operation is invalid
+     */
+    List<Task> commit(Transaction transaction);
+
     void setNextId(int nextId);
 
     void setHistoryManager(HistoryManager historyManager);
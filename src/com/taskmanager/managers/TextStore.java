@@ -0,0 +1,32 @@
+package com.taskmanager.managers;
+
+/**
+ * Storage of the text fields (names and descriptions) of {@link ColumnarTaskManager}:
+ * every stored string is referenced from the columns by an {@code int} code.
+ * <p>
+ * Every {@link #encode} adds a reference to the code, {@link #release} drops one; a store may free and reuse
+ * the code of a string no column refers to anymore. Implementations are not thread-safe: {@link #encode}
+ * and {@link #release} run under the manager's write lock, {@link #decode} under its read lock and must not
+ * change any state.
+ * </p>
+ */
+interface TextStore {
+
+    /** Code of {@code null}. */
+    int NULL_CODE = -1;
+
+    /**
+     * Stores the string, if an equal one is not stored yet, and returns its code.
+     */
+    int encode(String value);
+
+    /**
+     * Returns the string stored under the code.
+     */
+    String decode(int code);
+
+    /**
+     * Drops one reference to the code, returned by an earlier {@link #encode}. {@link #NULL_CODE} is ignored.
+     */
+    void release(int code);
+}
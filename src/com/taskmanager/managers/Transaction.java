@@ -0,0 +1,324 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Epic;
+import com.taskmanager.tasks.Subtask;
+import com.taskmanager.tasks.Task;
+import com.taskmanager.tasks.TaskType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Unit of work grouping creations, updates and deletions of tasks into one atomic change,
+ * started with {@link TaskManager#beginTransaction()}.
+ * <p>
+ * Operations are only staged until {@link #commit()}. The manager then validates every operation against
+ * the stored tasks and the operations staged before it (existence of tasks and epics, time slots as in
+ * {@link TaskManager#isValidDateTime(Task)}), and applies them in order while holding its locks, so no other
+ * change interleaves. If any operation is invalid, nothing is applied. Persistent managers save once per commit.
+ * </p>
+ * <p>
+ * Tasks created in a transaction get their IDs on commit. Until then the create methods return provisional
+ * negative IDs ({@code -n} for the n-th staged operation), which later operations of the same transaction
+ * may use in place of a real ID, e.g. as the epic ID of new subtasks.
+ * </p>
+ * <p>
+ * A transaction is meant to be used by one thread and can be committed or rolled back only once.
+ * </p>
+ */
+public class Transaction {
+
+    private final TaskManager manager;
+    private final List<Operation> operations = new ArrayList<>();
+    private boolean closed;
+
+    Transaction(TaskManager manager) {
+        this.manager = manager;
+    }
+
+    /** Stages the creation of a usual task and returns its provisional ID. */
+    public int createTask(Task task) {
+        return stage(Kind.CREATE, TaskType.TASK, task, 0);
+    }
+
+    /** Stages the creation of an epic and returns its provisional ID. */
+    public int createEpic(Epic epic) {
+        return stage(Kind.CREATE, TaskType.EPIC, epic, 0);
+    }
+
+    /** Stages the creation of a subtask, whose epic ID may be provisional, and returns its provisional ID. */
+    public int createSubtask(Subtask subtask) {
+        return stage(Kind.CREATE, TaskType.SUBTASK, subtask, 0);
+    }
+
+    public void updateUsualTask(Task task, int id) {
+        stage(Kind.UPDATE, TaskType.TASK, task, id);
+    }
+
+    public void updateEpic(Epic epic, int id) {
+        stage(Kind.UPDATE, TaskType.EPIC, epic, id);
+    }
+
+    public void updateSubtask(Subtask subtask, int id) {
+        stage(Kind.UPDATE, TaskType.SUBTASK, subtask, id);
+    }
+
+    public void deleteTaskById(int id) {
+        stage(Kind.DELETE, TaskType.TASK, null, id);
+    }
+
+    /** Stages the deletion of an epic together with the subtasks it has at that point of the transaction. */
+    public void deleteEpicById(int id) {
+        stage(Kind.DELETE, TaskType.EPIC, null, id);
+    }
+
+    public void deleteSubtaskById(int id) {
+        stage(Kind.DELETE, TaskType.SUBTASK, null, id);
+    }
+
+    /** Returns the number of staged operations. */
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * Validates and applies all staged operations at once, see {@link TaskManager#commit(Transaction)}.
+     *
+     * @return the created tasks in staging order, with their real IDs
+     * @throws IllegalArgumentException if an operation is invalid; nothing is applied then
+     * @throws IllegalStateException if the transaction was already committed or rolled back
+     */
+    public List<Task> commit() {
+        close();
+        return manager.commit(this);
+    }
+
+    /** Discards all staged operations. */
+    public void rollback() {
+        close();
+        operations.clear();
+    }
+
+    private int stage(Kind kind, TaskType type, Task task, int id) {
+        if (closed) {
+            throw new IllegalStateException("Transaction is already committed or rolled back.");
+        }
+        if (kind != Kind.DELETE && task == null) {
+            throw new IllegalArgumentException("Task must not be null.");
+        }
+        operations.add(new Operation(kind, type, task, id));
+        return -operations.size();
+    }
+
+    private void close() {
+        if (closed) {
+            throw new IllegalStateException("Transaction is already committed or rolled back.");
+        }
+        closed = true;
+    }
+
+    //-----------------------------------------
+    // Commit, called by the manager under lock
+    //-----------------------------------------
+
+    /**
+     * Checks every operation against the stored tasks as changed by the operations before it.
+     * Nothing is changed; the first invalid operation is reported.
+     *
+     * @throws IllegalArgumentException naming the 1-based number of the invalid operation
+     */
+    void validate(Store store) {
+        Map<Integer, TaskType> types = new HashMap<>(); // staged changes of types, null for deleted tasks
+        Map<Integer, Integer> epicIds = new HashMap<>(); // epics of subtasks created or updated here
+        Map<Integer, long[]> intervals = new HashMap<>(); // staged time slots, [start minute, end minute]
+        Set<Integer> superseded = new HashSet<>(); // stored tasks whose stored time slot no longer counts
+
+        for (int i = 0; i < operations.size(); i++) {
+            Operation operation = operations.get(i);
+            int id = operation.kind == Kind.CREATE ? -(i + 1) : operation.id;
+
+            if (operation.kind != Kind.CREATE && typeOf(id, types, store) != operation.type) {
+                throw invalid(i, notFoundMessage(operation.type));
+            }
+            if (operation.kind != Kind.DELETE && operation.type == TaskType.SUBTASK) {
+                int epicId = ((Subtask) operation.task).getIdEpic();
+                if (typeOf(epicId, types, store) != TaskType.EPIC) {
+                    throw invalid(i, "Epic with such ID not exist.");
+                }
+                epicIds.put(id, epicId);
+            }
+
+            if (operation.kind == Kind.DELETE) {
+                delete(id, types, intervals, superseded);
+                if (operation.type == TaskType.EPIC) {
+                    for (Integer subtaskId : store.subtaskIdsOf(id)) {
+                        if (epicIds.getOrDefault(subtaskId, id) == id) {
+                            delete(subtaskId, types, intervals, superseded);
+                        }
+                    }
+                    for (Map.Entry<Integer, Integer> entry : epicIds.entrySet()) {
+                        if (entry.getValue() == id && typeOf(entry.getKey(), types, store) == TaskType.SUBTASK) {
+                            delete(entry.getKey(), types, intervals, superseded);
+                        }
+                    }
+                }
+                continue;
+            }
+
+            types.put(id, operation.type);
+            if (operation.type != TaskType.EPIC) {
+                superseded.add(id);
+                intervals.remove(id);
+                Task task = operation.task;
+                if (task.getStartMinute() != Task.NO_TIME && task.getDurationMinutes() != Task.NO_TIME
+                        && task.getEndMinute() != Task.NO_TIME) {
+                    if (task.getDurationMinutes() < 0 || overlaps(task, intervals, superseded, store)) {
+                        throw invalid(i, "DateTime conflict detected.");
+                    }
+                    intervals.put(id, new long[]{task.getStartMinute(), task.getEndMinute()});
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the validated operations through the manager's own methods, replacing provisional IDs.
+     *
+     * @return the created tasks in staging order
+     */
+    List<Task> apply(TaskManager target) {
+        Map<Integer, Integer> realIds = new HashMap<>();
+        List<Task> created = new ArrayList<>();
+
+        for (int i = 0; i < operations.size(); i++) {
+            Operation operation = operations.get(i);
+            Task task = operation.task instanceof Subtask ? withRealEpicId((Subtask) operation.task, realIds)
+                    : operation.task;
+            int id = operation.id < 0 ? realIds.get(operation.id) : operation.id;
+
+            switch (operation.kind) {
+                case CREATE:
+                    if (operation.type == TaskType.TASK) {
+                        target.createTask(task);
+                    } else if (operation.type == TaskType.EPIC) {
+                        target.createEpic((Epic) task);
+                    } else {
+                        target.createSubtask((Subtask) task);
+                    }
+                    realIds.put(-(i + 1), task.getId());
+                    created.add(task);
+                    break;
+                case UPDATE:
+                    if (operation.type == TaskType.TASK) {
+                        target.updateUsualTask(task, id);
+                    } else if (operation.type == TaskType.EPIC) {
+                        target.updateEpic((Epic) task, id);
+                    } else {
+                        target.updateSubtask((Subtask) task, id);
+                    }
+                    break;
+                default:
+                    if (operation.type == TaskType.TASK) {
+                        target.deleteTaskById(id);
+                    } else if (operation.type == TaskType.EPIC) {
+                        target.deleteEpicById(id);
+                    } else {
+                        target.deleteSubtaskById(id);
+                    }
+                    break;
+            }
+        }
+        return created;
+    }
+
+    private static TaskType typeOf(int id, Map<Integer, TaskType> types, Store store) {
+        if (types.containsKey(id)) {
+            return types.get(id);
+        }
+        return id > 0 ? store.typeOf(id) : null;
+    }
+
+    private static void delete(int id, Map<Integer, TaskType> types, Map<Integer, long[]> intervals,
+                               Set<Integer> superseded) {
+        types.put(id, null);
+        intervals.remove(id);
+        superseded.add(id);
+    }
+
+    private static boolean overlaps(Task task, Map<Integer, long[]> intervals, Set<Integer> superseded,
+                                    Store store) {
+        long start = task.getStartMinute();
+        long end = task.getEndMinute();
+        for (long[] interval : intervals.values()) {
+            if (interval[0] <= end && interval[1] >= start) {
+                return true;
+            }
+        }
+        return store.overlaps(start, end, superseded::contains);
+    }
+
+    /** Subtasks are immutable in their epic ID, so one pointing to a new epic is copied with the real ID. */
+    private static Subtask withRealEpicId(Subtask subtask, Map<Integer, Integer> realIds) {
+        if (subtask.getIdEpic() >= 0) {
+            return subtask;
+        }
+        Subtask copy = new Subtask(subtask.getName(), subtask.getDescription(), subtask.getStatus(),
+                realIds.get(subtask.getIdEpic()));
+        copy.setEpochMinutes(subtask.getStartMinute(), subtask.getDurationMinutes());
+        return copy;
+    }
+
+    private static String notFoundMessage(TaskType type) {
+        switch (type) {
+            case TASK:
+                return "Usual Task with such ID not exist.";
+            case EPIC:
+                return "Epic with such ID not exist.";
+            default:
+                return "Subtask with such ID not exist.";
+        }
+    }
+
+    private static IllegalArgumentException invalid(int index, String message) {
+        return new IllegalArgumentException("Operation " + (index + 1) + ": " + message);
+    }
+
+    /**
+     * Read access to the stored tasks needed for validation, provided by the manager under its locks.
+     */
+    interface Store {
+
+        /** Returns the type of the stored task with the given ID, or null if there is none. */
+        TaskType typeOf(int id);
+
+        /** Returns the IDs of the stored subtasks of an epic. */
+        Collection<Integer> subtaskIdsOf(int epicId);
+
+        /** Same as {@link IntervalIndex#overlaps(long, long, IntPredicate)} over the stored time slots. */
+        boolean overlaps(long start, long end, IntPredicate ignored);
+    }
+
+    private enum Kind {
+        CREATE, UPDATE, DELETE
+    }
+
+    private static final class Operation {
+        final Kind kind;
+        final TaskType type;
+        final Task task;
+        final int id;
+
+        Operation(Kind kind, TaskType type, Task task, int id) {
+            this.kind = kind;
+            this.type = type;
+            this.task = task;
+            this.id = id;
+        }
+    }
+}
@@ -3,14 +3,23 @@ package com.taskmanager.tasks;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * Represents an Epic task, which can contain multiple subtasks.
  * The Epic's duration, start time, and end time are calculated based on its subtasks.
+ * <p>
+ * Subtasks added or removed through {@link #addSubtask}, {@link #replaceSubtask} and {@link #removeSubtask}
+ * update per-status counters, a running duration sum and ordered start/end times by delta,
+ * so each change costs O(log n) instead of recalculating over all subtasks.
+ * The epic remembers the position of every subtask in {@link #subtasks}: a replaced subtask keeps its position,
+ * and a removed one is overwritten by the last subtask, so the list does not keep the order of addition.
+ * </p>
  */
 public class Epic extends Task {
 
@@ -19,15 +28,22 @@ public class Epic extends Task {
     public ArrayList<Subtask> subtasks = new ArrayList<>();
     private LocalDateTime endTime;
 
+    // Aggregates over subtasks, updated by delta. Not serialized; rebuilt lazily when missing.
+    private transient Map<Integer, Contribution> contributions;
+    private transient int[] statusCounts;
+    private transient TreeMap<LocalDateTime, Integer> startTimes;
+    private transient TreeMap<LocalDateTime, Integer> endTimes;
+    private transient long durationSum;
+
     public Epic(String name, String description) {
         super(name, description);
-        type = String.valueOf(TaskType.EPIC);
+        type = TaskType.EPIC;
         checkDataTimeDurationEpic();
     }
 
     public Epic(String name, String description, TaskStatus status) {
         super(name, description, status);
-        type = String.valueOf(TaskType.EPIC);
+        type = TaskType.EPIC;
         checkDataTimeDurationEpic();
     }
 
@@ -38,6 +54,11 @@ public class Epic extends Task {
         return Optional.ofNullable(endTime);
     }
 
+    @Override
+    protected long calculateEndMinute() {
+        return endTime == null ? NO_TIME : toEpochMinute(endTime);
+    }
+
     /**
      * Disables manual start time assignment for epics.
      */
@@ -46,6 +67,14 @@ public class Epic extends Task {
         logger.warning("Manual start time assignment is not allowed for Epic.");
     }
 
+    /**
+     * Disables manual time assignment for epics.
+     */
+    @Override
+    public void setEpochMinutes(long newStartMinute, long newDurationMinutes) {
+        logger.warning("Manual time assignment is not allowed for Epic.");
+    }
+
     /**
      * Disables manual duration assignment for epics.
      */
@@ -55,13 +84,87 @@ public class Epic extends Task {
     }
 
     /**
-     * Recalculates start time, duration and end time for the epic.
-     * Should be called whenever subtasks are modified.
+     * Adds a subtask to the epic and updates status counters and time aggregates incrementally.
+     */
+    public void addSubtask(Subtask subtask) {
+        ensureAggregates();
+        subtasks.add(subtask);
+        track(subtask.getId(), subtask, subtasks.size() - 1);
+        applyAggregates();
+    }
+
+    /**
+     * Removes the subtask stored under the given ID and updates the aggregates incrementally.
+     */
+    public void removeSubtask(int subtaskId) {
+        ensureAggregates();
+        Contribution contribution = untrack(subtaskId);
+        if (contribution != null) {
+            removeAt(contribution.index);
+            applyAggregates();
+        }
+    }
+
+    /**
+     * Removes the subtasks stored under the given IDs, publishing the aggregates once.
+     */
+    public void removeSubtasks(Collection<Integer> subtaskIds) {
+        ensureAggregates();
+        boolean removed = false;
+        for (Integer subtaskId : subtaskIds) {
+            Contribution contribution = untrack(subtaskId);
+            if (contribution != null) {
+                removeAt(contribution.index);
+                removed = true;
+            }
+        }
+        if (removed) {
+            applyAggregates();
+        }
+    }
+
+    /**
+     * Replaces the subtask stored under the given ID with a new version.
+     */
+    public void replaceSubtask(int subtaskId, Subtask subtask) {
+        ensureAggregates();
+        Contribution contribution = untrack(subtaskId);
+        if (contribution != null) {
+            subtasks.set(contribution.index, subtask);
+            track(subtaskId, subtask, contribution.index);
+        } else {
+            subtasks.add(subtask);
+            track(subtaskId, subtask, subtasks.size() - 1);
+        }
+        applyAggregates();
+    }
+
+    /**
+     * Removes all subtasks from the epic.
+     */
+    public void clearSubtasks() {
+        subtasks.clear();
+        contributions = null;
+        checkDataTimeDurationEpic();
+    }
+
+    /**
+     * Returns the number of subtasks of the epic with the given status.
+     */
+    public int getSubtasksCount(TaskStatus status) {
+        ensureAggregates();
+        return statusCounts[status.ordinal()];
+    }
+
+    /**
+     * Recalculates start time, duration and end time for the epic from scratch.
+     * Should be called whenever the subtasks list is modified directly.
      */
     public void checkDataTimeDurationEpic() {
         checkStartTimeEpic();
         checkDurationEpic();
         checkEndTimeEpic();
+        contributions = null; // rebuilt from the list on the next incremental change
     }
 
     /**
@@ -80,9 +183,10 @@ public class Epic extends Task {
                 }
             }
             this.duration = Duration.ofMinutes(sumDuration);
-            return;
+        } else {
+            this.duration = null;
         }
-        this.duration = null;
+        invalidateMinutes();
     }
 
     /**
@@ -90,57 +194,17 @@ public class Epic extends Task {
      */
     public void checkStartTimeEpic() {
 
-        if (!subtasks.isEmpty()) {
-            List<Subtask> sortedSubtasks = subtasks.stream().filter(subtask -> subtask.getStartTime().isPresent())
-                    .sorted((st1, st2) -> {
-
-                        if (st1.getStartTime().isPresent() && st2.getStartTime().isPresent()) {
-
-                            if (st1.getStartTime().get().getYear() == st2.getStartTime().get().getYear()) {
-
-                                if (st1.getStartTime().get().getMonthValue() == st2.getStartTime().get()
-                                        .getMonthValue()) {
-
-                                    if (st1.getStartTime().get().getDayOfMonth() == st2.getStartTime().get()
-                                            .getDayOfMonth()) {
-
-                                        if (st1.getStartTime().get().getHour() == st2.getStartTime().get()
-                                                .getHour()) {
-
-                                            if (st1.getStartTime().get().getMinute() == st2.getStartTime().get()
-                                                    .getMinute()) {
-                                                return 0;
-
-                                            }
-                                            return st1.getStartTime().get().getMinute() - st2.getStartTime().get()
-                                                    .getMinute();
-                                        }
-                                        return st1.getStartTime().get().getHour() - st2.getStartTime().get()
-                                                .getHour();
-                                    }
-                                    return st1.getStartTime().get().getDayOfMonth() - st2.getStartTime().get()
-                                            .getDayOfMonth();
-                                }
-                                return st1.getStartTime().get().getMonthValue() - st2.getStartTime().get()
-                                        .getMonthValue();
-                            }
-                            return st1.getStartTime().get().getYear() - st2.getStartTime().get().getYear();
-
-                        } else {
-                            logger.warning("Sorting fails.");
-                            return 0;
-                        }
-                    })
-                    .collect(Collectors.toList());
-
-            if (!sortedSubtasks.isEmpty()) {
-                if (sortedSubtasks.get(0).getStartTime().isPresent()) {
-                    this.startTime = sortedSubtasks.get(0).getStartTime().get();
-                    return;
-                }
+        LocalDateTime earliestStartTime = null;
+        for (Subtask subtask : subtasks) {
+            Optional<LocalDateTime> subtaskStartTime = subtask.getStartTime();
+
+            if (subtaskStartTime.isPresent()
+                    && (earliestStartTime == null || subtaskStartTime.get().isBefore(earliestStartTime))) {
+                earliestStartTime = subtaskStartTime.get();
             }
         }
-        this.startTime = null;
+        this.startTime = earliestStartTime;
+        invalidateMinutes();
     }
 
     /**
@@ -148,66 +212,132 @@ public class Epic extends Task {
      */
     public void checkEndTimeEpic() {
 
-        if (!subtasks.isEmpty()) {
-            List<Subtask> sortedSubtasks = subtasks.stream().filter(subtask -> subtask.getEndTime().isPresent())
-                    .sorted((st1, st2) -> {
-
-                        if (st2.getEndTime().isPresent() && st1.getEndTime().isPresent()) {
-
-                            if (st2.getEndTime().get().getYear() == st1.getEndTime().get().getYear()) {
-
-                                if (st2.getEndTime().get().getMonthValue() == st1.getEndTime().get()
-                                        .getMonthValue()) {
-
-                                    if (st2.getEndTime().get().getDayOfMonth() == st1.getEndTime().get()
-                                            .getDayOfMonth()) {
-
-                                        if (st2.getEndTime().get().getHour() == st1.getEndTime().get()
-                                                .getHour()) {
-
-                                            if (st2.getEndTime().get().getMinute() == st1.getEndTime().get()
-                                                    .getMinute()) {
-
-                                                return 0;
-
-                                            }
-                                            return st2.getEndTime().get().getMinute() - st1.getEndTime().get()
-                                                    .getMinute();
-                                        }
-                                        return st2.getEndTime().get().getHour() - st1.getEndTime().get()
-                                                .getHour();
-                                    }
-                                    return st2.getEndTime().get().getDayOfMonth() - st1.getEndTime().get()
-                                            .getDayOfMonth();
-                                }
-                                return st2.getEndTime().get().getMonthValue() - st1.getEndTime().get()
-                                        .getMonthValue();
-                            }
-                            return st2.getEndTime().get().getYear() - st1.getEndTime().get().getYear();
-
-                        } else {
-                            logger.warning("Sorting fails.");
-                            return 0;
-                        }
-                    })
-                    .collect(Collectors.toList());
-
-            if (!sortedSubtasks.isEmpty()) {
-                if (sortedSubtasks.get(0).getEndTime().isPresent()) {
-
-                    this.endTime = sortedSubtasks.get(0).getEndTime().get();
-                    return;
-                }
+        LocalDateTime latestEndTime = null;
+        for (Subtask subtask : subtasks) {
+            Optional<LocalDateTime> subtaskEndTime = subtask.getEndTime();
+
+            if (subtaskEndTime.isPresent()
+                    && (latestEndTime == null || subtaskEndTime.get().isAfter(latestEndTime))) {
+                latestEndTime = subtaskEndTime.get();
             }
         }
-        this.endTime = null;
+        this.endTime = latestEndTime;
+        invalidateMinutes();
+    }
+
+    //-----------------------
+    // Incremental aggregates
+    //-----------------------
+
+    /**
+     * Rebuilds the aggregates from the subtasks list if they are missing, e.g. after deserialization
+     * or after the list was modified directly.
+     */
+    private void ensureAggregates() {
+        if (contributions != null) {
+            return;
+        }
+        contributions = new HashMap<>();
+        statusCounts = new int[TaskStatus.values().length];
+        startTimes = new TreeMap<>();
+        endTimes = new TreeMap<>();
+        durationSum = 0;
+        for (int index = 0; index < subtasks.size(); index++) {
+            track(subtasks.get(index).getId(), subtasks.get(index), index);
+        }
+    }
+
+    /** Captures the current values of the subtask at the given position and adds them to the aggregates. */
+    private void track(int subtaskId, Subtask subtask, int index) {
+        Contribution contribution = new Contribution(subtask, index);
+        Contribution replaced = contributions.put(subtaskId, contribution);
+        if (replaced != null) {
+            subtract(replaced);
+        }
+
+        if (contribution.status != null) {
+            statusCounts[contribution.status.ordinal()]++;
+        }
+        if (contribution.startTime != null) {
+            startTimes.merge(contribution.startTime, 1, Integer::sum);
+        }
+        if (contribution.endTime != null) {
+            endTimes.merge(contribution.endTime, 1, Integer::sum);
+        }
+        durationSum += contribution.durationMinutes;
+    }
+
+    /** Removes the values captured for the subtask from the aggregates. */
+    private Contribution untrack(int subtaskId) {
+        Contribution contribution = contributions.remove(subtaskId);
+        if (contribution != null) {
+            subtract(contribution);
+        }
+        return contribution;
+    }
+
+    /** Removes the subtask at the given position in O(1) by moving the last subtask there. */
+    private void removeAt(int index) {
+        int lastIndex = subtasks.size() - 1;
+        Subtask moved = subtasks.remove(lastIndex);
+        if (index == lastIndex) {
+            return;
+        }
+        subtasks.set(index, moved);
+        Contribution movedContribution = contributions.get(moved.getId());
+        if (movedContribution != null && movedContribution.subtask == moved) {
+            movedContribution.index = index;
+        }
+    }
+
+    private void subtract(Contribution contribution) {
+        if (contribution.status != null) {
+            statusCounts[contribution.status.ordinal()]--;
+        }
+        if (contribution.startTime != null) {
+            startTimes.computeIfPresent(contribution.startTime, (time, count) -> count > 1 ? count - 1 : null);
+        }
+        if (contribution.endTime != null) {
+            endTimes.computeIfPresent(contribution.endTime, (time, count) -> count > 1 ? count - 1 : null);
+        }
+        durationSum -= contribution.durationMinutes;
+    }
+
+    /** Publishes the aggregates to the epic's start time, duration and end time. */
+    private void applyAggregates() {
+        this.startTime = startTimes.isEmpty() ? null : startTimes.firstKey();
+        this.endTime = endTimes.isEmpty() ? null : endTimes.lastKey();
+        this.duration = subtasks.isEmpty() ? null : Duration.ofMinutes(durationSum);
+        invalidateMinutes();
+    }
+
+    /**
+     * Values of one subtask as they were when it was added to the epic, and its position in the list.
+     */
+    private static class Contribution {
+        final Subtask subtask;
+        int index;
+        final TaskStatus status;
+        final LocalDateTime startTime;
+        final LocalDateTime endTime;
+        final long durationMinutes;
+
+        Contribution(Subtask subtask, int index) {
+            this.subtask = subtask;
+            this.index = index;
+            this.status = subtask.getStatus();
+            this.startTime = subtask.getStartTime().orElse(null);
+            this.endTime = subtask.getEndTime().orElse(null);
+            this.durationMinutes = subtask.getDuration().map(Duration::toMinutes).filter(minutes -> minutes >= 0)
+                    .orElse(0L);
+        }
     }
 
     @Override
     public String toString() {
         return "tasks.Epic{" +
                 "name='" + this.getName() + '\'' +
-                ", description='" + this.getDescription() + '\'' +
+                ", description='" + this.describeDescription() + '\'' +
                 ", id=" + this.getId() +
                 ", status='" + this.getStatus() + '\'' +
                 ", type='" + this.getType() + '\'' +
@@ -13,26 +13,26 @@ public class Subtask extends Task {
     public Subtask(String name, String description, TaskStatus status, int idEpic) {
         super(name, description, status);
         this.idEpic = idEpic;
-        type = String.valueOf(TaskType.SUBTASK);
+        type = TaskType.SUBTASK;
     }
 
     public Subtask(String name, String description, int idEpic) {
         super(name, description);
         this.idEpic = idEpic;
-        type = String.valueOf(TaskType.SUBTASK);
+        type = TaskType.SUBTASK;
     }
 
     public Subtask(String name, String description, String startTime, long durationMinutes, int idEpic) {
         super(name, description, startTime, durationMinutes);
         this.idEpic = idEpic;
-        type = String.valueOf(TaskType.SUBTASK);
+        type = TaskType.SUBTASK;
     }
 
     public Subtask(String name, String description, TaskStatus status, String startTime, long durationMinutes,
                    int idEpic) {
         super(name, description, status, startTime, durationMinutes);
         this.idEpic = idEpic;
-        type = String.valueOf(TaskType.SUBTASK);
+        type = TaskType.SUBTASK;
     }
 
     public int getIdEpic() {
@@ -43,7 +43,7 @@ public class Subtask extends Task {
     public String toString() {
         return "tasks.Subtask{" +
                 "name='" + this.getName() + '\'' +
-                ", description='" + this.getDescription() + '\'' +
+                ", description='" + this.describeDescription() + '\'' +
                 ", id=" + this.getId() +
                 ", status='" + this.getStatus() + '\'' +
                 ", idEpic=" + idEpic +
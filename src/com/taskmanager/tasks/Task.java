@@ -2,14 +2,36 @@ package com.taskmanager.tasks;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
  * Represents a generic Task entity with a name, description, status,
  * scheduling information (start time, duration, end time),
  * and type (Task, Epic, Subtask).
+ * <p>
+ * Besides the {@link Optional}-based getters, the start time, duration and end time are available
+ * as primitive epoch minutes ({@link #getStartMinute()}, {@link #getDurationMinutes()},
+ * {@link #getEndMinute()}). They are cached on first use and do not allocate, so they should be used
+ * on hot paths such as comparators and overlap checks. Absent values are reported as {@link #NO_TIME}.
+ * </p>
+ * <p>
+ * The {@code LocalDateTime} and {@code Duration} fields remain the stored form and the minutes are derived
+ * from them: the JSON of the HTTP API and of the KV storage is written and read by Gson through these fields,
+ * and Gson fills them without calling a constructor or setter. Subclasses changing the fields directly must
+ * call {@link #invalidateMinutes()}.
+ * </p>
+ * <p>
+ * The description may be loaded lazily (see {@link #setDescriptionLoader(Supplier)}); then the field
+ * stays {@code null} and {@link #getDescription()} asks the loader every time.
+ * </p>
+ * <p>
+ * The {@link #getVersion() version} counts how often the stored task was replaced by an update,
+ * so conditional updates can detect that it was changed since it was read.
+ * </p>
  */
 public class Task {
 
@@ -19,11 +41,26 @@ public class Task {
     private String description;
     private int id = 0;
     private TaskStatus status;
-    protected String type;
+    protected TaskType type;
     protected LocalDateTime startTime;
     protected Duration duration;
     public static DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy, HH:mm");
 
+    /** Value of the epoch-minute accessors when the time or duration is not set. */
+    public static final long NO_TIME = Long.MIN_VALUE;
+    /** Latest epoch minute that converts back into a date-time, the minute of {@link LocalDateTime#MAX}. */
+    public static final long MAX_EPOCH_MINUTE = toEpochMinute(LocalDateTime.MAX);
+
+    // Epoch-minute mirrors of the time fields; not serialized, recalculated lazily after changes.
+    private transient volatile boolean minutesCached;
+    private transient long startMinute;
+    private transient long durationMinutes;
+    private transient long endMinute;
+    // Source of the description while it is not loaded into the field
+    private transient Supplier<String> descriptionLoader;
+    // Set by the managers; not serialized, served as ETag by the HTTP API
+    private transient int version;
+
     public Task() {
     }
 
@@ -31,7 +68,7 @@ public class Task {
         this.name = name;
         this.description = description;
         this.status = status;
-        this.type = String.valueOf(TaskType.TASK);
+        this.type = TaskType.TASK;
         this.startTime = null;
         this.duration = null;
     }
@@ -40,7 +77,7 @@ public class Task {
         this.name = name;
         this.description = description;
         this.status = TaskStatus.NEW;
-        this.type = String.valueOf(TaskType.TASK);
+        this.type = TaskType.TASK;
         this.startTime = null;
         this.duration = null;
     }
@@ -49,7 +86,7 @@ public class Task {
         this.name = name;
         this.description = description;
         this.status = TaskStatus.NEW;
-        this.type = String.valueOf(TaskType.TASK);
+        this.type = TaskType.TASK;
         setStartTime(startTime);
         setDuration(durationMinutes);
     }
@@ -58,7 +95,7 @@ public class Task {
         this.name = name;
         this.description = description;
         this.status = status;
-        this.type = String.valueOf(TaskType.TASK);
+        this.type = TaskType.TASK;
         setStartTime(startTime);
         setDuration(durationMinutes);
     }
@@ -72,11 +109,32 @@ public class Task {
     }
 
     public String getDescription() {
-        return description;
+        Supplier<String> loader = descriptionLoader;
+        return loader == null ? description : loader.get();
     }
 
     public void setDescription(String description) {
         this.description = description;
+        this.descriptionLoader = null;
+    }
+
+    /**
+     * Makes the description lazy: it is not kept by the task but requested from the loader on every
+     * {@link #getDescription()} call, until {@link #setDescription(String)} sets it again.
+     */
+    public void setDescriptionLoader(Supplier<String> descriptionLoader) {
+        this.description = null;
+        this.descriptionLoader = descriptionLoader;
+    }
+
+    /** Shown by {@link #toString()} instead of a lazy description, which would have to be read for it. */
+    protected static final String DESCRIPTION_NOT_LOADED = "<not loaded>";
+
+    /**
+     * Returns false while the description is lazy and not held by the task.
+     */
+    public boolean isDescriptionLoaded() {
+        return descriptionLoader == null;
     }
 
     public int getId() {
@@ -87,6 +145,18 @@ public class Task {
         this.id = id;
     }
 
+    /**
+     * Returns the number of updates of the stored task with this ID, 0 for a task never updated.
+     * Changes of derived values (e.g. the status of an epic following its subtasks) do not count.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public TaskStatus getStatus() {
         return status;
     }
@@ -96,6 +166,10 @@ public class Task {
     }
 
     public String getType() {
+        return type.name();
+    }
+
+    public TaskType getTaskType() {
         return type;
     }
 
@@ -115,6 +189,7 @@ public class Task {
                 logger.warning("Invalid date format for startTime: " + newStartTime);
             }
         }
+        invalidateMinutes();
     }
 
     public Optional<Duration> getDuration() {
@@ -128,6 +203,7 @@ public class Task {
             this.duration = Duration.ofMinutes(0);
             logger.warning("Negative duration provided. Defaulting to 0 minutes.");
         }
+        invalidateMinutes();
     }
 
     public Optional<LocalDateTime> getEndTime() {
@@ -137,11 +213,87 @@ public class Task {
         return Optional.empty();
     }
 
+    /**
+     * Returns the start time in minutes since the epoch (UTC), or {@link #NO_TIME}.
+     */
+    public long getStartMinute() {
+        cacheMinutes();
+        return startMinute;
+    }
+
+    /**
+     * Returns the duration in minutes, or {@link #NO_TIME}.
+     */
+    public long getDurationMinutes() {
+        cacheMinutes();
+        return durationMinutes;
+    }
+
+    /**
+     * Returns the end time in minutes since the epoch (UTC), or {@link #NO_TIME}.
+     */
+    public long getEndMinute() {
+        cacheMinutes();
+        return endMinute;
+    }
+
+    /**
+     * Sets start time and duration from epoch minutes; {@link #NO_TIME} clears the value.
+     */
+    public void setEpochMinutes(long newStartMinute, long newDurationMinutes) {
+        this.startTime = newStartMinute == NO_TIME ? null : fromEpochMinute(newStartMinute);
+        this.duration = newDurationMinutes == NO_TIME ? null : Duration.ofMinutes(newDurationMinutes);
+        invalidateMinutes();
+    }
+
+    /**
+     * Converts a date-time into minutes since the epoch (UTC) without allocating.
+     */
+    public static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Converts minutes since the epoch (UTC) back into a date-time, the inverse of {@link #toEpochMinute}.
+     */
+    public static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Must be called after the start time, duration or end time fields were changed.
+     */
+    protected void invalidateMinutes() {
+        minutesCached = false;
+    }
+
+    /**
+     * Calculates the end time in epoch minutes from the current fields.
+     */
+    protected long calculateEndMinute() {
+        return startMinute == NO_TIME || durationMinutes == NO_TIME ? NO_TIME : startMinute + durationMinutes;
+    }
+
+    /** Returns the description for {@code toString()}: the loaded one, or {@link #DESCRIPTION_NOT_LOADED}. */
+    protected String describeDescription() {
+        return isDescriptionLoaded() ? description : DESCRIPTION_NOT_LOADED;
+    }
+
+    private void cacheMinutes() {
+        if (minutesCached) {
+            return;
+        }
+        startMinute = startTime == null ? NO_TIME : toEpochMinute(startTime);
+        durationMinutes = duration == null ? NO_TIME : duration.toMinutes();
+        endMinute = calculateEndMinute();
+        minutesCached = true;
+    }
+
     @Override
     public String toString() {
         return "tasks.Task{" +
                 "name='" + name + '\'' +
-                ", description='" + description + '\'' +
+                ", description='" + describeDescription() + '\'' +
                 ", id=" + id +
                 ", status='" + status + '\'' +
                 ", type='" + type + '\'' +
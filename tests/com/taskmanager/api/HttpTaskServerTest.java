@@ -16,6 +16,7 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.logging.Logger;
 
 import static com.taskmanager.managers.HttpTaskManager.load;
@@ -132,6 +133,69 @@ class HttpTaskServerTest {
         Assertions.assertEquals(expectedLastTask, actualLastTask);
     }
 
+    // check endpoint GET_RANGE
+    @Test
+    void shouldReturnTasksStartingWithinRange() throws IOException, InterruptedException {
+        // getting tasks starting in the first half of June (only the Subtask)
+        URI url4 = URI.create("http://localhost:8080/tasks/range?from=01.06.2024,%2000:00&to=15.06.2024,%2000:00");
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).GET().build();
+        HttpResponse<String> response = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+        // converting to JsonArray
+        JsonArray jsonArray = JsonParser.parseString(response.body()).getAsJsonArray();
+
+        Assertions.assertEquals(1, jsonArray.size());
+        Assertions.assertEquals(jsonSubtask, String.valueOf(jsonArray.get(0)));
+
+        // missing parameter
+        URI url5 = URI.create("http://localhost:8080/tasks/range?from=01.06.2024,%2000:00");
+        HttpRequest request5 = HttpRequest.newBuilder().uri(url5).GET().build();
+        HttpResponse<String> response5 = httpClient.send(request5, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(400, response5.statusCode());
+
+        // empty parameter
+        URI url6 = URI.create("http://localhost:8080/tasks/range?from=&to=15.06.2024,%2000:00");
+        HttpRequest request6 = HttpRequest.newBuilder().uri(url6).GET().build();
+        HttpResponse<String> response6 = httpClient.send(request6, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(400, response6.statusCode());
+    }
+
+    // check endpoint GET_SLOT
+    @Test
+    void shouldReturnEarliestFreeSlot() throws IOException, InterruptedException {
+        // the Task takes 30.06.2024 09:30 - 10:30
+        URI url4 = URI.create("http://localhost:8080/tasks/slot?from=30.06.2024,%2009:00&duration=45");
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).GET().build();
+        HttpResponse<String> response = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+
+        JsonObject slot = JsonParser.parseString(response.body()).getAsJsonObject();
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("30.06.2024, 10:31", slot.get("startTime").getAsString());
+        Assertions.assertEquals("30.06.2024, 11:16", slot.get("endTime").getAsString());
+
+        // durations beyond the last representable date-time
+        for (String duration : List.of("9223372036854775807", "999999999999999", "-1")) {
+            URI url5 = URI.create("http://localhost:8080/tasks/slot?from=30.06.2024,%2009:00&duration=" + duration);
+            HttpRequest request5 = HttpRequest.newBuilder().uri(url5).GET().build();
+            HttpResponse<String> response5 = httpClient.send(request5, HttpResponse.BodyHandlers.ofString());
+
+            Assertions.assertEquals(400, response5.statusCode());
+        }
+    }
+
+    // check endpoint GET_CONFLICTS
+    @Test
+    void shouldReturnNoConflictsForValidatedTasks() throws IOException, InterruptedException {
+        URI url4 = URI.create("http://localhost:8080/tasks/conflicts");
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).GET().build();
+        HttpResponse<String> response = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(0, JsonParser.parseString(response.body()).getAsJsonArray().size());
+    }
+
     // check endpoint GET_HISTORY
     @Test
     void shouldReturnHistory() throws IOException, InterruptedException {
@@ -165,6 +229,52 @@ class HttpTaskServerTest {
         Assertions.assertEquals(expectedLastTask, actualLastTask);
     }
 
+    // check endpoint GET_HISTORY_RECENT
+    @Test
+    void shouldReturnLimitedHistoryNewestFirst() throws IOException, InterruptedException {
+        // adding task, then epic to history by method get
+        URI url4 = URI.create("http://localhost:8080/tasks/task?id=1");
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).GET().build();
+        httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+        URI url5 = URI.create("http://localhost:8080/tasks/epic?id=2");
+        HttpRequest request5 = HttpRequest.newBuilder().uri(url5).GET().build();
+        HttpResponse<String> response5 = httpClient.send(request5, HttpResponse.BodyHandlers.ofString());
+
+        URI url6 = URI.create("http://localhost:8080/tasks/history?limit=1");
+        HttpRequest request6 = HttpRequest.newBuilder().uri(url6).GET().build();
+        HttpResponse<String> response6 = httpClient.send(request6, HttpResponse.BodyHandlers.ofString());
+        URI url7 = URI.create("http://localhost:8080/tasks/history?limit=-1");
+        HttpRequest request7 = HttpRequest.newBuilder().uri(url7).GET().build();
+        HttpResponse<String> response7 = httpClient.send(request7, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals("[" + response5.body() + "]", response6.body());
+        Assertions.assertEquals(400, response7.statusCode());
+    }
+
+    // check endpoint GET_HISTORY with session header
+    @Test
+    void shouldReturnHistoryOfOwnSessionOnly() throws IOException, InterruptedException {
+        // session A views task, session B views epic
+        URI url4 = URI.create("http://localhost:8080/tasks/task?id=1");
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).header("X-Session-Id", "A").GET().build();
+        HttpResponse<String> response4 = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+        URI url5 = URI.create("http://localhost:8080/tasks/epic?id=2");
+        HttpRequest request5 = HttpRequest.newBuilder().uri(url5).header("X-Session-Id", "B").GET().build();
+        HttpResponse<String> response5 = httpClient.send(request5, HttpResponse.BodyHandlers.ofString());
+
+        URI url6 = URI.create("http://localhost:8080/tasks/history");
+        HttpRequest request6 = HttpRequest.newBuilder().uri(url6).header("X-Session-Id", "A").GET().build();
+        HttpResponse<String> response6 = httpClient.send(request6, HttpResponse.BodyHandlers.ofString());
+        HttpRequest request7 = HttpRequest.newBuilder().uri(url6).header("X-Session-Id", "B").GET().build();
+        HttpResponse<String> response7 = httpClient.send(request7, HttpResponse.BodyHandlers.ofString());
+        HttpRequest request8 = HttpRequest.newBuilder().uri(url6).header("X-Session-Id", "x".repeat(65)).GET().build();
+        HttpResponse<String> response8 = httpClient.send(request8, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals("[" + response4.body() + "]", response6.body());
+        Assertions.assertEquals("[" + response5.body() + "]", response7.body());
+        Assertions.assertEquals(400, response8.statusCode());
+    }
+
     // check endpoint GET_TASK
     @Test
     void shouldReturnListOfTasks() throws IOException, InterruptedException {
@@ -228,6 +338,53 @@ class HttpTaskServerTest {
         Assertions.assertEquals(expectedSubtask, actualSubtask);
     }
 
+    // check endpoint GET_SUBTASK_STATUS
+    @Test
+    void shouldReturnSubtasksWithStatus() throws IOException, InterruptedException {
+        // getting subtasks with status NEW and DONE
+        URI url4 = URI.create("http://localhost:8080/tasks/subtask?status=NEW");
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).GET().build();
+        HttpResponse<String> response = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+
+        URI url5 = URI.create("http://localhost:8080/tasks/subtask?status=DONE");
+        HttpRequest request5 = HttpRequest.newBuilder().uri(url5).GET().build();
+        HttpResponse<String> response5 = httpClient.send(request5, HttpResponse.BodyHandlers.ofString());
+
+        // converting to JsonArray
+        JsonArray jsonArray = JsonParser.parseString(response.body()).getAsJsonArray();
+        JsonArray jsonArray5 = JsonParser.parseString(response5.body()).getAsJsonArray();
+
+        Assertions.assertEquals(1, jsonArray.size());
+        Assertions.assertEquals(jsonSubtask, String.valueOf(jsonArray.get(0)));
+        Assertions.assertEquals(0, jsonArray5.size());
+    }
+
+    // check endpoint GET_EPIC_STATUS with further parameters
+    @Test
+    void shouldReturnEpicsWithStatusAmongOtherParameters() throws IOException, InterruptedException {
+        URI url4 = URI.create("http://localhost:8080/tasks/epic?status=NEW&foo=1");
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).GET().build();
+        HttpResponse<String> response4 = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+        URI url5 = URI.create("http://localhost:8080/tasks/epic?foo=1&status=DONE");
+        HttpRequest request5 = HttpRequest.newBuilder().uri(url5).GET().build();
+        HttpResponse<String> response5 = httpClient.send(request5, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(200, response4.statusCode());
+        Assertions.assertEquals(1, JsonParser.parseString(response4.body()).getAsJsonArray().size());
+        Assertions.assertEquals(200, response5.statusCode());
+        Assertions.assertEquals(0, JsonParser.parseString(response5.body()).getAsJsonArray().size());
+    }
+
+    // check endpoint GET_TASK_STATUS with unknown status
+    @Test
+    void shouldReturn400ForUnknownStatus() throws IOException, InterruptedException {
+        URI url4 = URI.create("http://localhost:8080/tasks/task?status=LATER");
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).GET().build();
+        HttpResponse<String> response = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(400, response.statusCode());
+    }
+
     // check endpoint GET_SUBTASK_EPIC_ID
     @Test
     void shouldReturnSubtasksOfEpic() throws IOException, InterruptedException {
@@ -447,6 +604,138 @@ class HttpTaskServerTest {
         Assertions.assertEquals(expectedDuration, actualDuration);
     }
 
+    // check endpoint POST_BATCH
+    @Test
+    void shouldCreateBatchOfTasksAndSubtasks() throws IOException, InterruptedException {
+        // the Task takes 30.06.2024 09:30 - 10:30
+        String jsonBatch = "[" + gson.toJson(new Task("Task2", "DescrT2", TaskStatus.NEW, "30.06.2024, 11:00", 30L))
+                + "," + gson.toJson(new Task("Task3", "DescrT3", TaskStatus.NEW, "30.06.2024, 10:00", 30L))
+                + "," + gson.toJson(new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, 2)) + "]";
+        URI url4 = URI.create("http://localhost:8080/tasks/batch");
+        HttpRequest.BodyPublisher body4 = HttpRequest.BodyPublishers.ofString(jsonBatch);
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).POST(body4).build();
+        HttpResponse<String> response = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+
+        JsonArray created = JsonParser.parseString(response.body()).getAsJsonArray();
+
+        Assertions.assertEquals(201, response.statusCode());
+        Assertions.assertEquals(2, created.size());
+        Assertions.assertEquals("Task2", created.get(0).getAsJsonObject().get("name").getAsString());
+        Assertions.assertEquals(4, created.get(0).getAsJsonObject().get("id").getAsInt());
+        Assertions.assertEquals("Subtask2", created.get(1).getAsJsonObject().get("name").getAsString());
+
+        // getting created subtask
+        URI url5 = URI.create("http://localhost:8080/tasks/subtask?id=5");
+        HttpRequest request5 = HttpRequest.newBuilder().uri(url5).GET().build();
+        HttpResponse<String> response5 = httpClient.send(request5, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(200, response5.statusCode());
+        Assertions.assertEquals(2, gson.fromJson(response5.body(), Subtask.class).getIdEpic());
+    }
+
+    // check endpoint POST_TRANSACTION
+    @Test
+    void shouldCommitTransactionOfOperations() throws IOException, InterruptedException {
+        String jsonOperations = "[{\"op\":\"CREATE\",\"type\":\"EPIC\",\"task\":"
+                + gson.toJson(new Epic("Epic2", "DescrEp2")) + "},"
+                + "{\"op\":\"CREATE\",\"type\":\"SUBTASK\",\"task\":"
+                + gson.toJson(new Subtask("Subtask2", "DescrSt2", TaskStatus.DONE, -1)) + "},"
+                + "{\"op\":\"DELETE\",\"type\":\"TASK\",\"id\":1}]";
+        URI url4 = URI.create("http://localhost:8080/tasks/transaction");
+        HttpRequest.BodyPublisher body4 = HttpRequest.BodyPublishers.ofString(jsonOperations);
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).POST(body4).build();
+        HttpResponse<String> response = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+
+        JsonArray created = JsonParser.parseString(response.body()).getAsJsonArray();
+
+        Assertions.assertEquals(201, response.statusCode());
+        Assertions.assertEquals(2, created.size());
+        Assertions.assertEquals(4, created.get(1).getAsJsonObject().get("idEpic").getAsInt());
+
+        // getting the task deleted in the transaction
+        URI url5 = URI.create("http://localhost:8080/tasks/task?id=1");
+        HttpRequest request5 = HttpRequest.newBuilder().uri(url5).GET().build();
+        HttpResponse<String> response5 = httpClient.send(request5, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(404, response5.statusCode());
+    }
+
+    @Test
+    void shouldReturn400AndApplyNothingForInvalidTransaction() throws IOException, InterruptedException {
+        String jsonOperations = "[{\"op\":\"DELETE\",\"type\":\"TASK\",\"id\":1},"
+                + "{\"op\":\"DELETE\",\"type\":\"EPIC\",\"id\":100}]";
+        URI url4 = URI.create("http://localhost:8080/tasks/transaction");
+        HttpRequest.BodyPublisher body4 = HttpRequest.BodyPublishers.ofString(jsonOperations);
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).POST(body4).build();
+        HttpResponse<String> response = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(400, response.statusCode());
+        Assertions.assertEquals("Operation 2: Epic with such ID not exist.", response.body());
+
+        // the task is still there
+        URI url5 = URI.create("http://localhost:8080/tasks/task?id=1");
+        HttpRequest request5 = HttpRequest.newBuilder().uri(url5).GET().build();
+        HttpResponse<String> response5 = httpClient.send(request5, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(200, response5.statusCode());
+    }
+
+    // check endpoint PUT_TASK_ID with If-Match
+    @Test
+    void shouldUpdateTaskOnlyIfETagMatches() throws IOException, InterruptedException {
+        URI url4 = URI.create("http://localhost:8080/tasks/task?id=1");
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).GET().build();
+        HttpResponse<String> response4 = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+        String eTag = response4.headers().firstValue("ETag").orElseThrow();
+
+        String jsonUpdateForTask = gson.toJson(new Task("TaskNew", "DescrTNew", TaskStatus.IN_PROGRESS));
+        HttpRequest request5 = HttpRequest.newBuilder().uri(url4).header("If-Match", eTag)
+                .PUT(HttpRequest.BodyPublishers.ofString(jsonUpdateForTask)).build();
+        HttpResponse<String> response5 = httpClient.send(request5, HttpResponse.BodyHandlers.ofString());
+
+        // the second writer still holds the old ETag
+        HttpRequest request6 = HttpRequest.newBuilder().uri(url4).header("If-Match", eTag)
+                .PUT(HttpRequest.BodyPublishers.ofString(jsonUpdateForTask)).build();
+        HttpResponse<String> response6 = httpClient.send(request6, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertTrue(eTag.endsWith("-0\""));
+        Assertions.assertEquals(201, response5.statusCode());
+        Assertions.assertEquals(eTag.replace("-0\"", "-1\""), response5.headers().firstValue("ETag").orElseThrow());
+        Assertions.assertEquals(412, response6.statusCode());
+    }
+
+    // check endpoint PUT_TASK_ID with If-Match from before a restart
+    @Test
+    void shouldRejectETagServedBeforeRestart() throws IOException, InterruptedException {
+        URI url4 = URI.create("http://localhost:8080/tasks/task?id=1");
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).GET().build();
+        String eTag = httpClient.send(request4, HttpResponse.BodyHandlers.ofString()).headers()
+                .firstValue("ETag").orElseThrow();
+
+        // after the restart task 1 has version 0 again, like the one the ETag was served for
+        httpTaskServer.stop();
+        httpTaskServer = new HttpTaskServer();
+        httpTaskServer.start();
+        if (httpClient.send(request4, HttpResponse.BodyHandlers.ofString()).statusCode() == 404) {
+            HttpRequest recreate = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/task"))
+                    .POST(HttpRequest.BodyPublishers.ofString(jsonTask)).build();
+            httpClient.send(recreate, HttpResponse.BodyHandlers.ofString());
+        }
+        String jsonUpdateForTask = gson.toJson(new Task("TaskNew", "DescrTNew", TaskStatus.IN_PROGRESS));
+        HttpRequest request5 = HttpRequest.newBuilder().uri(url4).header("If-Match", eTag)
+                .PUT(HttpRequest.BodyPublishers.ofString(jsonUpdateForTask)).build();
+        HttpResponse<String> response5 = httpClient.send(request5, HttpResponse.BodyHandlers.ofString());
+        HttpRequest request6 = HttpRequest.newBuilder().uri(url4).header("If-Match", "\"0\"")
+                .PUT(HttpRequest.BodyPublishers.ofString(jsonUpdateForTask)).build();
+        HttpResponse<String> response6 = httpClient.send(request6, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response7 = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(412, response5.statusCode());
+        Assertions.assertEquals(400, response6.statusCode());
+        Assertions.assertNotEquals(eTag, response7.headers().firstValue("ETag").orElseThrow());
+        Assertions.assertTrue(response7.body().contains("\"name\":\"Task\""));
+    }
+
     // check endpoint PUT_TASK_ID
     @Test
     void shouldUpdateTask() throws IOException, InterruptedException {
@@ -696,4 +985,32 @@ class HttpTaskServerTest {
 
         Assertions.assertTrue(isEmpty);
     }
+
+    // check endpoint DELETE_SUBTASK_FILTER
+    @Test
+    void shouldDeleteSubtasksMatchingFilter() throws IOException, InterruptedException {
+        // the Subtask ends 01.06.2024 14:30
+        URI url4 = URI.create("http://localhost:8080/tasks/subtask?status=NEW&before=01.06.2024,%2014:00");
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).DELETE().build();
+        HttpResponse<String> kept = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+
+        URI url5 = URI.create("http://localhost:8080/tasks/subtask?status=NEW&before=02.06.2024,%2000:00");
+        HttpRequest request5 = HttpRequest.newBuilder().uri(url5).DELETE().build();
+        HttpResponse<String> deleted = httpClient.send(request5, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(200, kept.statusCode());
+        Assertions.assertEquals("0 subtasks deleted", kept.body());
+        Assertions.assertEquals(200, deleted.statusCode());
+        Assertions.assertEquals("1 subtasks deleted", deleted.body());
+    }
+
+    // check endpoint DELETE_TASK_FILTER
+    @Test
+    void shouldReturn400ForDeleteWithoutFilter() throws IOException, InterruptedException {
+        URI url4 = URI.create("http://localhost:8080/tasks/task?name=Task");
+        HttpRequest request4 = HttpRequest.newBuilder().uri(url4).DELETE().build();
+        HttpResponse<String> response = httpClient.send(request4, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(400, response.statusCode());
+    }
 }
@@ -0,0 +1,188 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Epic;
+import com.taskmanager.tasks.Subtask;
+import com.taskmanager.tasks.Task;
+import com.taskmanager.tasks.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the {@link TaskManager} contract tests against {@link ColumnarTaskManager}.
+ * <p>
+ * The columnar store returns newly materialized objects, so tests comparing stored tasks
+ * by identity are overridden to compare their content.
+ * </p>
+ */
+class ColumnarTaskManagerTest extends TaskManagerTest<ColumnarTaskManager> {
+
+    @BeforeEach
+    protected void beforeEach() {
+        taskManager = new ColumnarTaskManager();
+        initTasks();
+    }
+
+    @AfterEach
+    protected void afterEach() {
+        taskManager.deleteAllTasksAllTypes();
+        taskManager.setNextId(1);
+        taskManager.setHistoryManager(new InMemoryHistoryManager());
+    }
+
+    @Test
+    @Override
+    protected void shouldReturnCreatedSubtaskFromEpicSubtasks() { // checking method getEpicSubtasks(Epic epic)
+        taskManager.createEpic(epic);
+        subtask = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, epic.getId());
+        taskManager.createSubtask(subtask);
+
+        Assertions.assertEquals(subtask.toString(), taskManager.getEpicSubtasks(epic).get(0).toString());
+    }
+
+    @Test
+    @Override
+    protected void shouldReturnCreatedTaskFromTasks() { // checking method getTasks()
+        taskManager.createTask(task);
+
+        Assertions.assertEquals(task.toString(), taskManager.getTasks().get(1).toString());
+    }
+
+    @Test
+    @Override
+    protected void shouldReturnCreatedEpicFromEpics() { // checking method getEpics()
+        taskManager.createEpic(epic);
+
+        Assertions.assertEquals(epic.toString(), taskManager.getEpics().get(1).toString());
+    }
+
+    @Test
+    @Override
+    protected void shouldReturnCreatedSubtaskFromSubtasks() { // checking method getSubtasks()
+        taskManager.createEpic(epic);
+        subtask = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, epic.getId());
+        taskManager.createSubtask(subtask);
+
+        Assertions.assertEquals(subtask.toString(), taskManager.getSubtasks().get(2).toString());
+    }
+
+    @Test
+    @Override
+    protected void shouldReturnSortedSetOfTasksByPriority() { // checking method getPrioritizedTasks();
+        taskManager.createTask(task);
+        Task taskP = new Task("Task", "DescrT", TaskStatus.NEW, "02.06.2024, 09:30", 60L);
+        taskManager.createTask(taskP);
+        taskManager.createEpic(epic);
+        subtask = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, "02.06.2024, 12:30", 120L, epic.getId());
+        taskManager.createSubtask(subtask);
+        Subtask subtaskP = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, "01.05.2024, 09:30", 80L, epic.getId());
+        taskManager.createSubtask(subtaskP);
+
+        TreeSet<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+
+        Assertions.assertEquals(List.of(subtaskP.getId(), taskP.getId(), subtask.getId(), task.getId()),
+                prioritizedTasks.stream().map(Task::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @Override
+    protected void shouldReturnPrioritizedTasksViewInPriorityOrder() { // checking method getPrioritizedTasksView();
+        taskManager.createTask(task);
+        Task taskP = new Task("Task", "DescrT", TaskStatus.NEW, "02.06.2024, 09:30", 60L);
+        taskManager.createTask(taskP);
+        taskManager.createEpic(epic);
+        Subtask subtaskP = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, "01.05.2024, 09:30", 80L, epic.getId());
+        taskManager.createSubtask(subtaskP);
+        taskManager.deleteTaskById(taskP.getId());
+
+        Assertions.assertEquals(List.of(subtaskP.toString(), task.toString()),
+                taskManager.getPrioritizedTasksView().stream().map(Task::toString).collect(Collectors.toList()));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> taskManager.getPrioritizedTasksView().clear());
+    }
+
+    @Test
+    @Override
+    protected void shouldDeleteOnlySubtasksOfDeletedEpic() { // checking method deleteEpicById(int id)
+        taskManager.createEpic(epic);
+        Epic otherEpic = new Epic("Epic2", "DescrEp2");
+        taskManager.createEpic(otherEpic);
+        subtask = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, epic.getId());
+        taskManager.createSubtask(subtask);
+        Subtask otherSubtask = new Subtask("Subtask3", "DescrSt3", TaskStatus.NEW, otherEpic.getId());
+        taskManager.createSubtask(otherSubtask);
+
+        taskManager.deleteEpicById(epic.getId());
+
+        Assertions.assertEquals(List.of(otherSubtask.getId()), List.copyOf(taskManager.getSubtasks().keySet()));
+        Assertions.assertEquals(otherSubtask.toString(), taskManager.getEpicSubtasks(otherEpic).get(0).toString());
+    }
+
+    @Test
+    void shouldNotChangeStoredTaskWhenReturnedObjectChanges() {
+        taskManager.createTask(task);
+
+        taskManager.getUsualTaskById(task.getId()).setName("Changed");
+
+        Assertions.assertEquals("Task", taskManager.getUsualTaskById(task.getId()).getName());
+    }
+
+    @Test
+    void shouldCalculateEpicStatusAndTimesFromStoredSubtasks() {
+        taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("Subtask1", "DescrSt1", TaskStatus.DONE, "01.06.2024, 09:30", 60L,
+                epic.getId());
+        taskManager.createSubtask(subtask1);
+        Subtask subtask2 = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, "02.06.2024, 09:30", 30L,
+                epic.getId());
+        taskManager.createSubtask(subtask2);
+
+        Epic storedEpic = taskManager.getEpicById(epic.getId());
+
+        Assertions.assertEquals(TaskStatus.IN_PROGRESS, storedEpic.getStatus());
+        Assertions.assertEquals(2, storedEpic.subtasks.size());
+        Assertions.assertEquals(90L, storedEpic.getDurationMinutes());
+        Assertions.assertEquals(subtask1.getStartMinute(), storedEpic.getStartMinute());
+        Assertions.assertEquals(subtask2.getEndMinute(), storedEpic.getEndMinute());
+    }
+
+    @Test
+    void shouldKeepTextOfOtherTasksWhenFreedCodesAreReused() { // checking methods updateUsualTask, deleteTaskById
+        taskManager.createTask(new Task("Shared", "DescrT1", TaskStatus.NEW));
+        taskManager.createTask(new Task("Shared", "DescrT2", TaskStatus.NEW));
+        Task renamed = taskManager.getUsualTaskById(1);
+        renamed.setName("Renamed");
+        taskManager.updateUsualTask(renamed, 1);
+        taskManager.deleteTaskById(2); // last reference to "Shared" and "DescrT2"
+
+        taskManager.createTask(new Task("New1", "New2", TaskStatus.NEW));
+
+        Assertions.assertEquals("Renamed", taskManager.getUsualTaskById(1).getName());
+        Assertions.assertEquals("DescrT1", taskManager.getUsualTaskById(1).getDescription());
+        Assertions.assertEquals("New1", taskManager.getUsualTaskById(3).getName());
+        Assertions.assertEquals("New2", taskManager.getUsualTaskById(3).getDescription());
+    }
+
+    @Test
+    void shouldFreeDictionaryCodeWhenLastReferenceIsReleased() { // checking class StringDictionary
+        ColumnarTaskManager.StringDictionary dictionary = new ColumnarTaskManager.StringDictionary();
+        int code = dictionary.encode("Name");
+        Assertions.assertEquals(code, dictionary.encode("Name"));
+
+        dictionary.release(code);
+        Assertions.assertEquals("Name", dictionary.decode(code));
+        dictionary.release(code);
+        dictionary.release(TextStore.NULL_CODE);
+
+        Assertions.assertEquals(0, dictionary.size());
+        Assertions.assertEquals(code, dictionary.encode("Other")); // freed code is reused
+        Assertions.assertEquals("Other", dictionary.decode(code));
+        Assertions.assertNotEquals(code, dictionary.encode("Name"));
+        Assertions.assertEquals(2, dictionary.size());
+    }
+}
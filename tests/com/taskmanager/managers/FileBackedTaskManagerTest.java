@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 
 import com.taskmanager.tasks.*;
@@ -115,13 +116,13 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         taskManager.getSubtaskById(subtask.getId());
 
         // deleting data direct from System without saving
-        InMemoryTaskManager.tasks.clear();
-        InMemoryTaskManager.epics.clear();
-        InMemoryTaskManager.subtasks.clear();
-        InMemoryTaskManager.historyManager = new InMemoryHistoryManager();
+        taskManager.tasks.clear();
+        taskManager.epics.clear();
+        taskManager.subtasks.clear();
+        taskManager.setHistoryManager(new InMemoryHistoryManager());
 
         // loading saved data from file
-        loadFromFile(pathTest);
+        taskManager = loadFromFile(pathTest);
 
         boolean isNotEmpty = !taskManager.getTasks().isEmpty() && !taskManager.getEpics().isEmpty()
                 && !taskManager.getSubtasks().isEmpty() && !taskManager.getHistoryManager().getHistory().isEmpty();
@@ -132,7 +133,7 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
     @Test
     void shouldLoadFromNewEmptyFile() { // checking method loadFromFile()
 
-        loadFromFile(pathTest); // loading from new empty file
+        taskManager = loadFromFile(pathTest); // loading from new empty file
 
         boolean isEmpty = taskManager.getTasks().isEmpty() && taskManager.getEpics().isEmpty()
                 && taskManager.getSubtasks().isEmpty() && taskManager.getHistoryManager().getHistory().isEmpty();
@@ -150,7 +151,7 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         taskManager.deleteTaskById(task.getId());
 
         // loading from used file without tasks and history
-        loadFromFile(pathTest);
+        taskManager = loadFromFile(pathTest);
 
         boolean isEmpty = taskManager.getTasks().isEmpty() && taskManager.getEpics().isEmpty()
                 && taskManager.getSubtasks().isEmpty() && taskManager.getHistoryManager().getHistory().isEmpty();
@@ -164,11 +165,53 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         taskManager.createTask(task);
 
         // loading from used file with task and without history file
-        loadFromFile(pathTest);
+        taskManager = loadFromFile(pathTest);
 
         boolean isEmptyAllAndTasksNot = !taskManager.getTasks().isEmpty() && taskManager.getEpics().isEmpty()
                 && taskManager.getSubtasks().isEmpty() && taskManager.getHistoryManager().getHistory().isEmpty();
 
         Assertions.assertTrue(isEmptyAllAndTasksNot);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldSaveOnceWhenCommittingTransaction() throws IOException { // checking method commit(...)
+        int[] saves = new int[1];
+        FileBackedTaskManager countingManager = new FileBackedTaskManager(pathTest) {
+            @Override
+            protected synchronized void save() {
+                if (!savingDeferred) {
+                    saves[0]++;
+                }
+                super.save();
+            }
+        };
+        Transaction transaction = countingManager.beginTransaction();
+        int epicId = transaction.createEpic(epic);
+        transaction.createSubtask(new Subtask("Subtask1", "DescrSt1", TaskStatus.NEW, epicId));
+        transaction.createSubtask(new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, epicId));
+
+        transaction.commit();
+
+        Assertions.assertEquals(1, saves[0]);
+        Assertions.assertEquals(6, readAllLines(pathTest).size()); // header, 3 tasks, empty line, history
+    }
+
+    @Test
+    @SuppressWarnings("try") // the scope only binds the session
+    void shouldSaveDefaultHistoryWhenSessionCausesSave() { // checking method save()
+        SessionHistoryManager sessionHistory = new SessionHistoryManager(taskManager.getHistoryManager(), 10, 10,
+                Duration.ofMinutes(30));
+        taskManager.setHistoryManager(sessionHistory);
+        taskManager.createTask(task);
+        taskManager.createEpic(epic);
+        taskManager.getUsualTaskById(task.getId());
+
+        try (SessionHistoryManager.Scope ignored = sessionHistory.open("A")) {
+            taskManager.getEpicById(epic.getId()); // saves while the session is bound
+        }
+
+        List<Task> savedHistory = loadFromFile(pathTest).getHistoryManager().getHistory();
+        Assertions.assertEquals(1, savedHistory.size());
+        Assertions.assertEquals(task.getId(), savedHistory.get(0).getId());
+    }
+}
@@ -7,6 +7,9 @@ import com.taskmanager.tasks.Subtask;
 import com.taskmanager.tasks.Task;
 import com.taskmanager.tasks.TaskStatus;
 
+import java.util.Iterator;
+import java.util.List;
+
 /**
  * Abstract tests for implementations of {@link HistoryManager}.
  * <p>
@@ -16,6 +19,7 @@ import com.taskmanager.tasks.TaskStatus;
  *     <li>Preventing duplicates in history</li>
  *     <li>Removing tasks by ID from different positions in history</li>
  *     <li>Handling empty history correctly</li>
+ *     <li>Reading the most recent part of history</li>
  * </ul>
  * <p>
  * Concrete subclasses should provide a specific {@code HistoryManager} implementation.
@@ -145,4 +149,28 @@ abstract class HistoryManagerTest<T extends HistoryManager> {
 
         Assertions.assertEquals(expectedSize, actualSize);
     }
+
+    @Test
+    void shouldReturnRecentTasksNewestFirst() { // checking method getRecent(int limit, int offset)
+        historyManager.add(task1);
+        historyManager.add(epic);
+        historyManager.add(task2);
+
+        Assertions.assertEquals(List.of(task2, epic), historyManager.getRecent(2, 0));
+        Assertions.assertEquals(List.of(epic, task1), historyManager.getRecent(5, 1));
+        Assertions.assertEquals(List.of(), historyManager.getRecent(2, 3));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> historyManager.getRecent(-1, 0));
+    }
+
+    @Test
+    void shouldIterateHistoryNewestFirst() { // checking method recentIterator()
+        historyManager.add(task1);
+        historyManager.add(task2);
+
+        Iterator<Task> iterator = historyManager.recentIterator();
+
+        Assertions.assertEquals(task2, iterator.next());
+        Assertions.assertEquals(task1, iterator.next());
+        Assertions.assertFalse(iterator.hasNext());
+    }
 }
@@ -168,7 +168,7 @@ class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
         int actualTasksSize = taskManager.getTasks().size();
         Assertions.assertEquals(expectedTasksSize, actualTasksSize);
 
-        InMemoryTaskManager.tasks.clear(); // deleting task direct from system without saving
+        taskManager.tasks.clear(); // deleting task direct from system without saving
         expectedTasksSize = 0;
         actualTasksSize = taskManager.getTasks().size();
         Assertions.assertEquals(expectedTasksSize, actualTasksSize);
@@ -186,7 +186,7 @@ class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
         int actualEpicsSize = taskManager.getEpics().size();
         Assertions.assertEquals(expectedEpicsSize, actualEpicsSize);
 
-        InMemoryTaskManager.epics.clear(); // deleting epic direct from system without saving
+        taskManager.epics.clear(); // deleting epic direct from system without saving
         expectedEpicsSize = 0;
         actualEpicsSize = taskManager.getEpics().size();
         Assertions.assertEquals(expectedEpicsSize, actualEpicsSize);
@@ -206,7 +206,7 @@ class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
         int actualSubtasksSize = taskManager.getSubtasks().size();
         Assertions.assertEquals(expectedSubtasksSize, actualSubtasksSize);
 
-        InMemoryTaskManager.subtasks.clear(); // deleting subtask direct from system without saving
+        taskManager.subtasks.clear(); // deleting subtask direct from system without saving
         expectedSubtasksSize = 0;
         actualSubtasksSize = taskManager.getSubtasks().size();
         Assertions.assertEquals(expectedSubtasksSize, actualSubtasksSize);
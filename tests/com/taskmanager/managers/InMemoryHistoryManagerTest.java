@@ -1,9 +1,16 @@
 package com.taskmanager.managers;
 
+import com.taskmanager.tasks.Task;
+import com.taskmanager.tasks.TaskStatus;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
 
-// TODO: add tests
 class InMemoryHistoryManagerTest extends HistoryManagerTest<InMemoryHistoryManager> {
 
     @BeforeEach
@@ -12,4 +19,66 @@ class InMemoryHistoryManagerTest extends HistoryManagerTest<InMemoryHistoryManag
         initTasks();
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldEvictLeastRecentlyViewedTaskWhenFull() { // checking constructor InMemoryHistoryManager(int capacity)
+        historyManager = new InMemoryHistoryManager(2);
+        Task task3 = new Task("Task3", "DescrT3", TaskStatus.NEW);
+        task3.setId(5);
+
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task1); // task1 is now the most recent
+        historyManager.add(task3); // evicts task2
+
+        Assertions.assertEquals(List.of(task1, task3), historyManager.getHistory());
+    }
+
+    @Test
+    void shouldAddTaskAgainAfterRemovingIt() { // checking methods remove(int id), add(Task task)
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.remove(task1.getId());
+        historyManager.remove(task1.getId());
+        historyManager.add(task1);
+
+        Assertions.assertEquals(List.of(task2, task1), historyManager.getHistory());
+    }
+
+    @Test
+    void shouldKeepOrderWhileGrowingAndReusingSlots() { // checking methods add(Task task), remove(int id)
+        List<Task> expected = new ArrayList<>();
+        for (int id = 1; id <= 100; id++) { // beyond the initially allocated slots
+            Task task = new Task("Task" + id, "Descr" + id, TaskStatus.NEW);
+            task.setId(id * 64); // IDs that share buckets of the hash table
+            historyManager.add(task);
+            expected.add(task);
+        }
+        for (int i = 0; i < expected.size(); i += 3) {
+            historyManager.remove(expected.get(i).getId());
+        }
+        expected.removeIf(task -> task.getId() % 192 == 64);
+        Task viewedAgain = expected.remove(0);
+        historyManager.add(viewedAgain);
+        expected.add(viewedAgain);
+
+        Assertions.assertEquals(expected, historyManager.getHistory());
+    }
+
+    @Test
+    void shouldFailIteratorAfterHistoryChanges() { // checking method recentIterator()
+        historyManager.add(task1);
+        historyManager.add(task2);
+        Iterator<Task> iterator = historyManager.recentIterator();
+        iterator.next();
+
+        historyManager.add(task1);
+
+        Assertions.assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+
+    @Test
+    void shouldRejectNonPositiveCapacity() { // checking constructor InMemoryHistoryManager(int capacity)
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new InMemoryHistoryManager(0));
+    }
+
+}
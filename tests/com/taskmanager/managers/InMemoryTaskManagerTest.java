@@ -1,9 +1,22 @@
 package com.taskmanager.managers;
 
+import com.taskmanager.tasks.Epic;
+import com.taskmanager.tasks.Subtask;
+import com.taskmanager.tasks.Task;
+import com.taskmanager.tasks.TaskStatus;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
-// TODO: add tests
 class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
 
     @BeforeEach
@@ -15,8 +28,136 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
     @AfterEach
     protected void afterEach() {
         taskManager.deleteAllTasksAllTypes();
-        InMemoryTaskManager.nextId = 1;
-        InMemoryTaskManager.historyManager = new InMemoryHistoryManager();
+        taskManager.setNextId(1);
+        taskManager.setHistoryManager(new InMemoryHistoryManager());
+    }
+
+    @Test
+    void shouldKeepStateOfIndependentManagersSeparate() {
+        InMemoryTaskManager otherManager = new InMemoryTaskManager();
+
+        taskManager.createTask(task);
+        taskManager.getUsualTaskById(task.getId());
+
+        Assertions.assertTrue(otherManager.getTasks().isEmpty());
+        Assertions.assertTrue(otherManager.getHistoryManager().getHistory().isEmpty());
+        Assertions.assertEquals(1, otherManager.generateId());
+    }
+
+    @Test
+    void shouldNotChangeSnapshotOfTasksAfterLaterChanges() {
+        taskManager.createTask(task);
+        Map<Integer, Task> snapshot = taskManager.getTasks();
+
+        taskManager.createTask(new Task("Task", "DescrT", TaskStatus.NEW));
+        taskManager.deleteTaskById(task.getId());
+
+        Assertions.assertEquals(1, snapshot.size());
+        Assertions.assertSame(task, snapshot.get(task.getId()));
+        Assertions.assertEquals(1, taskManager.getTasks().size());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(task.getId()));
+    }
+
+    @Test
+    void shouldFindGroupsOfOverlappingTasksStoredWithoutValidation() {
+        taskManager.createTask(new Task("Task", "DescrT", TaskStatus.NEW, "01.06.2024, 09:00", 60L)); // id 1
+        taskManager.createTask(new Task("Task", "DescrT", TaskStatus.NEW, "01.06.2024, 12:00", 30L)); // id 2
+        taskManager.createEpic(epic); // id 3
+        // stored directly, as loading from a file does, bypassing isValidDateTime
+        Task overlapping = new Task("Task", "DescrT", TaskStatus.NEW, "01.06.2024, 09:30", 60L);
+        overlapping.setId(4);
+        taskManager.tasks.put(4, overlapping);
+        taskManager.addToIndexes(overlapping);
+        Subtask chained = new Subtask("Subtask", "DescrSt", TaskStatus.NEW, "01.06.2024, 10:30", 10L, 3);
+        chained.setId(5);
+        taskManager.subtasks.put(5, chained);
+        taskManager.addToIndexes(chained);
+
+        List<List<Task>> conflicts = taskManager.findConflicts();
+
+        // 5 overlaps only 4, but 4 overlaps 1, so all three are one group; 2 conflicts with nothing
+        Assertions.assertEquals(1, conflicts.size());
+        Assertions.assertEquals(List.of(1, 4, 5), conflicts.get(0).stream().map(Task::getId)
+                .collect(Collectors.toList()));
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldCreateTasksConcurrentlyWithUniqueIds() throws InterruptedException {
+        int threads = 8;
+        int tasksPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < tasksPerThread; j++) {
+                    taskManager.createTask(new Task("Task", "DescrT", TaskStatus.NEW));
+                }
+            });
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(threads * tasksPerThread, taskManager.getTasks().size());
+        Assertions.assertEquals(threads * tasksPerThread + 1, taskManager.generateId());
+    }
+
+    @Test
+    void shouldKeepEpicsConsistentUnderConcurrentSubtaskChanges() throws InterruptedException {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        int epicsPerThread = 4;
+        int subtasksPerEpic = 50;
+
+        List<Epic> createdEpics = new ArrayList<>();
+        for (int i = 0; i < threads * epicsPerThread; i++) {
+            Epic newEpic = new Epic("Epic" + i, "DescrEp");
+            taskManager.createEpic(newEpic);
+            createdEpics.add(newEpic);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            List<Epic> threadEpics = createdEpics.subList(i * epicsPerThread, (i + 1) * epicsPerThread);
+            executor.submit(() -> {
+                for (int j = 0; j < subtasksPerEpic; j++) {
+                    for (Epic threadEpic : threadEpics) {
+                        Subtask newSubtask = new Subtask("Subtask", "DescrSt", TaskStatus.NEW, threadEpic.getId());
+                        newSubtask.setDuration(10);
+                        taskManager.createSubtask(newSubtask);
+
+                        if (j % 2 == 0) { // every second subtask is finished, every fifth is deleted
+                            Subtask doneSubtask = new Subtask("Subtask", "DescrSt", TaskStatus.DONE,
+                                    threadEpic.getId());
+                            doneSubtask.setDuration(10);
+                            taskManager.updateSubtask(doneSubtask, newSubtask.getId());
+                        } else if (j % 5 == 0) {
+                            taskManager.deleteSubtaskById(newSubtask.getId());
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        int expectedSubtasksPerEpic = subtasksPerEpic - subtasksPerEpic / 10;
+        for (Epic createdEpic : createdEpics) {
+            Epic storedEpic = taskManager.getEpics().get(createdEpic.getId());
+            Assertions.assertEquals(expectedSubtasksPerEpic, storedEpic.subtasks.size());
+            Assertions.assertEquals(TaskStatus.IN_PROGRESS, storedEpic.getStatus());
+            Assertions.assertEquals(expectedSubtasksPerEpic * 10L, storedEpic.getDuration().get().toMinutes());
+        }
+        Assertions.assertEquals(threads * epicsPerThread * expectedSubtasksPerEpic, taskManager.getSubtasks().size());
+    }
+
+    @Test
+    void shouldShareStringsOfTasksCreatedFromSameTemplate() {
+        taskManager.createTask(new Task(new String("Standup"), new String("Daily meeting"), TaskStatus.NEW));
+        taskManager.createTask(new Task(new String("Standup"), new String("Daily meeting"), TaskStatus.NEW));
+
+        Task first = taskManager.getTasks().get(1);
+        Task second = taskManager.getTasks().get(2);
+
+        Assertions.assertSame(first.getName(), second.getName());
+        Assertions.assertSame(first.getDescription(), second.getDescription());
+    }
+}
@@ -0,0 +1,181 @@
+package com.taskmanager.managers;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class IntObjectHashMapTest {
+
+    private IntObjectHashMap<String> map;
+
+    @BeforeEach
+    void beforeEach() {
+        map = new IntObjectHashMap<>();
+    }
+
+    /** Returns keys probing from the same slot of the initial table of 16 slots. */
+    private static int[] collidingKeys(int count) {
+        int[] keys = new int[count];
+        int home = IntObjectHashMap.slotOf(1, 15);
+        int found = 0;
+        for (int key = 1; found < count; key++) {
+            if (IntObjectHashMap.slotOf(key, 15) == home) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+
+    private static List<Integer> keysInIterationOrder(IntObjectHashMap<String> map) {
+        List<Integer> keys = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : map.entrySet()) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    @Test
+    void shouldReuseTombstoneForNewKey() { // checking methods put(int key, V value), remove(int key)
+        int[] keys = collidingKeys(3);
+        map.put(keys[0], "A");
+        map.put(keys[1], "B");
+        map.remove(keys[0]);
+
+        map.put(keys[2], "C"); // takes the slot of the removed key, before keys[1]
+
+        Assertions.assertEquals(List.of(keys[2], keys[1]), keysInIterationOrder(map));
+        Assertions.assertEquals("B", map.get(keys[1]));
+        Assertions.assertEquals("C", map.get(keys[2]));
+        Assertions.assertNull(map.get(keys[0]));
+        Assertions.assertEquals(2, map.size());
+    }
+
+    @Test
+    void shouldReplaceKeyBehindTombstoneInsteadOfAddingItAgain() { // checking method put(int key, V value)
+        int[] keys = collidingKeys(2);
+        map.put(keys[0], "A");
+        map.put(keys[1], "B");
+        map.remove(keys[0]);
+
+        Assertions.assertEquals("B", map.put(keys[1], "B2"));
+
+        Assertions.assertEquals(1, map.size());
+        Assertions.assertEquals("B2", map.remove(keys[1]));
+        Assertions.assertNull(map.get(keys[1]));
+        Assertions.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void shouldKeepEntriesThroughRehashesUnderInsertDeleteChurn() { // checking methods put, remove, get
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(4_000) - 2_000; // negative keys too
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = "V" + i;
+                Assertions.assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            if (i % 50_000 == 0) { // shrink to a few entries, so later inserts rehash a table full of tombstones
+                for (Integer removed : new ArrayList<>(expected.keySet())) {
+                    if (random.nextInt(100) != 0) {
+                        expected.remove(removed);
+                        map.remove((int) removed);
+                    }
+                }
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), map.size());
+        for (int key = -2_000; key < 2_000; key++) {
+            Assertions.assertEquals(expected.get(key), map.get(key), "key " + key);
+        }
+        Assertions.assertEquals(expected, new HashMap<>(map));
+    }
+
+    @Test
+    void shouldRemoveOnlyMatchingValue() { // checking method remove(Object key, Object value)
+        map.put(1, "A");
+
+        Assertions.assertFalse(map.remove(1, "B"));
+        Assertions.assertFalse(map.remove(1, null));
+        Assertions.assertFalse(map.remove("1", "A"));
+        Assertions.assertFalse(map.remove(2, "A"));
+        Assertions.assertEquals("A", map.get(1));
+
+        Assertions.assertTrue(map.remove(1, "A"));
+        Assertions.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void shouldNotAddMissingKeyOnReplace() { // checking method replace(Integer key, V value)
+        Assertions.assertNull(map.replace(1, "A"));
+        Assertions.assertFalse(map.containsKey(1));
+        Assertions.assertEquals(0, map.size());
+
+        map.put(1, "A");
+        Assertions.assertEquals("A", map.replace(1, "B"));
+        Assertions.assertEquals("B", map.get(1));
+        Assertions.assertEquals(1, map.size());
+    }
+
+    @Test
+    void shouldRemoveThroughSnapshotIterator() { // checking method entrySet().iterator().remove()
+        map.put(1, "A");
+        map.put(2, "B");
+        Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator();
+        Assertions.assertThrows(IllegalStateException.class, iterator::remove);
+
+        int removedKey = iterator.next().getKey();
+        iterator.remove();
+        Assertions.assertThrows(IllegalStateException.class, iterator::remove);
+        map.put(3, "C"); // not in the snapshot
+
+        Assertions.assertNotEquals(removedKey, iterator.next().getKey());
+        Assertions.assertFalse(iterator.hasNext());
+        Assertions.assertFalse(map.containsKey(removedKey));
+        Assertions.assertEquals(2, map.size());
+    }
+
+    @Test
+    void shouldFindEntriesWhileOtherThreadRehashes() throws InterruptedException { // checking method get(int key)
+        int stableKeys = 100;
+        for (int key = 0; key < stableKeys; key++) {
+            map.put(key, "S" + key);
+        }
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int round = 1; round <= 20; round++) { // new keys every round, so tombstones force rehashes
+                for (int key = round * 50_000; key < (round + 1) * 50_000; key++) {
+                    map.put(key, "W");
+                }
+                for (int key = round * 50_000; key < (round + 1) * 50_000; key++) {
+                    map.remove(key);
+                }
+            }
+            writing.set(false);
+        });
+        writer.start();
+        int reads = 0;
+        int misses = 0;
+        while (writing.get() || reads < stableKeys) {
+            int key = reads++ % stableKeys;
+            if (!("S" + key).equals(map.get(key))) {
+                misses++;
+            }
+        }
+        writer.join();
+
+        Assertions.assertEquals(0, misses);
+        Assertions.assertEquals(stableKeys, map.size());
+    }
+}
@@ -0,0 +1,84 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Epic;
+import com.taskmanager.tasks.Subtask;
+import com.taskmanager.tasks.Task;
+import com.taskmanager.tasks.TaskStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.taskmanager.managers.FileBackedTaskManager.loadFromFile;
+
+/**
+ * Runs the {@link FileBackedTaskManager} tests with descriptions loaded lazily from the file.
+ */
+class LazyFileBackedTaskManagerTest extends FileBackedTaskManagerTest {
+
+    @BeforeEach
+    @Override
+    protected void beforeEach() throws IOException {
+        Files.createFile(pathTest);
+        taskManager = loadFromFile(pathTest, 1);
+        initTasks();
+    }
+
+    @Test
+    void shouldReadDescriptionsFromFileOnDemand() {
+        taskManager.createTask(new Task("Task", "Описание задачи", TaskStatus.NEW));
+        taskManager.createEpic(new Epic("Epic1", "DescrEp1"));
+        taskManager.createSubtask(new Subtask("Subtask2", "DescrSt2", TaskStatus.DONE, 2));
+        taskManager.getEpicById(2);
+
+        taskManager = loadFromFile(pathTest, 1);
+
+        Task loadedTask = taskManager.getTasks().get(1);
+        Assertions.assertFalse(loadedTask.isDescriptionLoaded());
+        Assertions.assertEquals("Описание задачи", loadedTask.getDescription());
+        Assertions.assertEquals("DescrEp1", taskManager.getEpics().get(2).getDescription());
+        Assertions.assertEquals("DescrSt2", taskManager.getSubtasks().get(3).getDescription());
+        Assertions.assertEquals(TaskStatus.DONE, taskManager.getEpics().get(2).getStatus());
+        Assertions.assertEquals(List.of(2), taskManager.getHistoryManager().getHistory().stream()
+                .map(Task::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldNotShowLazyDescriptionsInToString() { // checking method toString()
+        taskManager.createTask(new Task("Task", "DescrT", TaskStatus.NEW));
+        taskManager.createEpic(new Epic("Epic1", "DescrEp1"));
+        taskManager.createSubtask(new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, 2));
+        taskManager = loadFromFile(pathTest, 1);
+
+        List<Task> loadedTasks = List.of(taskManager.getTasks().get(1), taskManager.getEpics().get(2),
+                taskManager.getSubtasks().get(3));
+
+        for (Task loadedTask : loadedTasks) {
+            Assertions.assertTrue(loadedTask.toString().contains("description='<not loaded>'"), loadedTask::toString);
+        }
+    }
+
+    @Test
+    void shouldKeepLazyDescriptionsCorrectAfterSaving() throws IOException {
+        taskManager.createTask(new Task("Task1", "DescrT1", TaskStatus.NEW));
+        taskManager.createTask(new Task("Task2", "Описание второй задачи", TaskStatus.NEW));
+        taskManager = loadFromFile(pathTest, 1);
+
+        Task replacedTask = taskManager.getTasks().get(1);
+        taskManager.updateUsualTask(new Task("Task1", "DescrT1 updated", TaskStatus.DONE), 1); // saves
+        taskManager.createTask(new Task("Task3", "DescrT3", TaskStatus.NEW)); // saves
+
+        Assertions.assertEquals("DescrT1", replacedTask.getDescription());
+        Assertions.assertEquals("DescrT1 updated", taskManager.getTasks().get(1).getDescription());
+        Assertions.assertEquals("Описание второй задачи", taskManager.getTasks().get(2).getDescription());
+
+        FileBackedTaskManager eagerManager = loadFromFile(pathTest);
+        Assertions.assertEquals("DescrT1 updated", eagerManager.getTasks().get(1).getDescription());
+        Assertions.assertEquals("Описание второй задачи", eagerManager.getTasks().get(2).getDescription());
+        Assertions.assertEquals("DescrT3", eagerManager.getTasks().get(3).getDescription());
+    }
+}
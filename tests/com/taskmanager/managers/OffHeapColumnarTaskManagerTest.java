@@ -0,0 +1,119 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Epic;
+import com.taskmanager.tasks.Task;
+import com.taskmanager.tasks.TaskStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the {@link TaskManager} contract tests against {@link ColumnarTaskManager}
+ * with names and descriptions stored off-heap.
+ */
+class OffHeapColumnarTaskManagerTest extends ColumnarTaskManagerTest {
+
+    @BeforeEach
+    @Override
+    protected void beforeEach() {
+        taskManager = new ColumnarTaskManager(ColumnarTaskManager.TextStorage.OFF_HEAP);
+        initTasks();
+    }
+
+    @Test
+    void shouldKeepNonAsciiAndEmptyTextUnchanged() {
+        taskManager.createTask(new Task("Задача ✓", "", TaskStatus.NEW));
+        taskManager.createEpic(new Epic("Epic", null));
+
+        Assertions.assertEquals("Задача ✓", taskManager.getUsualTaskById(1).getName());
+        Assertions.assertEquals("", taskManager.getUsualTaskById(1).getDescription());
+        Assertions.assertNull(taskManager.getEpicById(2).getDescription());
+    }
+
+    @Test
+    void shouldKeepTextLongerThanArenaChunk() {
+        String description = "x".repeat(OffHeapTextStore.CHUNK_SIZE + 1);
+        taskManager.createTask(new Task("Task1", description, TaskStatus.NEW));
+        taskManager.createTask(new Task("Task2", "DescrT2", TaskStatus.NEW));
+
+        Assertions.assertEquals(description, taskManager.getUsualTaskById(1).getDescription());
+        Assertions.assertEquals("DescrT2", taskManager.getUsualTaskById(2).getDescription());
+    }
+
+    @Test
+    void shouldRejectTextBeyondArenaBoundWithoutChangingTasks() {
+        taskManager = new ColumnarTaskManager(OffHeapTextStore.CHUNK_SIZE);
+        taskManager.createTask(new Task("Task1", "DescrT1", TaskStatus.NEW));
+        Task tooLong = new Task("Task2", "x".repeat(OffHeapTextStore.CHUNK_SIZE), TaskStatus.NEW);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> taskManager.createTask(tooLong));
+        Assertions.assertEquals(1, taskManager.getTasks().size());
+        Assertions.assertEquals(1, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldReuseArenaSpaceOfReplacedText() { // checking method updateUsualTask(Task task, int id)
+        taskManager = new ColumnarTaskManager(2L * OffHeapTextStore.CHUNK_SIZE);
+        taskManager.createTask(new Task("Task1", "DescrT1", TaskStatus.NEW));
+        taskManager.createTask(new Task("Task2", "DescrT2", TaskStatus.NEW));
+        String text = "x".repeat(100_000);
+
+        for (int i = 0; i < 1_000; i++) { // 100 MB of text written in total, 100 KB stored at a time
+            taskManager.updateUsualTask(new Task("Task2", i + text, TaskStatus.NEW), 2);
+        }
+
+        Assertions.assertEquals("999" + text, taskManager.getUsualTaskById(2).getDescription());
+        Assertions.assertEquals("DescrT1", taskManager.getUsualTaskById(1).getDescription());
+        Assertions.assertEquals("Task2", taskManager.getUsualTaskById(2).getName());
+    }
+
+    @Test
+    void shouldFreeTextLongerThanArenaChunkWithItsTask() { // checking method deleteTaskById(int id)
+        taskManager = new ColumnarTaskManager(3L * OffHeapTextStore.CHUNK_SIZE); // a chunk and one long text
+        String description = "x".repeat(OffHeapTextStore.CHUNK_SIZE);
+
+        for (int i = 0; i < 3; i++) { // two of them would not fit at once
+            taskManager.createTask(new Task("Task", i + description, TaskStatus.NEW));
+            taskManager.deleteTaskById(taskManager.getTasks().keySet().iterator().next());
+        }
+
+        Assertions.assertTrue(taskManager.getTasks().isEmpty());
+    }
+
+    @Test
+    void shouldKeepCodesValidThroughCompaction() { // checking methods encode, release, decode of the store
+        OffHeapTextStore store = new OffHeapTextStore(2L * OffHeapTextStore.CHUNK_SIZE);
+        int kept = store.encode("kept");
+        int shared = store.encode("shared");
+        Assertions.assertEquals(shared, store.encode("shared"));
+        String text = "y".repeat(1_000_000);
+
+        for (int i = 0; i < 100; i++) { // 100 MB written, so the chunks are compacted several times
+            store.release(store.encode(i + text));
+        }
+        store.release(shared);
+
+        Assertions.assertEquals("kept", store.decode(kept));
+        Assertions.assertEquals("shared", store.decode(shared));
+        Assertions.assertEquals(2, store.size());
+        Assertions.assertTrue(store.reservedBytes() <= 2L * OffHeapTextStore.CHUNK_SIZE);
+        store.release(shared);
+        Assertions.assertEquals(1, store.size());
+        Assertions.assertEquals(kept, store.encode("kept"));
+    }
+
+    @Test
+    void shouldNotKeepNameOfTaskRejectedForItsDescription() { // checking method createTask(Task task)
+        taskManager = new ColumnarTaskManager(OffHeapTextStore.CHUNK_SIZE); // one chunk
+        String longName = "n".repeat(OffHeapTextStore.CHUNK_SIZE - 100);
+        Task tooLong = new Task(longName, "x".repeat(OffHeapTextStore.CHUNK_SIZE), TaskStatus.NEW);
+        Assertions.assertThrows(IllegalStateException.class, () -> taskManager.createTask(tooLong));
+
+        // fits only if the name of the rejected task was released
+        taskManager.createTask(new Task("m" + longName.substring(1), "DescrT1", TaskStatus.NEW));
+
+        Task stored = taskManager.getTasks().values().iterator().next();
+        Assertions.assertEquals("m" + longName.substring(1), stored.getName());
+        Assertions.assertEquals("DescrT1", stored.getDescription());
+    }
+}
@@ -0,0 +1,98 @@
+package com.taskmanager.managers;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class PersistentIntMapTest {
+
+    private static final int HIGH_BIT_1 = 1 << 30;
+    private static final int HIGH_BIT_2 = 1 << 31;
+
+    @Test
+    void shouldKeepKeysSharingLow30Bits() { // checking methods plus(int key, V value), get(int key)
+        List<Integer> keys = List.of(5, 5 | HIGH_BIT_1, 5 | HIGH_BIT_2, 5 | HIGH_BIT_1 | HIGH_BIT_2);
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        for (int key : keys) {
+            map = map.plus(key, "V" + key);
+        }
+
+        Assertions.assertEquals(4, map.size());
+        for (int key : keys) {
+            Assertions.assertEquals("V" + key, map.get(key));
+        }
+        Assertions.assertEquals(4, map.entrySet().stream().count());
+
+        PersistentIntMap<String> withoutOne = map.minus(5 | HIGH_BIT_1);
+        Assertions.assertNull(withoutOne.get(5 | HIGH_BIT_1));
+        Assertions.assertEquals("V" + (5 | HIGH_BIT_2), withoutOne.get(5 | HIGH_BIT_2));
+        Assertions.assertEquals(3, withoutOne.size());
+    }
+
+    @Test
+    void shouldCollapseBranchToInlinedLeafOnRemove() { // checking method minus(int key)
+        int key = 1;
+        int deepKey = 1 | (1 << 25); // shares the low 25 bits, so both sit five levels deep
+        PersistentIntMap<String> map = PersistentIntMap.<String>empty().plus(key, "A").plus(deepKey, "B").plus(2, "C");
+
+        PersistentIntMap<String> collapsed = map.minus(deepKey); // leaves key as a leaf inlined in the root
+
+        Assertions.assertEquals("A", collapsed.get(key));
+        Assertions.assertNull(collapsed.get(deepKey));
+        Assertions.assertEquals(Map.of(key, "A", 2, "C"), collapsed);
+        int sameFirstLevel = 1 | (1 << 10); // must split the inlined leaf into a new branch
+        PersistentIntMap<String> split = collapsed.plus(sameFirstLevel, "D");
+        Assertions.assertEquals(Map.of(key, "A", 2, "C", sameFirstLevel, "D"), split);
+        Assertions.assertEquals(Map.of(2, "C"), split.minus(key).minus(sameFirstLevel));
+    }
+
+    @Test
+    void shouldEmptyRootWhenLastKeyIsRemoved() { // checking method minus(int key)
+        PersistentIntMap<String> map = PersistentIntMap.<String>empty().plus(7, "A").plus(7 | HIGH_BIT_2, "B");
+
+        PersistentIntMap<String> emptied = map.minus(7).minus(7 | HIGH_BIT_2);
+
+        Assertions.assertTrue(emptied.isEmpty());
+        Assertions.assertSame(PersistentIntMap.empty(), emptied);
+        Assertions.assertFalse(emptied.entrySet().iterator().hasNext());
+        Assertions.assertSame(emptied, emptied.minus(7)); // absent key
+        Assertions.assertEquals(Map.of(7, "A"), emptied.plus(7, "A"));
+    }
+
+    @Test
+    void shouldKeepSizeWhenValueIsReplaced() { // checking method plus(int key, V value)
+        PersistentIntMap<String> map = PersistentIntMap.<String>empty().plus(1, "A").plus(2, "B");
+
+        PersistentIntMap<String> replaced = map.plus(1, "A2");
+
+        Assertions.assertEquals(2, replaced.size());
+        Assertions.assertEquals("A2", replaced.get(1));
+        Assertions.assertEquals("A", map.get(1)); // the previous version is unchanged
+    }
+
+    @Test
+    void shouldIterateOverEveryEntryOnce() { // checking method entrySet()
+        Map<Integer, String> expected = new HashMap<>();
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(); // negative keys too
+            if (i % 4 == 3) {
+                key = expected.keySet().iterator().next();
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, "V" + i);
+                map = map.plus(key, "V" + i);
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), map.size());
+        Assertions.assertEquals(expected.size(), map.entrySet().stream().count());
+        Assertions.assertEquals(expected, new HashMap<>(map));
+    }
+}
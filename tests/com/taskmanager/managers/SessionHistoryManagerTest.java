@@ -0,0 +1,111 @@
+package com.taskmanager.managers;
+
+import com.taskmanager.tasks.Task;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+class SessionHistoryManagerTest extends HistoryManagerTest<SessionHistoryManager> {
+
+    private long now;
+
+    @BeforeEach
+    protected void beforeEach() {
+        now = 0;
+        historyManager = new SessionHistoryManager(new InMemoryHistoryManager(), 10, 3, Duration.ofMinutes(30),
+                () -> now);
+        initTasks();
+    }
+
+    @Test
+    @SuppressWarnings("try") // the scopes only bind sessions
+    void shouldKeepSeparateHistoryPerSession() { // checking methods open(String sessionId), add(Task task)
+        try (SessionHistoryManager.Scope ignored = historyManager.open("A")) {
+            historyManager.add(task1);
+        }
+        try (SessionHistoryManager.Scope ignored = historyManager.open("B")) {
+            historyManager.add(task2);
+            Assertions.assertEquals(List.of(task2), historyManager.getHistory());
+        }
+        try (SessionHistoryManager.Scope ignored = historyManager.open("A")) {
+            Assertions.assertEquals(List.of(task1), historyManager.getHistory());
+        }
+        Assertions.assertEquals(List.<Task>of(), historyManager.getHistory()); // default session
+    }
+
+    @Test
+    @SuppressWarnings("try") // the scopes only bind sessions
+    void shouldRemoveTaskFromAllSessions() { // checking method remove(int id)
+        historyManager.add(task1);
+        try (SessionHistoryManager.Scope ignored = historyManager.open("A")) {
+            historyManager.add(task1);
+            historyManager.add(task2);
+        }
+
+        historyManager.remove(task1.getId());
+
+        Assertions.assertEquals(List.<Task>of(), historyManager.getHistory());
+        try (SessionHistoryManager.Scope ignored = historyManager.open("A")) {
+            Assertions.assertEquals(List.of(task2), historyManager.getHistory());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try") // the scopes only bind sessions
+    void shouldEvictIdleSessions() { // checking method open(String sessionId)
+        try (SessionHistoryManager.Scope ignored = historyManager.open("A")) {
+            historyManager.add(task1);
+        }
+        now += Duration.ofMinutes(20).toNanos();
+        historyManager.open("B").close();
+        now += Duration.ofMinutes(20).toNanos(); // A idle for 40 minutes, B for 20
+
+        historyManager.open("C").close();
+
+        Assertions.assertEquals(2, historyManager.getSessionCount());
+        try (SessionHistoryManager.Scope ignored = historyManager.open("A")) {
+            Assertions.assertEquals(List.<Task>of(), historyManager.getHistory());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try") // the scopes only bind sessions
+    void shouldEvictLeastRecentlyOpenedSessionBeyondMaxSessions() { // checking method open(String sessionId)
+        for (String sessionId : List.of("A", "B", "C")) {
+            try (SessionHistoryManager.Scope ignored = historyManager.open(sessionId)) {
+                historyManager.add(task1);
+            }
+        }
+        historyManager.open("A").close(); // B is now the least recently opened
+
+        historyManager.open("D").close();
+
+        Assertions.assertEquals(3, historyManager.getSessionCount());
+        try (SessionHistoryManager.Scope ignored = historyManager.open("A")) {
+            Assertions.assertEquals(List.of(task1), historyManager.getHistory());
+        }
+        try (SessionHistoryManager.Scope ignored = historyManager.open("B")) {
+            Assertions.assertEquals(List.<Task>of(), historyManager.getHistory());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try") // the scope only binds the session
+    void shouldKeepDefaultHistoryApartFromSessions() { // checking method getDefaultHistory()
+        historyManager.add(task1);
+        try (SessionHistoryManager.Scope ignored = historyManager.open("A")) {
+            historyManager.add(task2);
+
+            Assertions.assertEquals(List.of(task1), historyManager.getDefaultHistory().getHistory());
+        }
+    }
+
+    @Test
+    void shouldRejectNonPositiveSessionCount() { // checking constructor
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new SessionHistoryManager(new InMemoryHistoryManager(), 10, 0, Duration.ofMinutes(30)));
+    }
+}
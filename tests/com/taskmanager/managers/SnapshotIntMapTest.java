@@ -0,0 +1,91 @@
+package com.taskmanager.managers;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class SnapshotIntMapTest {
+
+    private final SnapshotIntMap<String> map = new SnapshotIntMap<>();
+
+    @Test
+    void shouldNotChangeSnapshotOnLaterWrites() { // checking method snapshot()
+        map.put(1, "A");
+        map.put(2, "B");
+
+        Map<Integer, String> snapshot = map.snapshot();
+        map.put(3, "C");
+        map.remove(1);
+        map.replace(2, "B2");
+
+        Assertions.assertEquals(Map.of(1, "A", 2, "B"), snapshot);
+        Assertions.assertEquals(Map.of(2, "B2", 3, "C"), map);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.put(4, "D"));
+    }
+
+    @Test
+    void shouldRemoveThroughIterator() { // checking method entrySet().iterator().remove()
+        map.put(1, "A");
+        map.put(2, "B");
+        Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator();
+        Assertions.assertThrows(IllegalStateException.class, iterator::remove);
+
+        int removedKey = iterator.next().getKey();
+        iterator.remove();
+
+        Assertions.assertThrows(IllegalStateException.class, iterator::remove);
+        Assertions.assertTrue(iterator.hasNext());
+        Assertions.assertFalse(map.containsKey(removedKey));
+        Assertions.assertEquals(1, map.size());
+    }
+
+    @Test
+    void shouldKeepEntriesConsistentUnderConcurrentPutAndRemove() throws InterruptedException { // checking put, remove
+        int threads = 4;
+        int keysPerThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicBoolean inconsistentSnapshot = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            while (writing.get()) {
+                Map<Integer, String> snapshot = map.snapshot();
+                if (snapshot.entrySet().stream().count() != snapshot.size()) {
+                    inconsistentSnapshot.set(true);
+                }
+            }
+        });
+        reader.start();
+
+        for (int i = 0; i < threads; i++) {
+            int firstKey = i * keysPerThread;
+            executor.submit(() -> {
+                for (int key = firstKey; key < firstKey + keysPerThread; key++) {
+                    map.put(key, "V" + key);
+                }
+                for (int key = firstKey; key < firstKey + keysPerThread; key += 2) {
+                    map.remove(key);
+                }
+            });
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        writing.set(false);
+        reader.join();
+
+        Assertions.assertFalse(inconsistentSnapshot.get());
+
+        Map<Integer, String> expected = new HashMap<>();
+        for (int key = 1; key < threads * keysPerThread; key += 2) {
+            expected.put(key, "V" + key);
+        }
+        Assertions.assertEquals(expected, new HashMap<>(map));
+        Assertions.assertEquals(expected.size(), map.size());
+    }
+}
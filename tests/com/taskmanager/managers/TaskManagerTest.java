@@ -5,10 +5,13 @@ import org.junit.jupiter.api.Test;
 import com.taskmanager.tasks.*;
 import com.taskmanager.tasks.TaskStatus;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 /**
  * Abstract test class for {@link TaskManager} implementations.
@@ -439,7 +442,7 @@ abstract class TaskManagerTest<T extends TaskManager> { // Testing methods of in
     @Test
     protected void shouldReturnCreatedTaskFromTasks() { // checking method getTasks()
         taskManager.createTask(task);
-        HashMap<Integer, Task> tasks = taskManager.getTasks();
+        Map<Integer, Task> tasks = taskManager.getTasks();
 
         Task expectedTask = task;
         Task actualTask = tasks.get(1);
@@ -450,7 +453,7 @@ abstract class TaskManagerTest<T extends TaskManager> { // Testing methods of in
     @Test
     protected void shouldReturnCreatedEpicFromEpics() { // checking method getEpics()
         taskManager.createEpic(epic);
-        HashMap<Integer, Epic> epics = taskManager.getEpics();
+        Map<Integer, Epic> epics = taskManager.getEpics();
 
         Task expectedEpic = epic;
         Task actualEpic = epics.get(1);
@@ -464,7 +467,7 @@ abstract class TaskManagerTest<T extends TaskManager> { // Testing methods of in
         subtask = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, epic.getId());
         taskManager.createSubtask(subtask);
 
-        HashMap<Integer, Subtask> subtasks = taskManager.getSubtasks();
+        Map<Integer, Subtask> subtasks = taskManager.getSubtasks();
 
         Task expectedSubtask = subtask;
         Task actualSubtask = subtasks.get(2);
@@ -472,6 +475,42 @@ abstract class TaskManagerTest<T extends TaskManager> { // Testing methods of in
         Assertions.assertEquals(expectedSubtask, actualSubtask);
     }
 
+    @Test
+    protected void shouldReturnTasksOfEachTypeByStatus() { // checking methods get...ByStatus(TaskStatus status)
+        taskManager.createTask(task); // id 1, NEW
+        taskManager.createTask(new Task("Task2", "DescrT2", TaskStatus.DONE)); // id 2
+        taskManager.createEpic(epic); // id 3
+        subtask = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, epic.getId());
+        taskManager.createSubtask(subtask); // id 4
+        taskManager.updateSubtask(new Subtask("Subtask2", "DescrSt2", TaskStatus.DONE, epic.getId()), 4);
+
+        Assertions.assertEquals(List.of(1), taskManager.getTasksByStatus(TaskStatus.NEW).stream()
+                .map(Task::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(List.of(2), taskManager.getTasksByStatus(TaskStatus.DONE).stream()
+                .map(Task::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(List.of(3), taskManager.getEpicsByStatus(TaskStatus.DONE).stream()
+                .map(Task::getId).collect(Collectors.toList()));
+        Assertions.assertTrue(taskManager.getEpicsByStatus(TaskStatus.NEW).isEmpty());
+        Assertions.assertEquals(List.of(4), taskManager.getSubtasksByStatus(TaskStatus.DONE).stream()
+                .map(Task::getId).collect(Collectors.toList()));
+        Assertions.assertTrue(taskManager.getSubtasksByStatus(TaskStatus.NEW).isEmpty());
+    }
+
+    @Test
+    protected void shouldNotReturnDeletedTasksByStatus() { // checking methods get...ByStatus(TaskStatus status)
+        taskManager.createTask(task);
+        taskManager.createEpic(epic);
+        subtask = new Subtask("Subtask2", "DescrSt2", TaskStatus.IN_PROGRESS, epic.getId());
+        taskManager.createSubtask(subtask);
+
+        taskManager.deleteTaskById(task.getId());
+        taskManager.deleteEpicById(epic.getId());
+
+        Assertions.assertTrue(taskManager.getTasksByStatus(TaskStatus.NEW).isEmpty());
+        Assertions.assertTrue(taskManager.getEpicsByStatus(TaskStatus.IN_PROGRESS).isEmpty());
+        Assertions.assertTrue(taskManager.getSubtasksByStatus(TaskStatus.IN_PROGRESS).isEmpty());
+    }
+
     @Test
     protected void shouldReturnSortedSetOfTasksByPriority() { // checking method getPrioritizedTasks();
         taskManager.createTask(task); // +1 Task without DateTimeParameters
@@ -496,6 +535,279 @@ abstract class TaskManagerTest<T extends TaskManager> { // Testing methods of in
 
     }
 
+    @Test
+    protected void shouldReturnPrioritizedTasksViewInPriorityOrder() { // checking method getPrioritizedTasksView();
+        taskManager.createTask(task); // +1 Task without DateTimeParameters
+
+        Task taskP = new Task("Task", "DescrT", TaskStatus.NEW, "02.06.2024, 09:30", 60L);
+        taskManager.createTask(taskP); // +1 Task with DateTimeParameters
+
+        taskManager.createEpic(epic); // +0 Epic (will not get to prioritizedTasks view)
+
+        Subtask subtaskP = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, "01.05.2024, 09:30", 80L, epic.getId());
+        taskManager.createSubtask(subtaskP); // +1 Subtask with DateTimeParameters
+
+        taskManager.deleteTaskById(taskP.getId()); // -1 Task
+
+        List<Task> prioritizedTasks = new ArrayList<>(taskManager.getPrioritizedTasksView());
+
+        Assertions.assertEquals(List.of(subtaskP, task), prioritizedTasks);
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> taskManager.getPrioritizedTasksView().clear());
+    }
+
+    @Test
+    protected void shouldReturnTasksStartingWithinRange() { // checking method getTasksInRange();
+        taskManager.createTask(task); // id 1, without DateTimeParameters
+        taskManager.createTask(new Task("Task", "DescrT", TaskStatus.NEW, "02.06.2024, 09:30", 60L)); // id 2
+        taskManager.createTask(new Task("Task", "DescrT", TaskStatus.NEW, "05.06.2024, 09:30", 60L)); // id 3
+        taskManager.createEpic(epic); // id 4
+        subtask = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, "01.06.2024, 12:30", 120L, epic.getId());
+        taskManager.createSubtask(subtask); // id 5
+
+        LocalDateTime from = LocalDateTime.of(2024, 6, 1, 12, 30);
+        LocalDateTime to = LocalDateTime.of(2024, 6, 2, 9, 30);
+
+        Assertions.assertEquals(List.of(5, 2), taskManager.getTasksInRange(from, to).stream()
+                .map(Task::getId).collect(Collectors.toList())); // both ends are inclusive
+        Assertions.assertEquals(List.of(3), taskManager.getTasksInRange(to.plusMinutes(1), to.plusDays(7))
+                .stream().map(Task::getId).collect(Collectors.toList()));
+        Assertions.assertTrue(taskManager.getTasksInRange(to, from).isEmpty());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksInRange(null, to));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksInRange(from, null));
+    }
+
+    @Test
+    protected void shouldFindEarliestFreeSlot() { // checking method findFreeSlot();
+        taskManager.createTask(new Task("Task", "DescrT", TaskStatus.NEW, "02.06.2024, 09:30", 60L));
+        taskManager.createEpic(epic);
+        subtask = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, "02.06.2024, 11:00", 30L, epic.getId());
+        taskManager.createSubtask(subtask);
+
+        LocalDateTime from = LocalDateTime.of(2024, 6, 2, 9, 0);
+
+        Assertions.assertEquals(from, taskManager.findFreeSlot(from, Duration.ofMinutes(20)));
+        // touching 09:30 counts as overlap, 10:31 + 30 minutes touches the subtask
+        Assertions.assertEquals(LocalDateTime.of(2024, 6, 2, 11, 31),
+                taskManager.findFreeSlot(from, Duration.ofMinutes(30)));
+        Assertions.assertEquals(LocalDateTime.of(2024, 6, 2, 10, 31),
+                taskManager.findFreeSlot(from.plusMinutes(45).plusSeconds(10), Duration.ofMinutes(28)));
+
+        LocalDateTime slot = taskManager.findFreeSlot(from, Duration.ofMinutes(30));
+        Task taskInSlot = new Task("Task", "DescrT", TaskStatus.NEW, slot.format(Task.dateTimeFormatter), 30L);
+        Assertions.assertTrue(taskManager.isValidDateTime(taskInSlot));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> taskManager.findFreeSlot(from, Duration.ofMinutes(-1)));
+        Assertions.assertThrows(IllegalArgumentException.class, // would end after LocalDateTime.MAX
+                () -> taskManager.findFreeSlot(from, Duration.ofMinutes(Task.MAX_EPOCH_MINUTE)));
+        LocalDateTime afterTasks = from.plusDays(1);
+        Assertions.assertEquals(afterTasks, taskManager.findFreeSlot(afterTasks,
+                Duration.ofMinutes(Task.MAX_EPOCH_MINUTE - Task.toEpochMinute(afterTasks))));
+        Assertions.assertThrows(IllegalArgumentException.class, // blocked slot moves the end past LocalDateTime.MAX
+                () -> taskManager.findFreeSlot(from, Duration.ofMinutes(Task.MAX_EPOCH_MINUTE
+                        - Task.toEpochMinute(from))));
+    }
+
+    @Test
+    protected void shouldFindNoConflictsBetweenValidatedTasks() { // checking method findConflicts();
+        taskManager.createTask(new Task("Task", "DescrT", TaskStatus.NEW, "02.06.2024, 09:30", 60L));
+        taskManager.createTask(new Task("Task", "DescrT", TaskStatus.NEW, "02.06.2024, 10:00", 60L)); // rejected
+        taskManager.createEpic(epic);
+        subtask = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, "02.06.2024, 10:31", 30L, epic.getId());
+        taskManager.createSubtask(subtask);
+
+        Assertions.assertTrue(taskManager.findConflicts().isEmpty());
+    }
+
+    @Test
+    protected void shouldCreateBatchSkippingConflictingTasks() { // checking method createTasks(List<Task> tasks);
+        List<Task> created = taskManager.createTasks(List.of(
+                new Task("Task1", "DescrT1", TaskStatus.NEW, "02.06.2024, 11:00", 60L),
+                new Task("Task2", "DescrT2", TaskStatus.NEW, "02.06.2024, 09:30", 60L),
+                new Task("Task3", "DescrT3", TaskStatus.NEW, "02.06.2024, 10:00", 60L), // overlaps Task2
+                new Task("Task4", "DescrT4")));
+
+        Assertions.assertEquals(3, created.size());
+        Assertions.assertEquals(List.of("Task1", "Task2", "Task4"),
+                created.stream().map(Task::getName).collect(Collectors.toList()));
+        Assertions.assertEquals(List.of(1, 2, 3),
+                created.stream().map(Task::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(3, taskManager.getTasks().size());
+
+        List<Task> next = taskManager.createTasks(List.of(
+                new Task("Task5", "DescrT5", TaskStatus.NEW, "02.06.2024, 11:30", 10L))); // overlaps Task1
+        Assertions.assertTrue(next.isEmpty());
+    }
+
+    @Test
+    protected void shouldKeepEarlierOfOverlappingTasksInBatch() { // checking method createTasks(List<Task> tasks);
+        List<Task> created = taskManager.createTasks(List.of(
+                new Task("Task1", "DescrT1", TaskStatus.NEW, "02.06.2024, 10:00", 60L),
+                new Task("Task2", "DescrT2", TaskStatus.NEW, "02.06.2024, 09:30", 60L), // overlaps Task1
+                new Task("Task3", "DescrT3", TaskStatus.NEW, "02.06.2024, 08:00", 60L),
+                new Task("Task4", "DescrT4", TaskStatus.NEW, "02.06.2024, 09:00", 60L))); // overlaps Task1, Task3
+
+        Assertions.assertEquals(List.of("Task1", "Task3"),
+                created.stream().map(Task::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    protected void shouldCreateBatchOfSubtasksAndUpdateEpicStatus() { // checking method createSubtasks(...);
+        taskManager.createEpic(epic);
+        List<Subtask> created = taskManager.createSubtasks(List.of(
+                new Subtask("Subtask1", "DescrSt1", TaskStatus.DONE, epic.getId()),
+                new Subtask("Subtask2", "DescrSt2", TaskStatus.DONE, epic.getId())));
+
+        Assertions.assertEquals(2, created.size());
+        Assertions.assertEquals(2, taskManager.getEpicSubtasks(epic).size());
+        Assertions.assertEquals(TaskStatus.DONE, taskManager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    protected void shouldNotCreateAnyOfBatchWithWrongEpicId() { // checking method createSubtasks(...);
+        taskManager.createEpic(epic);
+        List<Subtask> batch = List.of(
+                new Subtask("Subtask1", "DescrSt1", TaskStatus.NEW, epic.getId()),
+                new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, 100));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> taskManager.createSubtasks(batch));
+        Assertions.assertTrue(taskManager.getSubtasks().isEmpty());
+    }
+
+    @Test
+    protected void shouldDeleteOnlyTasksMatchingFilter() { // checking method deleteTasksIf(...);
+        taskManager.createTask(new Task("Task1", "DescrT1", TaskStatus.DONE));
+        taskManager.createTask(new Task("Task2", "DescrT2", TaskStatus.NEW));
+        taskManager.getUsualTaskById(1);
+
+        int deleted = taskManager.deleteTasksIf(task -> task.getStatus() == TaskStatus.DONE);
+
+        Assertions.assertEquals(1, deleted);
+        Assertions.assertEquals(List.of(2), new ArrayList<>(taskManager.getTasks().keySet()));
+        Assertions.assertTrue(taskManager.getHistoryManager().getHistory().isEmpty());
+    }
+
+    @Test
+    protected void shouldDeleteSubtasksMatchingFilterAndUpdateEpic() { // checking method deleteSubtasksIf(...);
+        taskManager.createEpic(epic);
+        taskManager.createSubtask(new Subtask("Subtask1", "DescrSt1", TaskStatus.DONE,
+                "01.06.2024, 09:00", 60L, epic.getId()));
+        taskManager.createSubtask(new Subtask("Subtask2", "DescrSt2", TaskStatus.DONE,
+                "03.06.2024, 09:00", 60L, epic.getId()));
+        taskManager.createSubtask(new Subtask("Subtask3", "DescrSt3", TaskStatus.NEW,
+                "01.06.2024, 12:00", 60L, epic.getId()));
+        long before = Task.toEpochMinute(LocalDateTime.of(2024, 6, 2, 0, 0));
+
+        int deleted = taskManager.deleteSubtasksIf(subtask -> subtask.getStatus() == TaskStatus.DONE
+                && subtask.getEndMinute() < before);
+
+        Assertions.assertEquals(1, deleted);
+        Assertions.assertEquals(2, taskManager.getSubtasks().size());
+        Epic storedEpic = taskManager.getEpicById(epic.getId());
+        Assertions.assertEquals(2, taskManager.getEpicSubtasks(storedEpic).size());
+        Assertions.assertEquals(TaskStatus.IN_PROGRESS, storedEpic.getStatus());
+        Assertions.assertEquals(LocalDateTime.of(2024, 6, 1, 12, 0), storedEpic.getStartTime().get());
+    }
+
+    @Test
+    protected void shouldUpdateTaskOnlyIfVersionIsExpected() { // checking updateUsualTask(..., expectedVersion);
+        taskManager.createTask(task);
+        int readVersion = taskManager.getUsualTaskById(task.getId()).getVersion();
+
+        boolean firstUpdated = taskManager.updateUsualTask(new Task("Task1", "DescrT1", TaskStatus.IN_PROGRESS),
+                task.getId(), readVersion);
+        boolean secondUpdated = taskManager.updateUsualTask(new Task("Task2", "DescrT2", TaskStatus.DONE),
+                task.getId(), readVersion);
+
+        Task storedTask = taskManager.getUsualTaskById(task.getId());
+        Assertions.assertTrue(firstUpdated);
+        Assertions.assertFalse(secondUpdated);
+        Assertions.assertEquals("Task1", storedTask.getName());
+        Assertions.assertEquals(readVersion + 1, storedTask.getVersion());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> taskManager.updateUsualTask(task, 100, 0));
+    }
+
+    @Test
+    protected void shouldCountVersionsOfEpicsAndSubtasks() { // checking updateSubtask(..., expectedVersion);
+        taskManager.createEpic(epic);
+        subtask = new Subtask("Subtask1", "DescrSt1", TaskStatus.NEW, epic.getId());
+        taskManager.createSubtask(subtask);
+        taskManager.updateSubtask(new Subtask("Subtask1", "DescrSt1", TaskStatus.DONE, epic.getId()),
+                subtask.getId());
+
+        Assertions.assertEquals(0, taskManager.getEpicById(epic.getId()).getVersion()); // status change is derived
+        Assertions.assertFalse(taskManager.updateSubtask(
+                new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, epic.getId()), subtask.getId(), 0));
+        Assertions.assertTrue(taskManager.updateSubtask(
+                new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, epic.getId()), subtask.getId(), 1));
+        Assertions.assertTrue(taskManager.updateEpic(new Epic("Epic2", "DescrEp2"), epic.getId(), 0));
+        Assertions.assertEquals(2, taskManager.getSubtaskById(subtask.getId()).getVersion());
+        Assertions.assertEquals(1, taskManager.getEpicById(epic.getId()).getVersion());
+        Assertions.assertEquals(TaskStatus.NEW, taskManager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    protected void shouldCommitEpicWithSubtasksUsingProvisionalId() { // checking method commit(...);
+        taskManager.createTask(task);
+        Transaction transaction = taskManager.beginTransaction();
+        int epicId = transaction.createEpic(epic);
+        transaction.createSubtask(new Subtask("Subtask1", "DescrSt1", TaskStatus.DONE, "01.06.2024, 12:00", 30,
+                epicId));
+        transaction.createSubtask(new Subtask("Subtask2", "DescrSt2", TaskStatus.DONE, epicId));
+        transaction.deleteTaskById(task.getId());
+
+        List<Task> created = transaction.commit();
+
+        Assertions.assertEquals(-1, epicId);
+        Assertions.assertEquals(3, created.size());
+        Assertions.assertTrue(taskManager.getTasks().isEmpty());
+        Epic storedEpic = taskManager.getEpicById(created.get(0).getId());
+        Assertions.assertEquals(2, taskManager.getEpicSubtasks(storedEpic).size());
+        Assertions.assertEquals(storedEpic.getId(), ((Subtask) created.get(1)).getIdEpic());
+        Assertions.assertEquals(TaskStatus.DONE, storedEpic.getStatus());
+    }
+
+    @Test
+    protected void shouldApplyNothingIfAnyOperationOfTransactionIsInvalid() { // checking method commit(...);
+        taskManager.createTask(new Task("Task1", "DescrT1", TaskStatus.NEW, "01.06.2024, 12:00", 60));
+        Transaction transaction = taskManager.beginTransaction();
+        transaction.createTask(new Task("Task2", "DescrT2", TaskStatus.NEW));
+        transaction.deleteTaskById(1);
+        transaction.createTask(new Task("Task3", "DescrT3", TaskStatus.NEW, "01.06.2024, 12:30", 60));
+        transaction.createTask(new Task("Task4", "DescrT4", TaskStatus.NEW, "01.06.2024, 13:00", 10));
+
+        IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+                transaction::commit);
+
+        Assertions.assertTrue(exception.getMessage().startsWith("Operation 4:"));
+        Assertions.assertEquals(List.of(1), new ArrayList<>(taskManager.getTasks().keySet()));
+    }
+
+    @Test
+    protected void shouldReuseTimeSlotReleasedEarlierInTransaction() { // checking method commit(...);
+        taskManager.createTask(new Task("Task1", "DescrT1", TaskStatus.NEW, "01.06.2024, 12:00", 60));
+        Transaction transaction = taskManager.beginTransaction();
+        transaction.updateUsualTask(new Task("Task1", "DescrT1", TaskStatus.NEW, "01.06.2024, 15:00", 60), 1);
+        transaction.createTask(new Task("Task2", "DescrT2", TaskStatus.NEW, "01.06.2024, 12:00", 60));
+
+        transaction.commit();
+
+        Assertions.assertEquals(2, taskManager.getTasks().size());
+        Assertions.assertEquals(LocalDateTime.of(2024, 6, 1, 15, 0),
+                taskManager.getUsualTaskById(1).getStartTime().get());
+    }
+
+    @Test
+    protected void shouldDiscardStagedOperationsOnRollback() { // checking method Transaction.rollback();
+        Transaction transaction = taskManager.beginTransaction();
+        transaction.createTask(task);
+        transaction.rollback();
+
+        Assertions.assertTrue(taskManager.getTasks().isEmpty());
+        Assertions.assertThrows(IllegalStateException.class, transaction::commit);
+    }
+
     @Test
     protected void shouldNotCreateTasksWithWrongDateTimeValidation() { // checking method isValidDateTime();
         taskManager.createTask(task); // +1 Task without DateTimeParameters
@@ -526,13 +838,40 @@ abstract class TaskManagerTest<T extends TaskManager> { // Testing methods of in
 
     }
 
+    @Test
+    protected void shouldAllowTaskInTimeSlotFreedByDeletedTask() { // checking method isValidDateTime();
+        Task taskP = new Task("Task", "DescrT", TaskStatus.NEW, "02.06.2024, 09:30", 60L);
+        taskManager.createTask(taskP); // +1 Task with right DateTimeParameters
+
+        Task taskSameSlot = new Task("Task", "DescrT", TaskStatus.NEW, "02.06.2024, 10:00", 60L);
+        Assertions.assertFalse(taskManager.isValidDateTime(taskSameSlot));
+
+        taskManager.deleteTaskById(taskP.getId()); // -1 Task, time slot is free again
+        Assertions.assertTrue(taskManager.isValidDateTime(taskSameSlot));
+    }
+
+    @Test
+    protected void shouldValidateDateTimeAgainstUpdatedTimeSlot() { // checking method isValidDateTime();
+        Task taskP = new Task("Task", "DescrT", TaskStatus.NEW, "02.06.2024, 09:30", 60L);
+        taskManager.createTask(taskP);
+
+        Task taskMoved = new Task("Task", "DescrT", TaskStatus.NEW, "05.06.2024, 09:30", 60L);
+        taskManager.updateUsualTask(taskMoved, taskP.getId()); // Task moved to another day
+
+        Task taskOldSlot = new Task("Task", "DescrT", TaskStatus.NEW, "02.06.2024, 09:30", 60L);
+        Task taskNewSlot = new Task("Task", "DescrT", TaskStatus.NEW, "05.06.2024, 10:30", 60L); // touches end
+
+        Assertions.assertTrue(taskManager.isValidDateTime(taskOldSlot));
+        Assertions.assertFalse(taskManager.isValidDateTime(taskNewSlot));
+    }
+
 
     @Test
     protected void shouldReturnEmptyListAfterDeleting1Task() { // checking method deleteTaskById(int id)
         taskManager.createTask(task); // +1 Task
         taskManager.deleteTaskById(task.getId()); // -1 Task
 
-        HashMap<Integer, Task> tasks = taskManager.getTasks();
+        Map<Integer, Task> tasks = taskManager.getTasks();
 
         boolean listIsEmpty = tasks.isEmpty();
 
@@ -557,13 +896,29 @@ abstract class TaskManagerTest<T extends TaskManager> { // Testing methods of in
         taskManager.createEpic(epic); // +1 Epic
         taskManager.deleteEpicById(epic.getId()); // -1 Epic
 
-        HashMap<Integer, Epic> epics = taskManager.getEpics();
+        Map<Integer, Epic> epics = taskManager.getEpics();
 
         boolean listIsEmpty = epics.isEmpty();
 
         Assertions.assertTrue(listIsEmpty);
     }
 
+    @Test
+    protected void shouldDeleteOnlySubtasksOfDeletedEpic() { // checking method deleteEpicById(int id)
+        taskManager.createEpic(epic);
+        Epic otherEpic = new Epic("Epic2", "DescrEp2");
+        taskManager.createEpic(otherEpic);
+        subtask = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW, epic.getId());
+        taskManager.createSubtask(subtask);
+        Subtask otherSubtask = new Subtask("Subtask3", "DescrSt3", TaskStatus.NEW, otherEpic.getId());
+        taskManager.createSubtask(otherSubtask);
+
+        taskManager.deleteEpicById(epic.getId());
+
+        Assertions.assertEquals(List.of(otherSubtask.getId()), new ArrayList<>(taskManager.getSubtasks().keySet()));
+        Assertions.assertEquals(List.of(otherSubtask), taskManager.getEpicSubtasks(otherEpic));
+    }
+
     @Test
     protected void shouldThrowExceptionByDeletingWrongEpicId() { // checking method deleteEpicById(int id)
         taskManager.createEpic(epic); // Id = 1
@@ -583,7 +938,7 @@ abstract class TaskManagerTest<T extends TaskManager> { // Testing methods of in
         taskManager.createSubtask(subtask); // +1 Subtask
         taskManager.deleteSubtaskById(subtask.getId()); // -1 Subtask
 
-        HashMap<Integer, Subtask> subtasks = taskManager.getSubtasks();
+        Map<Integer, Subtask> subtasks = taskManager.getSubtasks();
 
         boolean listIsEmpty = subtasks.isEmpty();
 
@@ -610,7 +965,7 @@ abstract class TaskManagerTest<T extends TaskManager> { // Testing methods of in
         taskManager.createTask(task); // +1 Task
         taskManager.deleteAllUsualTasks(); // -2 Tasks
 
-        HashMap<Integer, Task> tasks = taskManager.getTasks();
+        Map<Integer, Task> tasks = taskManager.getTasks();
 
         boolean listIsEmpty = tasks.isEmpty();
 
@@ -623,7 +978,7 @@ abstract class TaskManagerTest<T extends TaskManager> { // Testing methods of in
         taskManager.createEpic(epic); // +1 Epic
         taskManager.deleteAllEpics(); // -2 Epics
 
-        HashMap<Integer, Epic> epics = taskManager.getEpics();
+        Map<Integer, Epic> epics = taskManager.getEpics();
 
         boolean listIsEmpty = epics.isEmpty();
 
@@ -638,7 +993,7 @@ abstract class TaskManagerTest<T extends TaskManager> { // Testing methods of in
         taskManager.createSubtask(subtask); // +1 Subtask
         taskManager.deleteAllSubtasks(); // -2 Subtasks
 
-        HashMap<Integer, Subtask> subtasks = taskManager.getSubtasks();
+        Map<Integer, Subtask> subtasks = taskManager.getSubtasks();
 
         boolean listIsEmpty = subtasks.isEmpty();
 
@@ -653,9 +1008,9 @@ abstract class TaskManagerTest<T extends TaskManager> { // Testing methods of in
         taskManager.createSubtask(subtask); // +1 Subtask
         taskManager.deleteAllTasksAllTypes(); // -1 Task -1 Epic -1 Subtask
 
-        HashMap<Integer, Task> tasks = taskManager.getTasks();
-        HashMap<Integer, Epic> epics = taskManager.getEpics();
-        HashMap<Integer, Subtask> subtasks = taskManager.getSubtasks();
+        Map<Integer, Task> tasks = taskManager.getTasks();
+        Map<Integer, Epic> epics = taskManager.getEpics();
+        Map<Integer, Subtask> subtasks = taskManager.getSubtasks();
 
         boolean listIsEmpty = tasks.isEmpty() && epics.isEmpty() && subtasks.isEmpty();
 
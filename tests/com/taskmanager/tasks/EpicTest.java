@@ -1,10 +1,13 @@
 package com.taskmanager.tasks;
 
+import com.google.gson.Gson;
 import com.taskmanager.main_manager.Managers;
 import com.taskmanager.managers.InMemoryHistoryManager;
 import com.taskmanager.managers.TaskManager;
 import org.junit.jupiter.api.*;
 
+import java.util.List;
+
 /**
  * Unit tests for {@link Epic} behavior.
  * <p>
@@ -333,4 +336,81 @@ class EpicTest {
         Assertions.assertEquals(expectedEndTime, actualEndTime);
     }
 
-}
\ No newline at end of file
+    @Test
+    protected void shouldUpdateStatusAndTimesOfEpicAfterSubtaskChanges() { // checking incremental aggregates
+        Subtask subtask1 = new Subtask("Subtask1", "DescrSt1", TaskStatus.DONE,
+                "01.06.2024, 09:30", 60L, epic.getId());
+        taskManager.createSubtask(subtask1);
+        Subtask subtask2 = new Subtask("Subtask2", "DescrSt2", TaskStatus.NEW,
+                "02.06.2024, 09:30", 30L, epic.getId());
+        taskManager.createSubtask(subtask2);
+
+        Subtask updatedSubtask2 = new Subtask("Subtask2", "DescrSt2", TaskStatus.DONE,
+                "03.06.2024, 09:30", 45L, epic.getId());
+        taskManager.updateSubtask(updatedSubtask2, subtask2.getId());
+        taskManager.deleteSubtaskById(subtask1.getId());
+
+        // Expected and actual aggregates
+        Assertions.assertEquals(TaskStatus.DONE, epic.getStatus());
+        Assertions.assertEquals(1, epic.getSubtasksCount(TaskStatus.DONE));
+        Assertions.assertEquals(0, epic.getSubtasksCount(TaskStatus.NEW));
+        Assertions.assertEquals("03.06.2024, 09:30", epic.getStartTime().get().format(Task.dateTimeFormatter));
+        Assertions.assertEquals("03.06.2024, 10:15", epic.getEndTime().get().format(Task.dateTimeFormatter));
+        Assertions.assertEquals(45L, epic.getDuration().get().toMinutes());
+    }
+
+    @Test
+    protected void shouldKeepSubtaskPositionsAcrossReplaceAndRemove() { // checking replace/removeSubtask(s)
+        Epic standalone = new Epic("Epic", "DescrEp");
+        Subtask[] subtasks = new Subtask[6];
+        for (int id = 1; id <= 5; id++) {
+            subtasks[id] = new Subtask("Subtask" + id, "DescrSt", TaskStatus.NEW, "0" + id + ".06.2024, 09:30", 10L,
+                    standalone.getId());
+            subtasks[id].setId(id);
+            standalone.addSubtask(subtasks[id]);
+        }
+        Subtask replacement = new Subtask("Subtask2", "DescrSt", TaskStatus.DONE, "10.06.2024, 09:30", 30L,
+                standalone.getId());
+        replacement.setId(2);
+
+        standalone.replaceSubtask(2, replacement); // stays at position 1
+        standalone.removeSubtask(1); // subtask 5 moves to position 0
+        standalone.removeSubtasks(List.of(3, 5)); // 4 moves to position 2, then to position 0
+        standalone.removeSubtask(5); // already removed
+
+        Assertions.assertEquals(List.of(subtasks[4], replacement), standalone.subtasks);
+        Assertions.assertEquals(1, standalone.getSubtasksCount(TaskStatus.DONE));
+        Assertions.assertEquals(1, standalone.getSubtasksCount(TaskStatus.NEW));
+        Assertions.assertEquals("04.06.2024, 09:30", standalone.getStartTime().get().format(Task.dateTimeFormatter));
+        Assertions.assertEquals("10.06.2024, 10:00", standalone.getEndTime().get().format(Task.dateTimeFormatter));
+        Assertions.assertEquals(40L, standalone.getDuration().get().toMinutes());
+    }
+
+    @Test
+    protected void shouldReturnEpochMinutesMatchingEpicTimes() { // checking getStartMinute(), getEndMinute()
+        Assertions.assertEquals(Task.NO_TIME, epic.getStartMinute());
+        Assertions.assertEquals(Task.NO_TIME, epic.getEndMinute());
+
+        Subtask subtask1 = new Subtask("Subtask1", "DescrSt1", "01.06.2024, 09:30", 60L, epic.getId());
+        taskManager.createSubtask(subtask1);
+        Subtask subtask2 = new Subtask("Subtask2", "DescrSt2", "02.06.2024, 09:30", 30L, epic.getId());
+        taskManager.createSubtask(subtask2);
+
+        Assertions.assertEquals(Task.toEpochMinute(epic.getStartTime().get()), epic.getStartMinute());
+        Assertions.assertEquals(Task.toEpochMinute(epic.getEndTime().get()), epic.getEndMinute());
+        Assertions.assertEquals(90L, epic.getDurationMinutes());
+        Assertions.assertEquals(subtask1.getStartMinute() + 60L, subtask1.getEndMinute());
+    }
+
+    @Test
+    protected void shouldDeriveEpochMinutesOfTaskReadFromJson() { // checking getStartMinute(), getEndMinute()
+        Subtask subtask = new Subtask("Subtask1", "DescrSt1", "01.06.2024, 09:30", 60L, epic.getId());
+        subtask.getEndMinute(); // minutes cached before serialization are not part of the JSON
+
+        Subtask read = new Gson().fromJson(new Gson().toJson(subtask), Subtask.class);
+
+        Assertions.assertEquals(subtask.getStartMinute(), read.getStartMinute());
+        Assertions.assertEquals(60L, read.getDurationMinutes());
+        Assertions.assertEquals(subtask.getEndMinute(), read.getEndMinute());
+    }
+}